@@ -0,0 +1,41 @@
+package com.knohub.backend.benchmark;
+
+import com.knohub.backend.service.ActiveUserService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code ActiveUserService.recordIp} called from many request threads at once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class ActiveUserServiceBenchmark {
+
+    @Param({"100", "5000"})
+    public int distinctIps;
+
+    private ActiveUserService service;
+    private String[] ips;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        service = new ActiveUserService();
+        ips = new String[distinctIps];
+        for (int i = 0; i < distinctIps; i++) {
+            ips[i] = "10." + (i >> 16 & 0xff) + "." + (i >> 8 & 0xff) + "." + (i & 0xff);
+            service.recordIp(ips[i]);
+        }
+    }
+
+    @Benchmark
+    public void recordIp() {
+        service.recordIp(ips[ThreadLocalRandom.current().nextInt(ips.length)]);
+    }
+}
@@ -0,0 +1,119 @@
+package com.knohub.backend.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.knohub.backend.dto.ApiResponse;
+import com.knohub.backend.dto.FileItemDTO;
+import com.knohub.backend.dto.ResourceDTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson encoding and decoding of the GET /api/resources payload in each negotiable format
+ * (JSON, Smile, CBOR). The encoded size of each payload is printed at setup so it can be compared alongside speed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiResponseSerializationBenchmark {
+
+    @Param({"10", "100"})
+    public int resources;
+
+    @Param({"20", "200"})
+    public int filesPerResource;
+
+    @Param({"json", "smile", "cbor"})
+    public String format;
+
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private ApiResponse<List<ResourceDTO>> payload;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        JsonFactory factory = switch (format) {
+            case "smile" -> new SmileFactory();
+            case "cbor" -> new CBORFactory();
+            default -> new JsonFactory();
+        };
+        // Same date handling as the application's mappers
+        ObjectMapper mapper = new ObjectMapper(factory)
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        TypeReference<ApiResponse<List<ResourceDTO>>> type = new TypeReference<>() { };
+        writer = mapper.writerFor(type);
+        reader = mapper.readerFor(type);
+        List<ResourceDTO> list = new ArrayList<>(resources);
+        for (int r = 0; r < resources; r++) {
+            list.add(ResourceDTO.builder()
+                    .id((long) r)
+                    .type("course")
+                    .title("数字逻辑 " + r)
+                    .description("课程资料 " + r)
+                    .tag("New")
+                    .updateDate("2026-01-01")
+                    .totalBytes(4_096_000L)
+                    .fileCount((long) filesPerResource)
+                    .lastModified(LocalDateTime.of(2026, 1, 1, 8, 30))
+                    .files(buildFiles(r))
+                    .build());
+        }
+        payload = ApiResponse.success(list);
+        encoded = writer.writeValueAsBytes(payload);
+        System.out.printf("%n%s payload: %d bytes%n", format, encoded.length);
+    }
+
+    private List<FileItemDTO> buildFiles(int resourceIndex) {
+        List<FileItemDTO> folders = new ArrayList<>();
+        FileItemDTO folder = null;
+        for (int i = 0; i < filesPerResource; i++) {
+            if (i % 10 == 0) {
+                folder = FileItemDTO.builder()
+                        .id((long) resourceIndex * 100_000 + i)
+                        .name("第" + (i / 10 + 1) + "周")
+                        .isFolder(true)
+                        .children(new ArrayList<>())
+                        .build();
+                folders.add(folder);
+                continue;
+            }
+            folder.getChildren().add(FileItemDTO.builder()
+                    .id((long) resourceIndex * 100_000 + i)
+                    .name("lab-" + i + ".circ")
+                    .isFolder(false)
+                    .type("circ")
+                    .size("12.3KB")
+                    .url("/api/files/" + resourceIndex + "/download/0b8f4c1e-lab-" + i + ".circ")
+                    .previewUrl("/api/files/" + i + "/preview")
+                    .totalBytes(12_595L)
+                    .lastModified(LocalDateTime.of(2026, 1, 1, 8, 30))
+                    .build());
+        }
+        return folders;
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return writer.writeValueAsBytes(payload);
+    }
+
+    @Benchmark
+    public ApiResponse<List<ResourceDTO>> deserialize() throws Exception {
+        return reader.readValue(encoded);
+    }
+}
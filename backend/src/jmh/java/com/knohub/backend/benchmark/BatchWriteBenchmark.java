@@ -0,0 +1,99 @@
+package com.knohub.backend.benchmark;
+
+import com.knohub.backend.dto.FileItemDTO;
+import com.knohub.backend.dto.UploadResultDTO;
+import com.knohub.backend.repository.FileItemRepository;
+import com.knohub.backend.repository.ResourceRepository;
+import com.knohub.backend.service.FileService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JDBC statement counts for bulk writes: {@code uploadFiles} with 100 files and {@code deleteFolder}
+ * on a 5,000-node tree. The "statements" and "rows" aux counters come from Hibernate statistics;
+ * run the same benchmark on an older commit to compare before/after.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BatchWriteBenchmark {
+
+    private static final int UPLOAD_FILES = 100;
+    private static final int DELETE_TREE_NODES = 5000;
+
+    /**
+     * Per-invocation JDBC work, reported next to the timing.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class StatementCounts {
+        public long statements;
+        public long rows;
+    }
+
+    private ConfigurableApplicationContext context;
+    private FileService fileService;
+    private FixtureGenerator fixtures;
+    private Statistics statistics;
+    private Long resourceId;
+    private MultipartFile[] uploadBatch;
+    private Long folderId;
+    private int invocation;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = BenchmarkContext.start("batch", "spring.jpa.properties.hibernate.generate_statistics=true");
+        fileService = context.getBean(FileService.class);
+        fixtures = new FixtureGenerator(context.getBean(ResourceRepository.class), context.getBean(FileItemRepository.class));
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        resourceId = fixtures.seedResource("Batch writes", 10);
+
+        uploadBatch = new MultipartFile[UPLOAD_FILES];
+        byte[] content = "module lab(input a, output y); assign y = a; endmodule\n".getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < UPLOAD_FILES; i++) {
+            uploadBatch[i] = new MockMultipartFile("files", "lab-" + i + ".v", "text/plain", content);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareInvocation() {
+        invocation++;
+        folderId = fixtures.seedFolder(resourceId, "delete-tree-" + invocation, DELETE_TREE_NODES);
+        statistics.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<UploadResultDTO> uploadFiles(StatementCounts counts) throws IOException {
+        FileItemDTO folder = fileService.createFolder(resourceId, null, "upload-" + invocation);
+        statistics.clear();
+        List<UploadResultDTO> result = fileService.uploadFiles(resourceId, folder.getId(), uploadBatch);
+        counts.statements += statistics.getPrepareStatementCount();
+        counts.rows += statistics.getEntityInsertCount();
+        return result;
+    }
+
+    @Benchmark
+    public void deleteFolder(StatementCounts counts) {
+        fileService.deleteFolder(folderId);
+        counts.statements += statistics.getPrepareStatementCount();
+        counts.rows += statistics.getEntityUpdateCount();
+    }
+}
@@ -0,0 +1,42 @@
+package com.knohub.backend.benchmark;
+
+import com.knohub.backend.KnoHubBackendApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Boots the backend without a web server against a private in-memory H2 database.
+ * The schema comes from the Flyway migrations, so benchmarks run with the production indexes.
+ */
+public final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    /**
+     * @param name            database name; each benchmark state should use its own so fixtures don't mix
+     * @param extraProperties additional key=value properties
+     */
+    public static ConfigurableApplicationContext start(String name, String... extraProperties) throws IOException {
+        Path uploadDir = Files.createTempDirectory("knohub-bench-uploads");
+        return new SpringApplicationBuilder(KnoHubBackendApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(extraProperties)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:" + name + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                        "spring.datasource.driver-class-name=org.h2.Driver",
+                        "spring.datasource.username=sa",
+                        "spring.datasource.password=",
+                        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                        "file.upload-dir=" + uploadDir,
+                        "logisim.enabled=false",
+                        "access-log.enabled=false",
+                        "logging.level.root=WARN")
+                .run();
+    }
+}
@@ -0,0 +1,132 @@
+package com.knohub.backend.benchmark;
+
+import com.knohub.backend.model.FileItem;
+import com.knohub.backend.model.Resource;
+import com.knohub.backend.model.ResourceType;
+import com.knohub.backend.repository.FileItemRepository;
+import com.knohub.backend.repository.ResourceRepository;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Seeds a resource with a synthetic file tree of a given size.
+ * Every folder gets {@value #FAN_OUT} children, {@value #FOLDERS_PER_FOLDER} of which are sub-folders,
+ * so the tree is several levels deep like a real course (week/lab/submission folders).
+ */
+public final class FixtureGenerator {
+
+    static final int FAN_OUT = 10;
+    static final int FOLDERS_PER_FOLDER = 3;
+    private static final String[] FILE_TYPES = {"pdf", "docx", "circ", "png", "zip", "doc", "v"};
+    private static final int SAVE_BATCH = 1000;
+
+    private final ResourceRepository resourceRepository;
+    private final FileItemRepository fileItemRepository;
+
+    public FixtureGenerator(ResourceRepository resourceRepository, FileItemRepository fileItemRepository) {
+        this.resourceRepository = resourceRepository;
+        this.fileItemRepository = fileItemRepository;
+    }
+
+    /**
+     * Create a resource with exactly {@code nodeCount} live file items.
+     *
+     * @return id of the created resource
+     */
+    public Long seedResource(String title, int nodeCount) {
+        Resource resource = resourceRepository.save(Resource.builder()
+                .type(ResourceType.COURSE)
+                .title(title)
+                .description("Benchmark fixture with " + nodeCount + " nodes")
+                .build());
+
+        seedUnder(resource, null, nodeCount);
+        return resource.getId();
+    }
+
+    /**
+     * Create a root-level folder in an existing resource holding {@code nodeCount} descendants.
+     *
+     * @return id of the created folder
+     */
+    public Long seedFolder(Long resourceId, String folderName, int nodeCount) {
+        Resource resource = resourceRepository.findById(resourceId).orElseThrow();
+        FileItem folder = fileItemRepository.save(FileItem.builder()
+                .name(folderName)
+                .originalName(folderName)
+                .isFolder(true)
+                .resource(resource)
+                .build());
+        seedUnder(resource, folder, nodeCount);
+        return folder.getId();
+    }
+
+    private void seedUnder(Resource resource, FileItem root, int nodeCount) {
+        int created = 0;
+        Deque<FileItem> pendingFolders = new ArrayDeque<>();
+        List<FileItem> level = new ArrayList<>();
+
+        // First level
+        for (int i = 0; i < FAN_OUT && created < nodeCount; i++, created++) {
+            level.add(newItem(resource, root, i, i < FOLDERS_PER_FOLDER));
+        }
+        saveLevel(level, pendingFolders);
+
+        while (created < nodeCount && !pendingFolders.isEmpty()) {
+            level.clear();
+            int levelSize = pendingFolders.size();
+            for (int f = 0; f < levelSize && created < nodeCount; f++) {
+                FileItem parent = pendingFolders.poll();
+                for (int i = 0; i < FAN_OUT && created < nodeCount; i++, created++) {
+                    level.add(newItem(resource, parent, i, i < FOLDERS_PER_FOLDER));
+                }
+            }
+            saveLevel(level, pendingFolders);
+        }
+    }
+
+    private void saveLevel(List<FileItem> level, Deque<FileItem> pendingFolders) {
+        for (int from = 0; from < level.size(); from += SAVE_BATCH) {
+            List<FileItem> saved = fileItemRepository.saveAll(level.subList(from, Math.min(level.size(), from + SAVE_BATCH)));
+            for (FileItem item : saved) {
+                if (item.isFolder()) {
+                    pendingFolders.add(item);
+                }
+            }
+        }
+    }
+
+    private FileItem newItem(Resource resource, FileItem parent, int index, boolean folder) {
+        String prefix = parent == null ? "root" : "n" + parent.getId();
+        if (folder) {
+            String name = prefix + "-folder-" + index;
+            return FileItem.builder()
+                    .name(name)
+                    .originalName(name)
+                    .isFolder(true)
+                    .resource(resource)
+                    .parent(parent)
+                    .displayOrder(index)
+                    .build();
+        }
+        String type = FILE_TYPES[index % FILE_TYPES.length];
+        String name = prefix + "-file-" + index + "." + type;
+        long sizeBytes = 1024L * (index + 1) * 37;
+        return FileItem.builder()
+                .name(name)
+                .originalName(name)
+                .isFolder(false)
+                .type(type)
+                .size(sizeBytes / 1024 + "KB")
+                .sizeBytes(sizeBytes)
+                .url("/api/files/" + resource.getId() + "/download/" + name)
+                .storagePath("/nonexistent/" + name)
+                .resource(resource)
+                .parent(parent)
+                .displayOrder(index)
+                .build();
+    }
+}
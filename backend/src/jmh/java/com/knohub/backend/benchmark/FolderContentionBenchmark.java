@@ -0,0 +1,101 @@
+package com.knohub.backend.benchmark;
+
+import com.knohub.backend.model.FileItem;
+import com.knohub.backend.repository.FileItemRepository;
+import com.knohub.backend.repository.ResourceRepository;
+import com.knohub.backend.service.ConcurrentUpdateException;
+import com.knohub.backend.service.FileService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Eight threads hammering reorder and rename inside one folder. Besides throughput it reports how many
+ * calls were answered with 409 ("conflicts"), prints the optimistic retry count, and fails the run if the
+ * folder's displayOrder is not a permutation of 0..n-1 afterwards.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class FolderContentionBenchmark {
+
+    private static final String[] POSITIONS = {"before", "after"};
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Outcomes {
+        public long conflicts;
+    }
+
+    private ConfigurableApplicationContext context;
+    private FileService fileService;
+    private FileItemRepository fileItemRepository;
+    private Long folderId;
+    private List<Long> childIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = BenchmarkContext.start("contention");
+        fileService = context.getBean(FileService.class);
+        fileItemRepository = context.getBean(FileItemRepository.class);
+        FixtureGenerator fixtures = new FixtureGenerator(context.getBean(ResourceRepository.class), fileItemRepository);
+        Long resourceId = fixtures.seedResource("Contention", 0);
+        folderId = fixtures.seedFolder(resourceId, "shared", FixtureGenerator.FAN_OUT);
+        childIds = fileItemRepository.findByParentIdAndDeletedFalse(folderId).stream()
+                .map(FileItem::getId)
+                .toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        try {
+            List<FileItem> children = fileItemRepository.findByParentIdAndDeletedFalseOrderByDisplayOrder(folderId);
+            for (int i = 0; i < children.size(); i++) {
+                if (children.get(i).getDisplayOrder() != i) {
+                    throw new IllegalStateException("displayOrder corrupted: " + children.stream()
+                            .map(FileItem::getDisplayOrder)
+                            .toList());
+                }
+            }
+            double retries = context.getBean(MeterRegistry.class).find("knohub.optimistic.retries").counters().stream()
+                    .mapToDouble(Counter::count)
+                    .sum();
+            System.out.println("optimistic retries: " + (long) retries);
+        } finally {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public void reorder(Outcomes outcomes) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Long dragId = childIds.get(random.nextInt(childIds.size()));
+        Long dropId = childIds.get(random.nextInt(childIds.size()));
+        try {
+            fileService.reorder(dragId, dropId, POSITIONS[random.nextInt(POSITIONS.length)]);
+        } catch (ConcurrentUpdateException e) {
+            outcomes.conflicts++;
+        }
+    }
+
+    @Benchmark
+    public void rename(Outcomes outcomes) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Long fileId = childIds.get(random.nextInt(childIds.size()));
+        try {
+            fileService.rename(fileId, "renamed-" + Long.toHexString(random.nextLong()));
+        } catch (ConcurrentUpdateException e) {
+            outcomes.conflicts++;
+        }
+    }
+}
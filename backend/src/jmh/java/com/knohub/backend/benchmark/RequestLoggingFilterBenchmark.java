@@ -0,0 +1,68 @@
+package com.knohub.backend.benchmark;
+
+import com.knohub.backend.config.RequestLoggingFilter;
+import com.knohub.backend.logging.AccessLogProperties;
+import com.knohub.backend.logging.AccessLogWriter;
+import com.knohub.backend.metrics.BackendMetrics;
+import com.knohub.backend.service.ActiveUserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of {@link RequestLoggingFilter} compared with calling the chain directly.
+ * The ACCESS logger is switched off in src/jmh/resources/logback-test.xml so only the filter's own work is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestLoggingFilterBenchmark {
+
+    private static final FilterChain NOOP_CHAIN = (request, response) -> { };
+
+    private RequestLoggingFilter filter;
+    private AccessLogWriter writer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ActiveUserService activeUserService = new ActiveUserService();
+        writer = new AccessLogWriter(new AccessLogProperties());
+        writer.start();
+        BackendMetrics metrics = new BackendMetrics(new SimpleMeterRegistry(), activeUserService, writer);
+        filter = new RequestLoggingFilter(activeUserService, writer, metrics);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        writer.stop();
+    }
+
+    private static MockHttpServletRequest newRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/files/42");
+        request.setQueryString("folderId=7");
+        request.setRemoteAddr("10.0.0.1");
+        request.addHeader("User-Agent", "Mozilla/5.0 (iPhone; CPU iPhone OS 17_0 like Mac OS X) Mobile/15E148");
+        return request;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse baseline() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        NOOP_CHAIN.doFilter(newRequest(), response);
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse filtered() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(newRequest(), response, NOOP_CHAIN);
+        return response;
+    }
+}
@@ -0,0 +1,60 @@
+package com.knohub.backend.benchmark;
+
+import com.knohub.backend.dto.FileItemDTO;
+import com.knohub.backend.repository.FileItemRepository;
+import com.knohub.backend.repository.ResourceRepository;
+import com.knohub.backend.service.FileService;
+import com.knohub.backend.service.TreeJsonWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full resource tree assembly ({@code FileService.getResourceFiles} -> toDTOWithChildren) against H2,
+ * compared with the streamed JSON path ({@code TreeJsonWriter}) that the tree endpoints now use.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TreeAssemblyBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int nodes;
+
+    private ConfigurableApplicationContext context;
+    private FileService fileService;
+    private TreeJsonWriter treeJsonWriter;
+    private Long resourceId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = BenchmarkContext.start("tree" + nodes);
+        fileService = context.getBean(FileService.class);
+        treeJsonWriter = context.getBean(TreeJsonWriter.class);
+        FixtureGenerator fixtures = new FixtureGenerator(
+                context.getBean(ResourceRepository.class), context.getBean(FileItemRepository.class));
+        resourceId = fixtures.seedResource("Tree " + nodes, nodes);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<FileItemDTO> buildTree() {
+        return fileService.getResourceFiles(resourceId);
+    }
+
+    @Benchmark
+    public void streamTree() throws IOException {
+        treeJsonWriter.writeFiles(treeJsonWriter.load(resourceId), treeJsonWriter.negotiate(null), OutputStream.nullOutputStream());
+    }
+}
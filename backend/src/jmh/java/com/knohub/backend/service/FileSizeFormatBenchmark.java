@@ -0,0 +1,26 @@
+package com.knohub.backend.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code FileService.formatFileSize}, called for every uploaded and renamed file.
+ * Lives in the service package because the formatter is package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileSizeFormatBenchmark {
+
+    @Param({"512", "48000", "12582912", "3221225472"})
+    public long bytes;
+
+    @Benchmark
+    public String formatFileSize() {
+        return FileService.formatFileSize(bytes);
+    }
+}
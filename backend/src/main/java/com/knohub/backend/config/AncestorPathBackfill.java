@@ -0,0 +1,65 @@
+package com.knohub.backend.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.migration.Context;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Flyway V11: fills file_items.ancestor_path for rows created before the column existed (V4).
+ * Works one tree level per statement, so the number of round trips equals the tree depth. A Java
+ * migration because the loop runs until a level updates nothing; it runs once per database, and is a
+ * no-op on databases created after V4. The statements work on both H2 (PostgreSQL mode) and PostgreSQL.
+ */
+@Slf4j
+@Component
+public class AncestorPathBackfill implements JavaMigration {
+
+    @Override
+    public MigrationVersion getVersion() {
+        return MigrationVersion.fromVersion("11");
+    }
+
+    @Override
+    public String getDescription() {
+        return "backfill ancestor paths";
+    }
+
+    @Override
+    public Integer getChecksum() {
+        return null;
+    }
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return true;
+    }
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            int total = statement.executeUpdate(
+                    "UPDATE file_items SET ancestor_path = '/' WHERE parent_id IS NULL AND ancestor_path IS NULL");
+            int updated;
+            do {
+                updated = statement.executeUpdate(
+                        "UPDATE file_items SET ancestor_path = (" +
+                        "  SELECT p.ancestor_path || CAST(p.id AS VARCHAR(20)) || '/' FROM file_items p" +
+                        "  WHERE p.id = file_items.parent_id) " +
+                        "WHERE ancestor_path IS NULL AND parent_id IN (" +
+                        "  SELECT id FROM file_items WHERE ancestor_path IS NOT NULL)");
+                total += updated;
+            } while (updated > 0);
+
+            if (total > 0) {
+                log.info("Backfilled ancestor_path for {} file items", total);
+            }
+        }
+    }
+}
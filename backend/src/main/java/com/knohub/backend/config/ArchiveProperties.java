@@ -0,0 +1,35 @@
+package com.knohub.backend.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Archive tables for soft-deleted files, folders and resources (db/migration V9).
+ * Batches use {@code trash.batch-size} and {@code trash.batch-pause}.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "archive")
+public class ArchiveProperties {
+
+    /**
+     * Move trash rows out of the hot tables; when off, the trash purge hard-deletes them in place.
+     */
+    private boolean enabled = true;
+
+    /**
+     * How long deleted rows stay in the hot tables, so an immediate undo does not touch the archive.
+     */
+    private Duration after = Duration.ofDays(1);
+
+    /**
+     * How long archive records are kept for audit after deletion (about one semester); stored files are
+     * still removed after {@code trash.retention}.
+     */
+    private Duration retention = Duration.ofDays(183);
+}
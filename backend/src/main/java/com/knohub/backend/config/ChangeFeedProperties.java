@@ -0,0 +1,33 @@
+package com.knohub.backend.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * File tree change feed (SSE push and ?since= catch-up).
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "change-feed")
+public class ChangeFeedProperties {
+
+    /**
+     * How long deltas are kept; clients further behind are told to reload the tree.
+     */
+    private Duration retention = Duration.ofDays(7);
+
+    /**
+     * Most deltas returned for one catch-up; beyond that reloading the tree is cheaper.
+     */
+    private int maxChanges = 1000;
+
+    /**
+     * Lifetime of one SSE connection; EventSource reconnects on its own and resumes from Last-Event-ID.
+     */
+    private Duration emitterTimeout = Duration.ofMinutes(30);
+}
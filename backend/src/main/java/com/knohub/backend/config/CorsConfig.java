@@ -59,7 +59,9 @@ public class CorsConfig {
         // Expose custom headers to frontend
         config.setExposedHeaders(Arrays.asList(
                 "Content-Disposition",
-                "X-Total-Count"
+                "X-Total-Count",
+                "X-Change-Version",
+                "ETag"
         ));
 
         // Cache preflight response for 1 hour
@@ -1,6 +1,8 @@
 package com.knohub.backend.config;
 
 import com.knohub.backend.dto.ApiResponse;
+import com.knohub.backend.service.ConcurrentUpdateException;
+import com.knohub.backend.service.QuotaExceededException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -20,6 +22,22 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(ApiResponse.error(message));
     }
 
+    @ExceptionHandler(QuotaExceededException.class)
+    public ResponseEntity<ApiResponse<Void>> handleQuotaExceeded(QuotaExceededException ex) {
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(ApiResponse.error(ex.getMessage()));
+    }
+
+    @ExceptionHandler(ConcurrentUpdateException.class)
+    public ResponseEntity<ApiResponse<Object>> handleConcurrentUpdate(ConcurrentUpdateException ex) {
+        // 409 with the current state (resource tree or resource card) so the client can redraw and retry
+        ApiResponse<Object> body = ApiResponse.builder()
+                .success(false)
+                .message(ex.getMessage())
+                .data(ex.getCurrent())
+                .build();
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+    }
+
     @ExceptionHandler(MultipartException.class)
     public ResponseEntity<ApiResponse<Void>> handleMultipart(MultipartException ex) {
         // Multipart parsing errors can surface as HTML otherwise; wrap them in a consistent JSON payload.
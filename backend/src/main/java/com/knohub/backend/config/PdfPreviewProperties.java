@@ -0,0 +1,50 @@
+package com.knohub.backend.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Server-side rendering of PDF pages to images (first-page thumbnail and page-at-a-time preview).
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "pdf-preview")
+public class PdfPreviewProperties {
+
+    /**
+     * Widths in pixels pages are rendered at; a request gets the smallest one covering what it asks for.
+     */
+    private List<Integer> pageWidths = new ArrayList<>(List.of(960, 1600));
+
+    /**
+     * Upper bound on the pixels of one rendered page, whatever its shape.
+     */
+    private long maxPagePixels = 8_000_000;
+
+    /**
+     * Heap PDFBox may use for a document's streams before spilling to temp files.
+     */
+    private DataSize maxMainMemory = DataSize.ofMegabytes(32);
+
+    /**
+     * Directory the rendered page images are cached in.
+     */
+    private String cacheDir = "./uploads/pdf-pages";
+
+    /**
+     * JPEG quality between 0 and 1.
+     */
+    private float quality = 0.85f;
+
+    /**
+     * How long a request waits for a page rendering.
+     */
+    private int timeoutSeconds = 30;
+}
@@ -0,0 +1,28 @@
+package com.knohub.backend.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Upload disk quotas. Stored bytes include soft-deleted files, which stay on disk until purged.
+ * A zero size disables the corresponding limit.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "quota")
+public class QuotaProperties {
+
+    /**
+     * Maximum stored bytes per resource.
+     */
+    private DataSize resourceMax = DataSize.ofGigabytes(2);
+
+    /**
+     * Maximum stored bytes across all resources.
+     */
+    private DataSize globalMax = DataSize.ofGigabytes(20);
+}
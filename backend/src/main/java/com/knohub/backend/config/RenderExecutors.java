@@ -0,0 +1,105 @@
+package com.knohub.backend.config;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded platform-thread pools for preview rendering.
+ * Logisim (AWT), POI conversions, image thumbnailing and PDF page rendering are CPU/memory heavy and synchronize internally, so they must not
+ * run with the unbounded concurrency (and carrier pinning) of virtual request threads.
+ * Deliberately not exposed as Executor beans so Spring Boot's applicationTaskExecutor stays auto-configured.
+ */
+@Component
+public class RenderExecutors {
+
+    private final ThreadPoolExecutor logisimPool;
+    private final ThreadPoolExecutor docPool;
+    private final ThreadPoolExecutor imagePool;
+    private final ThreadPoolExecutor pdfPool;
+
+    public RenderExecutors(@Value("${render.logisim-threads:2}") int logisimThreads,
+                           @Value("${render.doc-threads:2}") int docThreads,
+                           @Value("${render.image-threads:2}") int imageThreads,
+                           @Value("${render.pdf-threads:2}") int pdfThreads,
+                           @Value("${render.queue-capacity:32}") int queueCapacity) {
+        this.logisimPool = boundedPool("logisim-render-", logisimThreads, queueCapacity);
+        this.docPool = boundedPool("doc-render-", docThreads, queueCapacity);
+        this.imagePool = boundedPool("image-render-", imageThreads, queueCapacity);
+        this.pdfPool = boundedPool("pdf-render-", pdfThreads, queueCapacity);
+    }
+
+    public ThreadPoolExecutor logisim() {
+        return logisimPool;
+    }
+
+    public ThreadPoolExecutor doc() {
+        return docPool;
+    }
+
+    public ThreadPoolExecutor image() {
+        return imagePool;
+    }
+
+    public ThreadPoolExecutor pdf() {
+        return pdfPool;
+    }
+
+    /**
+     * Run a task on the given pool and block the caller (cheap on a virtual thread) until it finishes.
+     *
+     * @throws RuntimeException when the pool is saturated or the task exceeds the timeout
+     */
+    public <T> T await(ThreadPoolExecutor pool, Callable<T> task, long timeoutSeconds) throws Exception {
+        Future<T> future;
+        try {
+            future = pool.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new RuntimeException("预览服务繁忙，请稍后重试");
+        }
+        try {
+            return future.get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new RuntimeException("预览生成超时");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception ex) {
+                throw ex;
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        logisimPool.shutdownNow();
+        docPool.shutdownNow();
+        imagePool.shutdownNow();
+        pdfPool.shutdownNow();
+    }
+
+    private static ThreadPoolExecutor boundedPool(String prefix, int threads, int queueCapacity) {
+        int size = Math.max(1, threads);
+        AtomicInteger counter = new AtomicInteger();
+        // A full queue rejects instead of growing; callers report "busy"
+        return new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+}
@@ -1,30 +1,37 @@
 package com.knohub.backend.config;
 
+import com.knohub.backend.logging.AccessLogWriter;
+import com.knohub.backend.metrics.BackendMetrics;
 import com.knohub.backend.service.ActiveUserService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.extern.slf4j.Slf4j;
 import org.slf4j.MDC;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
 
 import java.io.IOException;
-import java.util.Optional;
 import java.util.UUID;
 
 /**
- * Logs each HTTP request/response with a correlation id, timing, and status-aware level.
+ * Assigns a correlation id to each request and hands method, URL, status, timing, IP and UA
+ * to the asynchronous {@link AccessLogWriter}; formatting and file I/O happen off the request thread.
+ * Also records per-route latency histograms.
  */
-@Slf4j
 @Component
 public class RequestLoggingFilter extends OncePerRequestFilter {
 
     private final ActiveUserService activeUserService;
+    private final AccessLogWriter accessLogWriter;
+    private final BackendMetrics metrics;
 
-    public RequestLoggingFilter(ActiveUserService activeUserService) {
+    public RequestLoggingFilter(ActiveUserService activeUserService, AccessLogWriter accessLogWriter,
+                                BackendMetrics metrics) {
         this.activeUserService = activeUserService;
+        this.accessLogWriter = accessLogWriter;
+        this.metrics = metrics;
     }
 
     @Override
@@ -33,26 +40,18 @@ public class RequestLoggingFilter extends OncePerRequestFilter {
         String traceId = resolveTraceId(request);
         MDC.put("traceId", traceId);
 
-        long start = System.currentTimeMillis();
+        long start = System.nanoTime();
         try {
             filterChain.doFilter(request, response);
         } finally {
-            long duration = System.currentTimeMillis() - start;
+            long durationNanos = System.nanoTime() - start;
             int status = response.getStatus();
-            String method = request.getMethod();
-            String path = buildPath(request);
-            String userAgent = Optional.ofNullable(request.getHeader("User-Agent")).orElse("-");
             String clientIp = resolveClientIp(request);
             activeUserService.recordIp(clientIp);
 
-            String message = String.format("%s %s -> %d (%d ms) ip=%s ua=%s", method, path, status, duration, clientIp, userAgent);
-            if (status >= 500) {
-                log.error(message);
-            } else if (status >= 400) {
-                log.warn(message);
-            } else {
-                log.info(message);
-            }
+            metrics.recordRequest(request.getMethod(), resolveRoute(request, status), status, durationNanos);
+            accessLogWriter.record(traceId, request.getMethod(), request.getRequestURI(), request.getQueryString(),
+                    status, durationNanos / 1000, clientIp, request.getHeader("User-Agent"));
             MDC.remove("traceId");
         }
     }
@@ -73,12 +72,17 @@ public class RequestLoggingFilter extends OncePerRequestFilter {
         return request.getRemoteAddr();
     }
 
-    private String buildPath(HttpServletRequest request) {
-        String uri = request.getRequestURI();
-        String query = request.getQueryString();
-        if (query == null || query.isBlank()) {
-            return uri;
+    /**
+     * Use the matched mapping template as the metrics route so ids in the path don't explode tag cardinality.
+     */
+    private String resolveRoute(HttpServletRequest request, int status) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern != null) {
+            return pattern.toString();
         }
-        return uri + "?" + query;
+        if (status == 404) {
+            return "NOT_FOUND";
+        }
+        return "UNKNOWN";
     }
 }
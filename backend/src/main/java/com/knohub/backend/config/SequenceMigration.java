@@ -0,0 +1,80 @@
+package com.knohub.backend.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.migration.Context;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Flyway V10: moves id generation of databases created with IDENTITY columns onto the pooled sequences
+ * (V1 creates them, or V2 on databases baselined from the IDENTITY era). A Java migration because the
+ * restart value depends on the data; Spring Boot hands JavaMigration beans to Flyway, so it runs once per
+ * database, before Hibernate starts. The statements work on both H2 (PostgreSQL mode) and PostgreSQL.
+ */
+@Slf4j
+@Component
+public class SequenceMigration implements JavaMigration {
+
+    /**
+     * Must match allocationSize of the @SequenceGenerator mappings.
+     */
+    static final int ALLOCATION_SIZE = 50;
+
+    @Override
+    public MigrationVersion getVersion() {
+        return MigrationVersion.fromVersion("10");
+    }
+
+    @Override
+    public String getDescription() {
+        return "align id sequences";
+    }
+
+    @Override
+    public Integer getChecksum() {
+        return null;
+    }
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return true;
+    }
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        alignSequence(connection, "resources", "resources_seq");
+        alignSequence(connection, "file_items", "file_items_seq");
+    }
+
+    /**
+     * The pooled optimizer hands out (value - allocationSize, value], so the next sequence value must be
+     * at least max(id) + allocationSize + 1. Inspecting the sequence takes one value, a single block lost
+     * once per database; it only restarts when behind, so running instances keep their ranges.
+     */
+    private static void alignSequence(Connection connection, String table, String sequence) throws SQLException {
+        long maxId = queryLong(connection, "SELECT COALESCE(MAX(id), 0) FROM " + table);
+        long next = queryLong(connection, "SELECT nextval('" + sequence + "')");
+        if (next - ALLOCATION_SIZE >= maxId) {
+            return;
+        }
+        long restart = maxId + ALLOCATION_SIZE + 1;
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + restart);
+        }
+        log.info("Sequence {} restarted at {} (max {}.id = {})", sequence, restart, table, maxId);
+    }
+
+    private static long queryLong(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(sql)) {
+            return result.next() ? result.getLong(1) : 0;
+        }
+    }
+}
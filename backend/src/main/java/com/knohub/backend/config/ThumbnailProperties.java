@@ -0,0 +1,39 @@
+package com.knohub.backend.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Thumbnails generated for image uploads (png/jpg/gif/bmp).
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "thumbnail")
+public class ThumbnailProperties {
+
+    /**
+     * Longest side of each generated thumbnail in pixels; the largest is served by default.
+     */
+    private List<Integer> sizes = new ArrayList<>(List.of(160, 480, 1024));
+
+    /**
+     * Directory the JPEG thumbnails are cached in.
+     */
+    private String cacheDir = "./uploads/thumbnails";
+
+    /**
+     * JPEG quality between 0 and 1.
+     */
+    private float quality = 0.85f;
+
+    /**
+     * How long a request waits for an on-demand rendering.
+     */
+    private int timeoutSeconds = 20;
+}
@@ -0,0 +1,33 @@
+package com.knohub.backend.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Trash (soft-deleted files and folders) retention and the background purge.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "trash")
+public class TrashProperties {
+
+    /**
+     * How long deleted items can be restored; older ones are purged with their stored files.
+     */
+    private Duration retention = Duration.ofDays(30);
+
+    /**
+     * Rows hard-deleted per purge transaction.
+     */
+    private int batchSize = 200;
+
+    /**
+     * Pause between purge batches, so a large backlog does not monopolize the database and disk.
+     */
+    private Duration batchPause = Duration.ofMillis(500);
+}
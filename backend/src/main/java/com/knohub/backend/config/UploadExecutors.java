@@ -0,0 +1,72 @@
+package com.knohub.backend.config;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded platform-thread pools for the batch upload pipeline.
+ * The I/O pool caps concurrent disk writes across all requests; when its queue is full the submitting
+ * request thread writes the file itself, which throttles the uploader instead of failing it.
+ * The post-processing pool runs preview generation after commit and drops work when saturated,
+ * since previews are also generated on demand by the preview endpoint.
+ */
+@Component
+@Slf4j
+public class UploadExecutors {
+
+    private final ThreadPoolExecutor ioPool;
+    private final ThreadPoolExecutor postProcessPool;
+
+    public UploadExecutors(@Value("${upload.io-concurrency:4}") int ioConcurrency,
+                           @Value("${upload.post-process-threads:1}") int postProcessThreads,
+                           @Value("${upload.queue-capacity:256}") int queueCapacity) {
+        this.ioPool = boundedPool("upload-io-", ioConcurrency, queueCapacity,
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.postProcessPool = boundedPool("upload-post-", postProcessThreads, queueCapacity,
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public ThreadPoolExecutor io() {
+        return ioPool;
+    }
+
+    /**
+     * Queue background work for a freshly committed upload; silently skipped when the pool is saturated.
+     */
+    public void submitPostProcessing(Runnable task) {
+        try {
+            postProcessPool.execute(task);
+        } catch (RejectedExecutionException e) {
+            log.warn("Upload post-processing queue full, skipping task");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ioPool.shutdownNow();
+        postProcessPool.shutdownNow();
+    }
+
+    private static ThreadPoolExecutor boundedPool(String prefix, int threads, int queueCapacity,
+                                                  RejectedExecutionHandler rejection) {
+        int size = Math.max(1, threads);
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                rejection);
+    }
+}
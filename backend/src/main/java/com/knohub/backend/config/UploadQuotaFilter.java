@@ -0,0 +1,66 @@
+package com.knohub.backend.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.knohub.backend.dto.ApiResponse;
+import com.knohub.backend.service.StorageQuota;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Rejects uploads whose Content-Length already exceeds the resource's remaining quota, before the
+ * multipart body is read or spooled to disk. The declared length includes multipart framing, so this
+ * errs on the strict side by a few hundred bytes; requests without a length (chunked) fall through to
+ * the reservation in FileService.
+ */
+@Component
+@Slf4j
+public class UploadQuotaFilter extends OncePerRequestFilter {
+
+    private static final Pattern UPLOAD_PATH = Pattern.compile("^/api/files/(\\d+)/upload(/batch|/zip)?/?$");
+
+    private final StorageQuota storageQuota;
+    private final ObjectMapper objectMapper;
+
+    public UploadQuotaFilter(StorageQuota storageQuota, ObjectMapper objectMapper) {
+        this.storageQuota = storageQuota;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || request.getContentLengthLong() <= 0;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Matcher matcher = UPLOAD_PATH.matcher(request.getRequestURI().substring(request.getContextPath().length()));
+        if (matcher.matches()) {
+            long resourceId = Long.parseLong(matcher.group(1));
+            long declared = request.getContentLengthLong();
+            if (declared > storageQuota.remaining(resourceId)) {
+                log.info("Rejected {} byte upload to resource {}: quota exceeded", declared, resourceId);
+                response.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+                // Ask the client to close so the unread body is not drained into the next request
+                response.setHeader("Connection", "close");
+                objectMapper.writeValue(response.getOutputStream(), ApiResponse.error("存储空间不足，无法上传"));
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,36 @@
+package com.knohub.backend.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Limits for server-side ZIP extraction. Exceeding any of them aborts the whole upload.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "upload.zip")
+public class ZipUploadProperties {
+
+    /**
+     * Maximum number of entries (files and directories) in one archive.
+     */
+    private int maxEntries = 10000;
+
+    /**
+     * Maximum size of a single extracted file.
+     */
+    private long maxEntryBytes = 200L * 1024 * 1024;
+
+    /**
+     * Maximum total extracted size of one archive.
+     */
+    private long maxTotalBytes = 1024L * 1024 * 1024;
+
+    /**
+     * Maximum ratio of extracted bytes to archive bytes read so far; checked once 1 MB has been extracted.
+     */
+    private int maxCompressionRatio = 100;
+}
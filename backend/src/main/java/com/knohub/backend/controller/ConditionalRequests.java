@@ -0,0 +1,28 @@
+package com.knohub.backend.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+
+/**
+ * If-None-Match handling for the listing endpoints, checked against a {@code DataVersions} tag before
+ * anything is loaded
+ */
+final class ConditionalRequests {
+
+    private ConditionalRequests() {
+    }
+
+    /**
+     * Set the ETag (and no-cache, so clients revalidate instead of reusing the response unchecked) and
+     * answer 304 when If-None-Match still matches it; the caller then returns without a body.
+     * A null tag (ETags disabled) never matches.
+     */
+    static boolean notModified(ServletWebRequest webRequest, String etag) {
+        if (etag == null) {
+            return false;
+        }
+        webRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        return webRequest.checkNotModified(etag);
+    }
+}
@@ -1,20 +1,43 @@
 package com.knohub.backend.controller;
 
 import com.knohub.backend.dto.ApiResponse;
+import com.knohub.backend.dto.ChangeSetDTO;
 import com.knohub.backend.dto.CreateFolderRequest;
 import com.knohub.backend.dto.FileItemDTO;
+import com.knohub.backend.dto.PdfInfoDTO;
+import com.knohub.backend.dto.UploadResultDTO;
 import com.knohub.backend.dto.RenameRequest;
 import com.knohub.backend.dto.ReorderRequest;
+import com.knohub.backend.dto.TextPageDTO;
+import com.knohub.backend.dto.TrashItemDTO;
+import com.knohub.backend.metrics.BackendMetrics;
+import com.knohub.backend.service.ChangeFeedService;
+import com.knohub.backend.service.ConcurrentUpdateException;
+import com.knohub.backend.service.DataVersions;
 import com.knohub.backend.service.FileService;
+import com.knohub.backend.service.PdfPreviewService;
+import com.knohub.backend.service.QuotaExceededException;
+import com.knohub.backend.service.TextPreviewService;
+import com.knohub.backend.service.ThumbnailService;
+import com.knohub.backend.service.TreeJsonWriter;
+import com.knohub.backend.service.ZipDownloadService;
+import com.knohub.backend.storage.StoredFile;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
 import java.net.URLEncoder;
@@ -22,6 +45,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/files")
@@ -31,6 +55,14 @@ import java.util.List;
 public class FileController {
 
     private final FileService fileService;
+    private final BackendMetrics metrics;
+    private final ZipDownloadService zipDownloadService;
+    private final TreeJsonWriter treeJsonWriter;
+    private final ThumbnailService thumbnailService;
+    private final TextPreviewService textPreviewService;
+    private final PdfPreviewService pdfPreviewService;
+    private final ChangeFeedService changeFeedService;
+    private final DataVersions dataVersions;
 
     /**
      * Upload a file to a resource
@@ -44,6 +76,9 @@ public class FileController {
         try {
             FileItemDTO result = fileService.uploadFile(resourceId, folderId, file);
             return ResponseEntity.ok(ApiResponse.success("文件上传成功", result));
+        } catch (QuotaExceededException e) {
+            // Rendered as 413 by GlobalExceptionHandler
+            throw e;
         } catch (IOException e) {
             log.error("File upload failed", e);
             return ResponseEntity.badRequest().body(ApiResponse.error("文件上传失败: " + e.getMessage()));
@@ -56,14 +91,13 @@ public class FileController {
      * Batch upload files to a resource
      */
     @PostMapping("/{resourceId}/upload/batch")
-    public ResponseEntity<ApiResponse<List<FileItemDTO>>> uploadFiles(
+    public ResponseEntity<ApiResponse<List<UploadResultDTO>>> uploadFiles(
             @PathVariable Long resourceId,
             @RequestParam(required = false) Long folderId,
             @RequestParam("files") MultipartFile[] files) {
 
         try {
-            List<FileItemDTO> result = fileService.uploadFiles(resourceId, folderId, files);
-            return ResponseEntity.ok(ApiResponse.success("批量上传成功", result));
+            return uploadResults(fileService.uploadFiles(resourceId, folderId, files), "批量上传成功");
         } catch (IOException e) {
             log.error("Batch file upload failed", e);
             return ResponseEntity.badRequest().body(ApiResponse.error("文件上传失败: " + e.getMessage()));
@@ -72,6 +106,48 @@ public class FileController {
         }
     }
 
+    /**
+     * Upload a ZIP archive and extract it into folders/files under the target folder
+     */
+    @PostMapping("/{resourceId}/upload/zip")
+    public ResponseEntity<ApiResponse<List<UploadResultDTO>>> uploadZip(
+            @PathVariable Long resourceId,
+            @RequestParam(required = false) Long folderId,
+            @RequestParam(required = false) String charset,
+            @RequestParam("file") MultipartFile file) {
+
+        try {
+            return uploadResults(fileService.uploadZip(resourceId, folderId, file, charset), "压缩包解压成功");
+        } catch (QuotaExceededException e) {
+            // Rendered as 413 by GlobalExceptionHandler
+            throw e;
+        } catch (IOException e) {
+            log.error("ZIP upload failed", e);
+            return ResponseEntity.badRequest().body(ApiResponse.error("压缩包上传失败: " + e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * Partial failures still report every file; only an all-failed upload is an error
+     */
+    private ResponseEntity<ApiResponse<List<UploadResultDTO>>> uploadResults(List<UploadResultDTO> results,
+                                                                            String successMessage) {
+        long failed = results.stream().filter(r -> !r.isSuccess()).count();
+        if (failed == 0) {
+            return ResponseEntity.ok(ApiResponse.success(successMessage, results));
+        }
+        ApiResponse<List<UploadResultDTO>> body = ApiResponse.<List<UploadResultDTO>>builder()
+                .success(failed < results.size())
+                .message("上传完成：成功 " + (results.size() - failed) + " 个，失败 " + failed + " 个")
+                .data(results)
+                .build();
+        return failed < results.size()
+                ? ResponseEntity.ok(body)
+                : ResponseEntity.badRequest().body(body);
+    }
+
     /**
      * Delete a file (soft delete)
      */
@@ -80,6 +156,37 @@ public class FileController {
         try {
             fileService.deleteFile(fileId);
             return ResponseEntity.ok(ApiResponse.success("文件删除成功", null));
+        } catch (ConcurrentUpdateException e) {
+            // Rendered as 409 with the current state by GlobalExceptionHandler
+            throw e;
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * Deleted files and folders of a resource that can still be restored
+     */
+    @GetMapping("/{resourceId}/trash")
+    public ResponseEntity<ApiResponse<List<TrashItemDTO>>> getTrash(@PathVariable Long resourceId) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(fileService.getTrash(resourceId)));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * Restore a file or folder from the trash to its original place
+     */
+    @PostMapping("/{fileId}/restore")
+    public ResponseEntity<ApiResponse<FileItemDTO>> restore(@PathVariable Long fileId) {
+        try {
+            FileItemDTO result = fileService.restore(fileId);
+            return ResponseEntity.ok(ApiResponse.success("恢复成功", result));
+        } catch (ConcurrentUpdateException e) {
+            // Rendered as 409 with the current state by GlobalExceptionHandler
+            throw e;
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
         }
@@ -109,11 +216,58 @@ public class FileController {
         try {
             fileService.deleteFolder(folderId);
             return ResponseEntity.ok(ApiResponse.success("文件夹删除成功", null));
+        } catch (ConcurrentUpdateException e) {
+            // Rendered as 409 with the current state by GlobalExceptionHandler
+            throw e;
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
         }
     }
 
+    /**
+     * Download a folder and all its contents as a streamed ZIP
+     */
+    @GetMapping("/folders/{folderId}/zip")
+    public ResponseEntity<StreamingResponseBody> downloadFolderZip(@PathVariable Long folderId) {
+        try {
+            return streamZip(zipDownloadService.planFolder(folderId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Download every file of a resource as a streamed ZIP
+     */
+    @GetMapping("/{resourceId}/zip")
+    public ResponseEntity<StreamingResponseBody> downloadResourceZip(@PathVariable Long resourceId) {
+        try {
+            return streamZip(zipDownloadService.planResource(resourceId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * No Content-Length is set, so the archive goes out with chunked transfer encoding
+     */
+    private ResponseEntity<StreamingResponseBody> streamZip(ZipDownloadService.ZipPlan plan) {
+        String encodedFilename = URLEncoder.encode(plan.archiveName(), StandardCharsets.UTF_8)
+                .replace("+", "%20");
+        StreamingResponseBody body = out -> {
+            try {
+                metrics.recordDownload(zipDownloadService.write(plan, out));
+            } catch (IOException e) {
+                // Client went away mid-transfer; stop reading files and let the request end
+                log.info("ZIP download {} aborted: {}", plan.archiveName(), e.getMessage());
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename*=UTF-8''" + encodedFilename)
+                .body(body);
+    }
+
     /**
      * Reorder files/folders
      */
@@ -122,6 +276,9 @@ public class FileController {
         try {
             fileService.reorder(request.getDragId(), request.getDropId(), request.getPosition());
             return ResponseEntity.ok(ApiResponse.success("排序成功", null));
+        } catch (ConcurrentUpdateException e) {
+            // Rendered as 409 with the current state by GlobalExceptionHandler
+            throw e;
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
         }
@@ -137,6 +294,9 @@ public class FileController {
         try {
             FileItemDTO result = fileService.rename(fileId, request.getNewName());
             return ResponseEntity.ok(ApiResponse.success("重命名成功", result));
+        } catch (ConcurrentUpdateException e) {
+            // Rendered as 409 with the current state by GlobalExceptionHandler
+            throw e;
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
         }
@@ -146,10 +306,65 @@ public class FileController {
      * Get all files/folders for a resource
      */
     @GetMapping("/{resourceId}")
-    public ResponseEntity<ApiResponse<List<FileItemDTO>>> getResourceFiles(@PathVariable Long resourceId) {
+    public ResponseEntity<?> getResourceFiles(@PathVariable Long resourceId,
+                                              @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                              ServletWebRequest webRequest) {
+        TreeJsonWriter.Encoding encoding = treeJsonWriter.negotiate(accept);
+        if (ConditionalRequests.notModified(webRequest,
+                dataVersions.resourceTag(resourceId, encoding.mediaType().getSubtype()))) {
+            return null;
+        }
+        TreeJsonWriter.Tree tree;
         try {
-            List<FileItemDTO> files = fileService.getResourceFiles(resourceId);
-            return ResponseEntity.ok(ApiResponse.success(files));
+            tree = treeJsonWriter.load(resourceId);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+        // Rows are already loaded, so only the JSON writing happens off the request thread
+        StreamingResponseBody body = out -> treeJsonWriter.writeFiles(tree, encoding, out);
+        return ResponseEntity.ok()
+                .contentType(encoding.mediaType())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .header("X-Change-Version", String.valueOf(tree.changeVersion()))
+                .body(body);
+    }
+
+    /**
+     * Tree deltas of a resource after a change feed version (catch-up after being offline)
+     */
+    @GetMapping("/{resourceId}/changes")
+    public ResponseEntity<ApiResponse<ChangeSetDTO>> getChanges(@PathVariable Long resourceId,
+                                                                @RequestParam long since) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(changeFeedService.getChanges(resourceId, since)));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * Server-Sent Events with the tree deltas of a resource: one "change" event per version (event id =
+     * version), or "reset" when the client has to reload the tree. Starts after {@code since}, or after
+     * Last-Event-ID when an EventSource reconnects.
+     */
+    @GetMapping("/{resourceId}/changes/stream")
+    public ResponseEntity<SseEmitter> streamChanges(@PathVariable Long resourceId,
+                                                    @RequestParam(required = false) Long since,
+                                                    @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        try {
+            return ResponseEntity.ok(changeFeedService.subscribe(resourceId, lastEventId != null ? lastEventId : since));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Ancestor folders of a file or folder, root first (breadcrumb)
+     */
+    @GetMapping("/{fileId}/ancestors")
+    public ResponseEntity<ApiResponse<List<FileItemDTO>>> getAncestors(@PathVariable Long fileId) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(fileService.getAncestors(fileId)));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
         }
@@ -168,6 +383,61 @@ public class FileController {
         }
     }
 
+    /**
+     * Page count and page sizes of a PDF
+     */
+    @GetMapping("/{fileId}/pages")
+    public ResponseEntity<ApiResponse<PdfInfoDTO>> getPdfInfo(@PathVariable Long fileId) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(pdfPreviewService.getInfo(fileId)));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            log.warn("Reading PDF {} failed: {}", fileId, e.getMessage());
+            return ResponseEntity.internalServerError().body(ApiResponse.error("PDF 解析失败"));
+        }
+    }
+
+    /**
+     * One PDF page (1-based) as JPEG, rendered on first request and cached; {@code width} picks the closest
+     * configured rendering width
+     */
+    @GetMapping("/{fileId}/pages/{pageNumber}")
+    public ResponseEntity<Resource> getPdfPage(@PathVariable Long fileId,
+                                               @PathVariable int pageNumber,
+                                               @RequestParam(required = false) Integer width) {
+        try {
+            Path page = pdfPreviewService.getPage(fileId, pageNumber, width);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.IMAGE_JPEG)
+                    .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable())
+                    .body(new UrlResource(page.toUri()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.warn("Rendering page {} of PDF {} failed: {}", pageNumber, fileId, e.getMessage());
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * A window of lines from a text/code file, e.g. ?offset=200000&lines=500; charset overrides detection
+     */
+    @GetMapping("/{fileId}/text")
+    public ResponseEntity<ApiResponse<TextPageDTO>> getTextPage(@PathVariable Long fileId,
+                                                                @RequestParam(defaultValue = "0") long offset,
+                                                                @RequestParam(required = false) Integer lines,
+                                                                @RequestParam(required = false) String charset) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(textPreviewService.getPage(fileId, offset, lines, charset)));
+        } catch (IOException e) {
+            log.error("Text preview of file {} failed", fileId, e);
+            return ResponseEntity.internalServerError().body(ApiResponse.error("读取文件失败"));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
     /**
      * Stream a generated preview (currently supports .circ rendered via Logisim).
      */
@@ -193,21 +463,47 @@ public class FileController {
     }
 
     /**
-     * Download a file
+     * JPEG thumbnail of an image upload: the smallest generated size covering {@code size}, the largest by default.
+     * A file's content never changes under its ID, so clients and proxies may cache the response indefinitely.
+     */
+    @GetMapping("/{fileId}/thumbnail")
+    public ResponseEntity<Resource> getThumbnail(@PathVariable Long fileId,
+                                                 @RequestParam(required = false) Integer size) {
+        try {
+            Path thumbnail = thumbnailService.getThumbnail(fileId, size);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.IMAGE_JPEG)
+                    .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable())
+                    .body(new UrlResource(thumbnail.toUri()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.warn("Thumbnail for {} failed: {}", fileId, e.getMessage());
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Download a file. Files compressed at rest are sent as-is with Content-Encoding: gzip when the client
+     * accepts it, and decompressed on the fly otherwise. A Range on the gzip passthrough addresses the
+     * compressed bytes (Spring serves it from the file); on the decompressed path a single range of the
+     * original content is served when its size is known, and any other Range gets the whole file.
      */
     @GetMapping("/{resourceId}/download/{filename}")
     public ResponseEntity<Resource> downloadFile(
             @PathVariable Long resourceId,
-            @PathVariable String filename) {
+            @PathVariable String filename,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader) {
 
         try {
-            Path filePath = fileService.getFilePath(resourceId, filename);
+            StoredFile stored = fileService.getStoredFile(resourceId, filename);
+            Path filePath = stored.path();
 
             if (!Files.exists(filePath)) {
                 return ResponseEntity.notFound().build();
             }
 
-            Resource resource = new UrlResource(filePath.toUri());
             String contentType = Files.probeContentType(filePath);
             if (contentType == null) {
                 contentType = "application/octet-stream";
@@ -223,14 +519,88 @@ public class FileController {
             String encodedFilename = URLEncoder.encode(originalFilename, StandardCharsets.UTF_8)
                     .replace("+", "%20");
 
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(contentType))
-                    .header(HttpHeaders.CONTENT_DISPOSITION,
-                            "attachment; filename*=UTF-8''" + encodedFilename)
-                    .body(resource);
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.parseMediaType(contentType));
+            headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename*=UTF-8''" + encodedFilename);
+            // Bytes sent: the file as stored, unless it is decompressed on the fly
+            if (!stored.isCompressed()) {
+                metrics.recordDownload(Files.size(filePath));
+                return ResponseEntity.ok().headers(headers).body(new UrlResource(filePath.toUri()));
+            }
+            headers.set(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (acceptsGzip(acceptEncoding)) {
+                metrics.recordDownload(Files.size(filePath));
+                headers.set(HttpHeaders.CONTENT_ENCODING, stored.encoding());
+                return ResponseEntity.ok().headers(headers).body(new UrlResource(filePath.toUri()));
+            }
+            return decompressedDownload(stored, headers, rangeHeader);
         } catch (IOException e) {
             log.error("File download failed", e);
             return ResponseEntity.internalServerError().build();
         }
     }
+
+    /**
+     * Original content of a compressed file. Spring applies Range only to resources of known length, so a
+     * single range is cut from the decoded stream here (decoding up to its first byte); without a known
+     * size the file is sent whole and no ranges are advertised.
+     */
+    private ResponseEntity<Resource> decompressedDownload(StoredFile stored, HttpHeaders headers,
+                                                          String rangeHeader) throws IOException {
+        Long length = stored.originalSize();
+        if (length == null) {
+            metrics.recordDownload(Files.size(stored.path()));
+            return ResponseEntity.ok().headers(headers).body(new InputStreamResource(stored.open()));
+        }
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        HttpRange range = singleRange(rangeHeader);
+        if (range == null) {
+            metrics.recordDownload(length);
+            headers.setContentLength(length);
+            return ResponseEntity.ok().headers(headers).body(new InputStreamResource(stored.open()));
+        }
+        long start = range.getRangeStart(length);
+        long end = range.getRangeEnd(length);
+        if (start >= length || end < start) {
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HttpHeaders.CONTENT_RANGE, "bytes */" + length)
+                    .build();
+        }
+        long count = end - start + 1;
+        metrics.recordDownload(count);
+        headers.setContentLength(count);
+        headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                .headers(headers)
+                .body(new InputStreamResource(stored.open(start, count)));
+    }
+
+    /**
+     * The one range a Range header asks for, or null to send the whole file (absent, malformed or multi-range)
+     */
+    private static HttpRange singleRange(String rangeHeader) {
+        if (rangeHeader == null) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (("gzip".equalsIgnoreCase(parts[0].trim()) || "*".equals(parts[0].trim()))
+                    && !(parts.length > 1 && parts[1].replace(" ", "").matches("q=0(\\.0*)?"))) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -2,7 +2,9 @@ package com.knohub.backend.controller;
 
 import com.knohub.backend.dto.ApiResponse;
 import com.knohub.backend.service.ActiveUserService;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -16,10 +18,25 @@ import org.springframework.web.bind.annotation.RestController;
 public class MetricsController {
 
     private final ActiveUserService activeUserService;
+    private final ObjectProvider<PrometheusMeterRegistry> prometheusMeterRegistry;
 
     @GetMapping("/active-users")
     public ResponseEntity<ApiResponse<Integer>> getActiveUsers() {
         int count = activeUserService.getUniqueVisitorCount();
         return ResponseEntity.ok(ApiResponse.success(count));
     }
+
+    /**
+     * Prometheus text-format scrape of all meters (request latency, render/upload/download/tree timers, JVM, Hikari).
+     * Same content as /actuator/prometheus, exposed under /api so it is reachable through the frontend proxy.
+     * 404 when no Prometheus registry is configured (e.g. metrics export disabled, tests).
+     */
+    @GetMapping(value = "/prometheus", produces = "text/plain; version=0.0.4; charset=utf-8")
+    public ResponseEntity<String> scrape() {
+        PrometheusMeterRegistry registry = prometheusMeterRegistry.getIfAvailable();
+        if (registry == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(registry.scrape());
+    }
 }
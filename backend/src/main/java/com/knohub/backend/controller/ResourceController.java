@@ -2,12 +2,19 @@ package com.knohub.backend.controller;
 
 import com.knohub.backend.dto.ApiResponse;
 import com.knohub.backend.dto.ResourceDTO;
+import com.knohub.backend.service.ConcurrentUpdateException;
+import com.knohub.backend.service.DataVersions;
 import com.knohub.backend.service.ResourceService;
+import com.knohub.backend.service.TreeJsonWriter;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -18,21 +25,38 @@ import java.util.List;
 public class ResourceController {
 
     private final ResourceService resourceService;
+    private final TreeJsonWriter treeJsonWriter;
+    private final DataVersions dataVersions;
 
     /**
      * Get all resources
      */
     @GetMapping
-    public ResponseEntity<ApiResponse<List<ResourceDTO>>> getAllResources() {
-        List<ResourceDTO> resources = resourceService.getAllResources();
-        return ResponseEntity.ok(ApiResponse.success(resources));
+    public void getAllResources(@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                ServletWebRequest webRequest,
+                                HttpServletResponse response) throws IOException {
+        TreeJsonWriter.Encoding encoding = treeJsonWriter.negotiate(accept);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if (ConditionalRequests.notModified(webRequest, dataVersions.globalTag(encoding.mediaType().getSubtype()))) {
+            return;
+        }
+        List<ResourceDTO> resources = resourceService.getAllResourceSummaries();
+        // Written on the request thread rather than as a StreamingResponseBody: each tree is read while the
+        // response is being written, and replica routing (read-your-writes) is bound to this thread
+        response.setContentType(encoding.mediaType().toString());
+        treeJsonWriter.writeResources(resources, encoding, response.getOutputStream());
     }
 
     /**
      * Get resource by ID
      */
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<ResourceDTO>> getResourceById(@PathVariable Long id) {
+    public ResponseEntity<ApiResponse<ResourceDTO>> getResourceById(@PathVariable Long id,
+                                                                    @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                                                    ServletWebRequest webRequest) {
+        if (ConditionalRequests.notModified(webRequest, dataVersions.resourceTag(id, variant(accept)))) {
+            return null;
+        }
         try {
             ResourceDTO resource = resourceService.getResourceById(id);
             return ResponseEntity.ok(ApiResponse.success(resource));
@@ -45,7 +69,12 @@ public class ResourceController {
      * Get resources by type
      */
     @GetMapping("/type/{type}")
-    public ResponseEntity<ApiResponse<List<ResourceDTO>>> getResourcesByType(@PathVariable String type) {
+    public ResponseEntity<ApiResponse<List<ResourceDTO>>> getResourcesByType(@PathVariable String type,
+                                                                              @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                                                              ServletWebRequest webRequest) {
+        if (ConditionalRequests.notModified(webRequest, dataVersions.globalTag(variant(accept)))) {
+            return null;
+        }
         try {
             List<ResourceDTO> resources = resourceService.getResourcesByType(type);
             return ResponseEntity.ok(ApiResponse.success(resources));
@@ -58,7 +87,12 @@ public class ResourceController {
      * Search resources
      */
     @GetMapping("/search")
-    public ResponseEntity<ApiResponse<List<ResourceDTO>>> searchResources(@RequestParam String keyword) {
+    public ResponseEntity<ApiResponse<List<ResourceDTO>>> searchResources(@RequestParam String keyword,
+                                                                          @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                                                          ServletWebRequest webRequest) {
+        if (ConditionalRequests.notModified(webRequest, dataVersions.globalTag(variant(accept)))) {
+            return null;
+        }
         List<ResourceDTO> resources = resourceService.searchResources(keyword);
         return ResponseEntity.ok(ApiResponse.success(resources));
     }
@@ -87,6 +121,9 @@ public class ResourceController {
         try {
             ResourceDTO resource = resourceService.updateResource(id, request);
             return ResponseEntity.ok(ApiResponse.success("资源更新成功", resource));
+        } catch (ConcurrentUpdateException e) {
+            // Rendered as 409 with the current state by GlobalExceptionHandler
+            throw e;
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
         }
@@ -100,8 +137,18 @@ public class ResourceController {
         try {
             resourceService.deleteResource(id);
             return ResponseEntity.ok(ApiResponse.success("资源删除成功", null));
+        } catch (ConcurrentUpdateException e) {
+            // Rendered as 409 with the current state by GlobalExceptionHandler
+            throw e;
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
         }
     }
+
+    /**
+     * ETag variant of the encoding negotiated for an Accept header
+     */
+    private String variant(String accept) {
+        return treeJsonWriter.negotiate(accept).mediaType().getSubtype();
+    }
 }
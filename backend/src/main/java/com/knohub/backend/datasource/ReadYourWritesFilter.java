@@ -0,0 +1,52 @@
+package com.knohub.backend.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Pins reads to the primary right after the same client's mutation (POST/PUT/PATCH/DELETE).
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private final ReadYourWritesTracker tracker;
+
+    public ReadYourWritesFilter(ReadYourWritesTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String clientKey = resolveClientKey(request);
+        tracker.beginRequest(clientKey);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            tracker.endRequest();
+            if (isMutation(request.getMethod())) {
+                tracker.recordWrite(clientKey);
+            }
+        }
+    }
+
+    private boolean isMutation(String method) {
+        return "POST".equals(method) || "PUT".equals(method) || "PATCH".equals(method) || "DELETE".equals(method);
+    }
+
+    private String resolveClientKey(HttpServletRequest request) {
+        String clientId = request.getHeader("X-Client-Id");
+        if (clientId != null && !clientId.isBlank()) {
+            return clientId.trim();
+        }
+        String forwarded = request.getHeader("X-Forwarded-For");
+        if (forwarded != null && !forwarded.isBlank()) {
+            return forwarded.split(",")[0].trim();
+        }
+        return request.getRemoteAddr();
+    }
+}
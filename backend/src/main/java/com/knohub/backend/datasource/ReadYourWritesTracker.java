@@ -0,0 +1,52 @@
+package com.knohub.backend.datasource;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which clients wrote recently so their reads go to the primary until the replica has caught up.
+ * Clients are keyed by X-Client-Id when the frontend sends one, otherwise by IP.
+ */
+public class ReadYourWritesTracker {
+
+    private static final int SWEEP_THRESHOLD = 4096;
+
+    private final long stickyMillis;
+    private final ConcurrentHashMap<String, Long> lastWrites = new ConcurrentHashMap<>();
+    private final ThreadLocal<Boolean> pinned = new ThreadLocal<>();
+
+    public ReadYourWritesTracker(Duration stickyWindow) {
+        this.stickyMillis = stickyWindow.toMillis();
+    }
+
+    /**
+     * Called at the start of a request: pin this thread to the primary if the client wrote within the window.
+     */
+    public void beginRequest(String clientKey) {
+        Long lastWrite = lastWrites.get(clientKey);
+        if (lastWrite == null) {
+            return;
+        }
+        if (System.currentTimeMillis() - lastWrite < stickyMillis) {
+            pinned.set(Boolean.TRUE);
+        } else {
+            lastWrites.remove(clientKey, lastWrite);
+        }
+    }
+
+    public void recordWrite(String clientKey) {
+        long now = System.currentTimeMillis();
+        lastWrites.put(clientKey, now);
+        if (lastWrites.size() > SWEEP_THRESHOLD) {
+            lastWrites.values().removeIf(time -> now - time >= stickyMillis);
+        }
+    }
+
+    public void endRequest() {
+        pinned.remove();
+    }
+
+    public boolean isPinnedToPrimary() {
+        return Boolean.TRUE.equals(pinned.get());
+    }
+}
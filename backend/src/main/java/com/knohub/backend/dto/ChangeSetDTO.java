@@ -0,0 +1,21 @@
+package com.knohub.backend.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Deltas that bring a client's copy of a resource tree from one version to {@code version}.
+ * When {@code reset} is set the deltas are not available (pruned, or too many) and the client
+ * has to reload the whole tree.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChangeSetDTO {
+    private Long resourceId;
+    private long version;
+    private boolean reset;
+    private List<FileChangeDTO> changes;
+}
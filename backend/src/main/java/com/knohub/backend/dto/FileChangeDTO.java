@@ -0,0 +1,21 @@
+package com.knohub.backend.dto;
+
+import lombok.*;
+
+/**
+ * One file tree delta: "added" (node under parentId), "removed" (the item and everything beneath it),
+ * "moved" (to parentId at index displayOrder among its live siblings) or "renamed" (node replaces the
+ * item's fields, children are kept)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FileChangeDTO {
+    private long version;
+    private String type;
+    private Long fileId;
+    private Long parentId;
+    private Integer displayOrder;
+    private FileItemDTO node;
+}
@@ -3,6 +3,7 @@ package com.knohub.backend.dto;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -23,5 +24,23 @@ public class FileItemDTO {
     private String size;
     private String url;
     private String previewUrl;
+
+    /**
+     * Bytes of the file, or of all live files beneath a folder
+     */
+    private Long totalBytes;
+
+    /**
+     * Live files beneath a folder (null for files)
+     */
+    private Long fileCount;
+
+    private LocalDateTime lastModified;
+
+    /**
+     * Position among the live siblings (ties are ordered by id); lets change feed clients place added items
+     */
+    private Integer displayOrder;
+
     private List<FileItemDTO> children;
 }
@@ -0,0 +1,23 @@
+package com.knohub.backend.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Page count and page sizes of a PDF, so the client can lay out page images before they load
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PdfInfoDTO {
+    private Long fileId;
+    private int pageCount;
+
+    /**
+     * Displayed size of each page in PDF points (rotation applied)
+     */
+    private List<Float> pageWidths;
+    private List<Float> pageHeights;
+}
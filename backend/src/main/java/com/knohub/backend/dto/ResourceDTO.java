@@ -2,6 +2,7 @@ package com.knohub.backend.dto;
 
 import lombok.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -18,5 +19,17 @@ public class ResourceDTO {
     private String description;
     private String tag;
     private String updateDate;
+
+    /**
+     * Bytes and count of all live files, and when any of them last changed
+     */
+    private Long totalBytes;
+    private Long fileCount;
+    private LocalDateTime lastModified;
+
+    /**
+     * Change feed version the files were read at; pass as ?since= to receive later changes
+     */
+    private Long changeVersion;
     private List<FileItemDTO> files;
 }
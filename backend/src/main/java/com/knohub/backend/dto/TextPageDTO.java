@@ -0,0 +1,30 @@
+package com.knohub.backend.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * A window of lines from a text file (paged code/log preview)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TextPageDTO {
+    private Long fileId;
+
+    /**
+     * Charset the lines were decoded with (detected unless requested)
+     */
+    private String charset;
+
+    /**
+     * Zero-based number of the first line in {@link #lines}
+     */
+    private long offset;
+
+    private long totalLines;
+    private List<String> lines;
+    private boolean hasMore;
+}
@@ -0,0 +1,55 @@
+package com.knohub.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A deleted file or folder that can still be restored; folders come back with everything deleted along with them
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TrashItemDTO {
+    private Long id;
+
+    /**
+     * Name before deletion
+     */
+    private String name;
+
+    @JsonProperty("isFolder")
+    private boolean isFolder;
+
+    private String type;
+    private String size;
+
+    /**
+     * Bytes of the file, or of the files deleted with a folder
+     */
+    private Long totalBytes;
+
+    /**
+     * Files deleted with a folder (null for files)
+     */
+    private Long fileCount;
+
+    /**
+     * Folder it is restored into (null for root level)
+     */
+    private Long parentId;
+
+    /**
+     * False while the original parent folder is itself in the trash; restore that first
+     */
+    private boolean restorable;
+
+    private LocalDateTime deletedAt;
+
+    /**
+     * When the background purge removes it for good
+     */
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,17 @@
+package com.knohub.backend.dto;
+
+import lombok.*;
+
+/**
+ * Per-file outcome of a batch upload
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UploadResultDTO {
+    private String name;
+    private boolean success;
+    private String message;
+    private FileItemDTO file;
+}
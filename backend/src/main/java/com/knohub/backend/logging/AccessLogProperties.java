@@ -0,0 +1,41 @@
+package com.knohub.backend.logging;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration for the asynchronous access log written by {@link AccessLogWriter}.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "access-log")
+public class AccessLogProperties {
+
+    /**
+     * Toggle the access log pipeline. When disabled only 4xx/5xx are reported through the application log.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Number of slots in the hand-off ring buffer (rounded up to a power of two).
+     */
+    private int bufferSize = 8192;
+
+    /**
+     * Fraction of 1xx/2xx/3xx responses that are written (0.0 - 1.0). 4xx/5xx are always written.
+     */
+    private double successSampleRate = 1.0;
+
+    /**
+     * How long the writer thread parks when the buffer is empty.
+     */
+    private long idleWaitMillis = 5;
+
+    /**
+     * Initial capacity of the writer's line buffer; long User-Agents and query strings grow it once.
+     */
+    private int lineBufferSize = 512;
+}
@@ -0,0 +1,113 @@
+package com.knohub.backend.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded multi-producer / single-consumer ring buffer with pre-allocated, reusable slots.
+ * Producers claim a slot with a single CAS and never block; when the buffer is full the offer fails
+ * and the caller decides what to do with the event.
+ */
+class AccessLogRingBuffer {
+
+    /**
+     * Mutable slot reused for every request that lands on it. The sequence field publishes the slot
+     * between the producer and the consumer.
+     */
+    static final class Slot {
+        volatile long sequence;
+        long timestampMillis;
+        String traceId;
+        String method;
+        String uri;
+        String query;
+        int status;
+        long durationMicros;
+        String clientIp;
+        String userAgent;
+
+        void clear() {
+            traceId = null;
+            method = null;
+            uri = null;
+            query = null;
+            clientIp = null;
+            userAgent = null;
+        }
+    }
+
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    AccessLogRingBuffer(int requestedCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+        this.slots = new Slot[capacity];
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            Slot slot = new Slot();
+            slot.sequence = i;
+            slots[i] = slot;
+        }
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * Copy a request into the next free slot.
+     *
+     * @return false when the buffer is full
+     */
+    boolean offer(long timestampMillis, String traceId, String method, String uri, String query,
+                  int status, long durationMicros, String clientIp, String userAgent) {
+        Slot slot;
+        long pos = tail.get();
+        while (true) {
+            slot = slots[(int) (pos & mask)];
+            long diff = slot.sequence - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    break;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+
+        slot.timestampMillis = timestampMillis;
+        slot.traceId = traceId;
+        slot.method = method;
+        slot.uri = uri;
+        slot.query = query;
+        slot.status = status;
+        slot.durationMicros = durationMicros;
+        slot.clientIp = clientIp;
+        slot.userAgent = userAgent;
+        slot.sequence = pos + 1;
+        return true;
+    }
+
+    /**
+     * Peek the next published slot. Only the single consumer thread may call this.
+     *
+     * @return the slot, or null when nothing is available
+     */
+    Slot peek() {
+        Slot slot = slots[(int) (head & mask)];
+        return slot.sequence == head + 1 ? slot : null;
+    }
+
+    /**
+     * Hand the slot returned by {@link #peek()} back to the producers.
+     */
+    void release(Slot slot) {
+        slot.clear();
+        slot.sequence = head + mask + 1;
+        head++;
+    }
+}
@@ -0,0 +1,218 @@
+package com.knohub.backend.logging;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Structured access log. Request threads only copy a few references into a ring buffer slot;
+ * a single background thread formats JSON lines and writes them to the dedicated "ACCESS" logger,
+ * which logback routes to its own rolling file.
+ */
+@Slf4j
+@Component
+public class AccessLogWriter {
+
+    private static final Logger ACCESS_LOG = LoggerFactory.getLogger("ACCESS");
+    private static final DateTimeFormatter TIMESTAMP_FORMATTER =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSXXX").withZone(ZoneId.systemDefault());
+
+    private final AccessLogProperties properties;
+    private final AccessLogRingBuffer buffer;
+    private final AtomicLong dropped = new AtomicLong();
+    private final StringBuilder line;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public AccessLogWriter(AccessLogProperties properties) {
+        this.properties = properties;
+        this.buffer = new AccessLogRingBuffer(properties.getBufferSize());
+        this.line = new StringBuilder(Math.max(128, properties.getLineBufferSize()));
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            log.info("Access log is disabled; only 4xx/5xx requests are reported in the application log.");
+            return;
+        }
+        running = true;
+        worker = new Thread(this::drainLoop, "access-log-writer");
+        worker.setDaemon(true);
+        worker.start();
+        log.info("Access log writer started (buffer={}, successSampleRate={})",
+                buffer.capacity(), properties.getSuccessSampleRate());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            LockSupport.unpark(worker);
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        if (dropped.get() > 0) {
+            log.warn("Access log dropped {} entries because the buffer was full", dropped.get());
+        }
+    }
+
+    /**
+     * Record a finished request. Successful responses are sampled; 4xx/5xx are always kept and
+     * fall back to the application log when the buffer is full or the pipeline is disabled.
+     *
+     * @return true when the entry was handed to the access log
+     */
+    public boolean record(String traceId, String method, String uri, String query, int status,
+                          long durationMicros, String clientIp, String userAgent) {
+        boolean failure = status >= 400;
+        if (!running) {
+            if (failure) {
+                logFailureDirectly(traceId, method, uri, query, status, durationMicros, clientIp);
+            }
+            return false;
+        }
+        if (!failure && !sampled()) {
+            return false;
+        }
+
+        boolean accepted = buffer.offer(System.currentTimeMillis(), traceId, method, uri, query,
+                status, durationMicros, clientIp, userAgent);
+        if (!accepted) {
+            dropped.incrementAndGet();
+            if (failure) {
+                logFailureDirectly(traceId, method, uri, query, status, durationMicros, clientIp);
+            }
+        }
+        return accepted;
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private boolean sampled() {
+        double rate = properties.getSuccessSampleRate();
+        if (rate >= 1.0) {
+            return true;
+        }
+        return rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    private void logFailureDirectly(String traceId, String method, String uri, String query, int status,
+                                    long durationMicros, String clientIp) {
+        String path = query == null || query.isBlank() ? uri : uri + "?" + query;
+        if (status >= 500) {
+            log.error("{} {} -> {} ({} ms) ip={} trace={}", method, path, status, durationMicros / 1000, clientIp, traceId);
+        } else {
+            log.warn("{} {} -> {} ({} ms) ip={} trace={}", method, path, status, durationMicros / 1000, clientIp, traceId);
+        }
+    }
+
+    private void drainLoop() {
+        long idleNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, properties.getIdleWaitMillis()));
+        while (running) {
+            if (!drain()) {
+                LockSupport.parkNanos(this, idleNanos);
+            }
+        }
+        // Flush whatever was published before shutdown
+        drain();
+    }
+
+    /**
+     * @return true if at least one entry was written
+     */
+    private boolean drain() {
+        boolean wrote = false;
+        AccessLogRingBuffer.Slot slot;
+        while ((slot = buffer.peek()) != null) {
+            try {
+                write(slot);
+            } catch (RuntimeException e) {
+                log.warn("Failed to write access log entry: {}", e.getMessage());
+            } finally {
+                buffer.release(slot);
+            }
+            wrote = true;
+        }
+        return wrote;
+    }
+
+    private void write(AccessLogRingBuffer.Slot slot) {
+        StringBuilder sb = line;
+        sb.setLength(0);
+        sb.append("{\"ts\":\"");
+        TIMESTAMP_FORMATTER.formatTo(Instant.ofEpochMilli(slot.timestampMillis), sb);
+        sb.append("\",\"trace\":");
+        appendJsonString(sb, slot.traceId);
+        sb.append(",\"method\":");
+        appendJsonString(sb, slot.method);
+        sb.append(",\"path\":");
+        appendJsonString(sb, slot.uri);
+        if (slot.query != null && !slot.query.isEmpty()) {
+            sb.append(",\"query\":");
+            appendJsonString(sb, slot.query);
+        }
+        sb.append(",\"status\":").append(slot.status);
+        sb.append(",\"durationMs\":").append(slot.durationMicros / 1000).append('.');
+        long fraction = slot.durationMicros % 1000;
+        if (fraction < 100) {
+            sb.append('0');
+        }
+        if (fraction < 10) {
+            sb.append('0');
+        }
+        sb.append(fraction);
+        sb.append(",\"ip\":");
+        appendJsonString(sb, slot.clientIp);
+        sb.append(",\"ua\":");
+        appendJsonString(sb, slot.userAgent);
+        sb.append('}');
+
+        if (slot.status >= 500) {
+            ACCESS_LOG.error(sb.toString());
+        } else if (slot.status >= 400) {
+            ACCESS_LOG.warn(sb.toString());
+        } else {
+            ACCESS_LOG.info(sb.toString());
+        }
+    }
+
+    private static void appendJsonString(StringBuilder sb, String value) {
+        if (value == null) {
+            sb.append("null");
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+    }
+}
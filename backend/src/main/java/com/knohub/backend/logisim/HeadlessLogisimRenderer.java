@@ -7,14 +7,15 @@ import com.cburch.logisim.file.Loader;
 import com.cburch.logisim.file.LogisimFile;
 import com.cburch.logisim.gui.main.Canvas;
 import com.knohub.backend.logisim.HeadlessProject;
+import com.knohub.backend.storage.StoredFile;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.prefs.Preferences;
@@ -29,10 +30,10 @@ public class HeadlessLogisimRenderer {
     /**
      * Render the main circuit in the given .circ file to a PNG.
      *
-     * @param inputPath  path to the .circ file
+     * @param input      the stored .circ file (read through its decoding stream)
      * @param outputPath target PNG path
      */
-    public void renderToPng(Path inputPath, Path outputPath) throws IOException {
+    public void renderToPng(StoredFile input, Path outputPath) throws IOException {
         System.setProperty("java.awt.headless", "true");
         // Ensure Logisim preference/board directories point to a writable location inside workspace
         String workspaceHome = Path.of("").toAbsolutePath().toString();
@@ -44,7 +45,7 @@ public class HeadlessLogisimRenderer {
         Preferences.userRoot().node("logisim-evolution").put("BoardDir", boardDir.toString());
 
         Loader loader = new Loader(null);
-        LogisimFile logisimFile = openFile(loader, inputPath);
+        LogisimFile logisimFile = openFile(loader, input);
         Circuit circuit = logisimFile.getMainCircuit();
         if (circuit == null) {
             throw new IOException("未找到主电路");
@@ -84,10 +85,9 @@ public class HeadlessLogisimRenderer {
         log.info("Logisim preview rendered to {}", outputPath);
     }
 
-    private LogisimFile openFile(Loader loader, Path inputPath) throws IOException {
-        File file = inputPath.toFile();
-        try {
-            return loader.openLogisimFile(file);
+    private LogisimFile openFile(Loader loader, StoredFile input) throws IOException {
+        try (InputStream in = input.open()) {
+            return loader.openLogisimFile(in);
         } catch (LoadFailedException e) {
             throw new IOException("Logisim 文件解析失败: " + e.getMessage(), e);
         }
@@ -0,0 +1,208 @@
+package com.knohub.backend.metrics;
+
+import com.knohub.backend.logging.AccessLogWriter;
+import com.knohub.backend.service.ActiveUserService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Central place for application meters so instrumented code only deals with plain values.
+ * JVM (GC, heap, threads) and Hikari pool gauges are bound by Spring Boot actuator on the same registry.
+ */
+@Component
+public class BackendMetrics {
+
+    private static final Duration[] LATENCY_SLOS = {
+            Duration.ofMillis(10), Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(250),
+            Duration.ofMillis(500), Duration.ofSeconds(1), Duration.ofSeconds(2), Duration.ofSeconds(5)
+    };
+
+    private final MeterRegistry registry;
+
+    /**
+     * Request timers by tags; routes are mapping templates, so the key set stays small
+     */
+    private final Map<RequestKey, Timer> requestTimers = new ConcurrentHashMap<>();
+
+    private final Timer logisimRenderSuccess;
+    private final Timer logisimRenderFailure;
+    private final Timer docRenderSuccess;
+    private final Timer docRenderFailure;
+    private final Timer uploadTimer;
+    private final DistributionSummary uploadBytes;
+    private final DistributionSummary uploadThroughput;
+    private final Counter downloadBytes;
+    private final Counter downloadCount;
+    private final Timer treeBuildTimer;
+    private final DistributionSummary treeNodes;
+
+    public BackendMetrics(MeterRegistry registry, ActiveUserService activeUserService, AccessLogWriter accessLogWriter) {
+        this.registry = registry;
+
+        this.logisimRenderSuccess = renderTimer("knohub.render.logisim", "success");
+        this.logisimRenderFailure = renderTimer("knohub.render.logisim", "failure");
+        this.docRenderSuccess = renderTimer("knohub.render.doc", "success");
+        this.docRenderFailure = renderTimer("knohub.render.doc", "failure");
+
+        this.uploadTimer = Timer.builder("knohub.upload.duration")
+                .description("Time to store a single uploaded file")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.uploadBytes = DistributionSummary.builder("knohub.upload.size")
+                .description("Size of uploaded files")
+                .baseUnit("bytes")
+                .register(registry);
+        this.uploadThroughput = DistributionSummary.builder("knohub.upload.throughput")
+                .description("Per-file upload throughput")
+                .baseUnit("bytes_per_second")
+                .register(registry);
+
+        this.downloadBytes = Counter.builder("knohub.download.bytes")
+                .description("Bytes served by file downloads")
+                .baseUnit("bytes")
+                .register(registry);
+        this.downloadCount = Counter.builder("knohub.download.requests")
+                .description("Number of file downloads served")
+                .register(registry);
+
+        this.treeBuildTimer = Timer.builder("knohub.tree.build")
+                .description("Time to assemble a resource file tree")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.treeNodes = DistributionSummary.builder("knohub.tree.nodes")
+                .description("Number of nodes in an assembled resource file tree")
+                .register(registry);
+
+        Gauge.builder("knohub.active.users", activeUserService, ActiveUserService::getUniqueVisitorCount)
+                .description("Unique visitor IPs in the rolling window")
+                .register(registry);
+        Gauge.builder("knohub.accesslog.dropped", accessLogWriter, AccessLogWriter::getDroppedCount)
+                .description("Access log entries dropped because the buffer was full")
+                .register(registry);
+    }
+
+    /**
+     * Record one HTTP request. The route must be a mapping template (e.g. /api/files/{resourceId}), never a raw URI,
+     * to keep tag cardinality bounded.
+     */
+    public void recordRequest(String method, String route, int status, long durationNanos) {
+        requestTimers.computeIfAbsent(new RequestKey(method, route, status), this::requestTimer)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private record RequestKey(String method, String route, int status) {
+    }
+
+    private Timer requestTimer(RequestKey key) {
+        return Timer.builder("knohub.http.requests")
+                .description("HTTP request latency by route and status")
+                .tag("method", key.method())
+                .tag("route", key.route())
+                .tag("status", Integer.toString(key.status()))
+                .publishPercentileHistogram()
+                .serviceLevelObjectives(LATENCY_SLOS)
+                .register(registry);
+    }
+
+    public void recordLogisimRender(long durationNanos, boolean success) {
+        (success ? logisimRenderSuccess : logisimRenderFailure).record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordDocRender(long durationNanos, boolean success) {
+        (success ? docRenderSuccess : docRenderFailure).record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordUpload(long bytes, long durationNanos) {
+        uploadTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+        uploadBytes.record(bytes);
+        if (durationNanos > 0) {
+            uploadThroughput.record(bytes * 1_000_000_000.0 / durationNanos);
+        }
+    }
+
+    public void recordDownload(long bytes) {
+        downloadCount.increment();
+        if (bytes > 0) {
+            downloadBytes.increment(bytes);
+        }
+    }
+
+    public void recordTreeBuild(int nodeCount, long durationNanos) {
+        treeBuildTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+        treeNodes.record(nodeCount);
+    }
+
+    /**
+     * An update lost to a concurrent writer and is about to be retried.
+     */
+    public void recordOptimisticRetry(String operation) {
+        Counter.builder("knohub.optimistic.retries")
+                .description("Updates retried after losing to a concurrent writer")
+                .tag("operation", operation)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * An update gave up after the last retry and was answered with 409.
+     */
+    public void recordOptimisticConflict(String operation) {
+        Counter.builder("knohub.optimistic.conflicts")
+                .description("Updates rejected with 409 after exhausting retries")
+                .tag("operation", operation)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Folder or resource aggregates found drifted and corrected by the reconcile job.
+     */
+    public void recordAggregateRepairs(int repaired) {
+        Counter.builder("knohub.aggregates.repaired")
+                .description("Folder/resource size and count aggregates corrected by reconciliation")
+                .register(registry)
+                .increment(repaired);
+    }
+
+    /**
+     * One committed batch of the trash purge: rows hard-deleted and stored bytes reclaimed.
+     */
+    public void recordTrashPurge(int items, long bytes) {
+        Counter.builder("knohub.trash.purged.items")
+                .description("Expired soft-deleted files and folders hard-deleted by the trash purge")
+                .register(registry)
+                .increment(items);
+        Counter.builder("knohub.trash.purged.bytes")
+                .description("Stored bytes reclaimed by the trash purge")
+                .baseUnit("bytes")
+                .register(registry)
+                .increment(bytes);
+    }
+
+    /**
+     * One committed batch of the trash archiver: rows moved out of the hot tables.
+     */
+    public void recordTrashArchive(int items) {
+        Counter.builder("knohub.trash.archived.items")
+                .description("Soft-deleted files and folders moved into file_items_archive")
+                .register(registry)
+                .increment(items);
+    }
+
+    private Timer renderTimer(String name, String outcome) {
+        return Timer.builder(name)
+                .description("Preview rendering time")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
@@ -0,0 +1,71 @@
+package com.knohub.backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A soft-deleted file or folder moved out of file_items into file_items_archive.
+ * Read-only here: rows are written by the INSERT ... SELECT statements of {@code ArchivedFileItemRepository};
+ * parent and resource are plain ids, since they may be archived or purged independently.
+ */
+@Entity
+@Table(name = "file_items_archive")
+@Getter
+@NoArgsConstructor
+public class ArchivedFileItem {
+
+    @Id
+    private Long id;
+
+    private String name;
+
+    private String originalName;
+
+    private boolean isFolder;
+
+    private String type;
+
+    private String size;
+
+    private Long sizeBytes;
+
+    private String storagePath;
+
+    private Long parentId;
+
+    private String ancestorPath;
+
+    private Long resourceId;
+
+    private Integer deleteSequence;
+
+    private LocalDateTime deletedAt;
+
+    private long totalBytes;
+
+    private long fileCount;
+
+    private LocalDateTime archivedAt;
+
+    /**
+     * When the trash retention ran out and the stored file was removed; the record stays for audit
+     */
+    private LocalDateTime purgedAt;
+
+    /**
+     * Ancestor path of this item's children at the time it was archived
+     */
+    public String childPathPrefix() {
+        return (ancestorPath == null ? "/" : ancestorPath) + id + "/";
+    }
+
+    /**
+     * Ids of all ancestor folders at the time it was archived, root first
+     */
+    public List<Long> ancestorIds() {
+        return FileItem.parseAncestorPath(ancestorPath);
+    }
+}
@@ -0,0 +1,62 @@
+package com.knohub.backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One delta of a resource's file tree. All deltas written by one transaction share the version it
+ * took from {@code resources.change_version}.
+ */
+@Entity
+@Table(name = "file_changes")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FileChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "file_changes_seq")
+    @SequenceGenerator(name = "file_changes_seq", sequenceName = "file_changes_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long resourceId;
+
+    @Column(nullable = false)
+    private long version;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "change_type", nullable = false, length = 16)
+    private FileChangeType type;
+
+    @Column(nullable = false)
+    private Long fileId;
+
+    /**
+     * New parent of an added or moved item (null at root level)
+     */
+    private Long parentId;
+
+    /**
+     * Index among the live siblings after a move
+     */
+    private Integer displayOrder;
+
+    /**
+     * The item as a tree node (FileItemDTO JSON) for added and renamed items
+     */
+    @Column(length = 4000)
+    private String node;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
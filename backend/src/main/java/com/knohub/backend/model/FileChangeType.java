@@ -0,0 +1,21 @@
+package com.knohub.backend.model;
+
+/**
+ * Kinds of file tree delta recorded in the change feed
+ */
+public enum FileChangeType {
+    ADDED("added"),
+    REMOVED("removed"),
+    MOVED("moved"),
+    RENAMED("renamed");
+
+    private final String value;
+
+    FileChangeType(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+}
@@ -20,8 +20,12 @@ import java.util.List;
 @Builder
 public class FileItem {
 
+    /**
+     * Pooled sequence (not IDENTITY) so Hibernate can batch inserts; see SequenceMigration for existing data
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "file_items_seq")
+    @SequenceGenerator(name = "file_items_seq", sequenceName = "file_items_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -63,6 +67,12 @@ public class FileItem {
      */
     private String storagePath;
 
+    /**
+     * On-disk encoding of storagePath ("gzip"), null when stored raw
+     */
+    @Column(length = 16)
+    private String storageEncoding;
+
     /**
      * Preview file absolute path (e.g. PNG rendered by external tools)
      */
@@ -80,6 +90,27 @@ public class FileItem {
     @JoinColumn(name = "parent_id")
     private FileItem parent;
 
+    /**
+     * Materialized ancestor chain: "/" at root level, otherwise the ids of all ancestors, e.g. "/12/57/".
+     * Set on insert, rewritten for the whole subtree on move; subtree and ancestor reads use it instead of
+     * walking parent_id recursively.
+     */
+    @Column(length = 1024)
+    private String ancestorPath;
+
+    /**
+     * Folder aggregates over all live files beneath it (0 for files). Changed only by the bulk delta
+     * updates in StorageAggregates, never by an entity flush, so a stale entity cannot overwrite them.
+     */
+    @Column(nullable = false, insertable = false, updatable = false)
+    private long totalBytes;
+
+    @Column(nullable = false, insertable = false, updatable = false)
+    private long fileCount;
+
+    @Column(insertable = false, updatable = false)
+    private LocalDateTime contentModifiedAt;
+
     /**
      * Child items (for folders)
      */
@@ -120,6 +151,12 @@ public class FileItem {
     @Builder.Default
     private Integer displayOrder = 0;
 
+    /**
+     * Optimistic lock; concurrent writers are retried by OptimisticRetry
+     */
+    @Version
+    private Long version;
+
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -132,6 +169,9 @@ public class FileItem {
         if (originalName == null) {
             originalName = name;
         }
+        if (ancestorPath == null) {
+            ancestorPath = parent == null ? "/" : parent.childPathPrefix();
+        }
     }
 
     @PreUpdate
@@ -139,6 +179,42 @@ public class FileItem {
         updatedAt = LocalDateTime.now();
     }
 
+    /**
+     * Ancestor path of this item's children; every descendant's ancestorPath starts with it
+     */
+    public String childPathPrefix() {
+        return (ancestorPath == null ? "/" : ancestorPath) + id + "/";
+    }
+
+    /**
+     * Ids of all ancestor folders, root first
+     */
+    public List<Long> ancestorIds() {
+        return parseAncestorPath(ancestorPath);
+    }
+
+    /**
+     * Folder ids of a materialized path such as "/12/57/", root first
+     */
+    public static List<Long> parseAncestorPath(String ancestorPath) {
+        List<Long> ids = new ArrayList<>();
+        if (ancestorPath != null) {
+            for (String segment : ancestorPath.split("/")) {
+                if (!segment.isEmpty()) {
+                    ids.add(Long.valueOf(segment));
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Whether this item lies strictly below the given folder (no query, compares materialized paths)
+     */
+    public boolean isDescendantOf(FileItem folder) {
+        return ancestorPath != null && ancestorPath.startsWith(folder.childPathPrefix());
+    }
+
     /**
      * Helper method to add child item
      */
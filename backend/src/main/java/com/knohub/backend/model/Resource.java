@@ -21,7 +21,8 @@ import java.util.List;
 public class Resource {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "resources_seq")
+    @SequenceGenerator(name = "resources_seq", sequenceName = "resources_seq", allocationSize = 50)
     private Long id;
 
     @Enumerated(EnumType.STRING)
@@ -59,6 +60,31 @@ public class Resource {
     @Builder.Default
     private List<FileItem> files = new ArrayList<>();
 
+    /**
+     * Live file count, byte total and last content change across all folders; maintained like the
+     * FileItem folder aggregates and likewise never written by an entity flush
+     */
+    @Column(nullable = false, insertable = false, updatable = false)
+    private long totalBytes;
+
+    @Column(nullable = false, insertable = false, updatable = false)
+    private long fileCount;
+
+    @Column(insertable = false, updatable = false)
+    private LocalDateTime contentModifiedAt;
+
+    /**
+     * Last version of the file tree change feed; only ever incremented in SQL by ChangeFeedService
+     */
+    @Column(nullable = false, insertable = false, updatable = false)
+    private long changeVersion;
+
+    /**
+     * Optimistic lock; concurrent writers are retried by OptimisticRetry
+     */
+    @Version
+    private Long version;
+
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
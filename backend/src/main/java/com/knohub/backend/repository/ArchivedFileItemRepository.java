@@ -0,0 +1,111 @@
+package com.knohub.backend.repository;
+
+import com.knohub.backend.model.ArchivedFileItem;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ArchivedFileItemRepository extends JpaRepository<ArchivedFileItem, Long> {
+
+    /**
+     * Columns shared by file_items and file_items_archive (not H2's generated live_parent_key)
+     */
+    String COLUMNS = "id, name, original_name, is_folder, type, size, size_bytes, url, storage_path, storage_encoding, " +
+            "preview_path, preview_url, parent_id, ancestor_path, resource_id, deleted, delete_sequence, deleted_at, " +
+            "display_order, version, total_bytes, file_count, content_modified_at, created_at, updated_at";
+
+    /**
+     * Copy soft-deleted rows into the archive; the caller then hard-deletes them from file_items
+     */
+    @Modifying
+    @Query(value = "INSERT INTO file_items_archive (" + COLUMNS + ", archived_at) " +
+                   "SELECT " + COLUMNS + ", :archivedAt FROM file_items WHERE id IN (:ids) AND deleted = TRUE",
+           nativeQuery = true)
+    int archive(@Param("ids") Collection<Long> ids, @Param("archivedAt") LocalDateTime archivedAt);
+
+    /**
+     * Copy archived rows back into file_items with their ids; call once per depth, folders first,
+     * then delete them from the archive
+     */
+    @Modifying
+    @Query(value = "INSERT INTO file_items (" + COLUMNS + ") " +
+                   "SELECT " + COLUMNS + " FROM file_items_archive WHERE id IN (:ids) AND purged_at IS NULL",
+           nativeQuery = true)
+    int unarchive(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM ArchivedFileItem a WHERE a.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * An archived item whose stored file still exists, locked against a concurrent purge (trash restore)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<ArchivedFileItem> findByIdAndPurgedAtIsNull(Long id);
+
+    /**
+     * Archived descendants deleted in the same operation as a folder; pass {@link ArchivedFileItem#childPathPrefix()}
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<ArchivedFileItem> findByAncestorPathStartingWithAndDeletedAtAndPurgedAtIsNull(String pathPrefix,
+                                                                                       LocalDateTime deletedAt);
+
+    /**
+     * Archived trash entries of a resource, newest first: items not archived together with a folder
+     * deleted in the same operation (those are restored with it)
+     */
+    @Query("SELECT a FROM ArchivedFileItem a WHERE a.resourceId = :resourceId AND a.purgedAt IS NULL " +
+           "AND NOT EXISTS (SELECT p.id FROM ArchivedFileItem p WHERE p.id = a.parentId AND p.deletedAt = a.deletedAt) " +
+           "ORDER BY a.deletedAt DESC, a.id")
+    List<ArchivedFileItem> findTrashEntries(@Param("resourceId") Long resourceId);
+
+    /**
+     * Next archived rows past the trash retention whose stored files are still on disk, locked against
+     * a concurrent restore
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM ArchivedFileItem a WHERE a.purgedAt IS NULL AND a.deletedAt < :cutoff " +
+           "ORDER BY a.deletedAt, a.id")
+    List<ArchivedFileItem> findPurgeBatch(@Param("cutoff") LocalDateTime cutoff, Pageable page);
+
+    @Modifying
+    @Query("UPDATE ArchivedFileItem a SET a.purgedAt = :purgedAt WHERE a.id IN :ids")
+    int markPurged(@Param("ids") Collection<Long> ids, @Param("purgedAt") LocalDateTime purgedAt);
+
+    /**
+     * Purged records past the archive retention
+     */
+    @Query("SELECT a.id FROM ArchivedFileItem a WHERE a.purgedAt IS NOT NULL AND a.deletedAt < :cutoff ORDER BY a.id")
+    List<Long> findExpiredIds(@Param("cutoff") LocalDateTime cutoff, Pageable page);
+
+    /**
+     * Bytes on disk for a resource: live, soft-deleted and not yet purged archived files, read in one
+     * statement so a concurrent archive batch is counted exactly once (quota accounting)
+     */
+    @Query(value = "SELECT (SELECT COALESCE(SUM(size_bytes), 0) FROM file_items " +
+                   "WHERE resource_id = :resourceId AND is_folder = FALSE) + " +
+                   "(SELECT COALESCE(SUM(size_bytes), 0) FROM file_items_archive " +
+                   "WHERE resource_id = :resourceId AND is_folder = FALSE AND purged_at IS NULL)",
+           nativeQuery = true)
+    long sumStoredBytesByResource(@Param("resourceId") Long resourceId);
+
+    /**
+     * Bytes on disk across all resources, hot and archived (quota accounting)
+     */
+    @Query(value = "SELECT (SELECT COALESCE(SUM(size_bytes), 0) FROM file_items WHERE is_folder = FALSE) + " +
+                   "(SELECT COALESCE(SUM(size_bytes), 0) FROM file_items_archive " +
+                   "WHERE is_folder = FALSE AND purged_at IS NULL)",
+           nativeQuery = true)
+    long sumStoredBytes();
+}
@@ -0,0 +1,32 @@
+package com.knohub.backend.repository;
+
+import com.knohub.backend.model.FileChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface FileChangeRepository extends JpaRepository<FileChange, Long> {
+
+    /**
+     * Deltas of a resource after a version, in the order they were made
+     */
+    @Query("SELECT c FROM FileChange c WHERE c.resourceId = :resourceId AND c.version > :since " +
+           "ORDER BY c.version, c.id")
+    List<FileChange> findSince(@Param("resourceId") Long resourceId,
+                               @Param("since") long since,
+                               Pageable limit);
+
+    /**
+     * Drop deltas past the retention window
+     */
+    @Modifying
+    @Query("DELETE FROM FileChange c WHERE c.createdAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
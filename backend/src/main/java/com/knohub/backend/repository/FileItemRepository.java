@@ -2,11 +2,18 @@ package com.knohub.backend.repository;
 
 import com.knohub.backend.model.FileItem;
 import com.knohub.backend.model.Resource;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -43,6 +50,80 @@ public interface FileItemRepository extends JpaRepository<FileItem, Long> {
      */
     List<FileItem> findByOriginalNameAndParentIsNullAndResourceId(String originalName, Long resourceId);
 
+    /**
+     * All live descendants of a folder in one indexed range scan; pass {@link FileItem#childPathPrefix()}
+     */
+    List<FileItem> findByAncestorPathStartingWithAndDeletedFalse(String pathPrefix);
+
+    /**
+     * Flat live subtree below a folder in display order: rows of [id, parentId, originalName, isFolder, storagePath, type, storageEncoding]
+     */
+    @Query("SELECT f.id, f.parent.id, f.originalName, f.isFolder, f.storagePath, f.type, f.storageEncoding FROM FileItem f " +
+           "WHERE f.ancestorPath LIKE CONCAT(:pathPrefix, '%') AND f.deleted = false " +
+           "ORDER BY f.displayOrder, f.id")
+    List<Object[]> findLiveSubtreeRows(@Param("pathPrefix") String pathPrefix);
+
+    /**
+     * Re-root the materialized paths of a moved subtree (live and deleted rows alike).
+     * Bumps the version so a concurrent edit that read the old path fails and retries.
+     */
+    @Modifying
+    @Query("UPDATE FileItem f SET f.ancestorPath = CONCAT(:newPrefix, SUBSTRING(f.ancestorPath, :tailStart)), " +
+           "f.version = f.version + 1 " +
+           "WHERE f.ancestorPath LIKE CONCAT(:oldPrefix, '%')")
+    int rewriteAncestorPaths(@Param("oldPrefix") String oldPrefix,
+                             @Param("newPrefix") String newPrefix,
+                             @Param("tailStart") int tailStart);
+
+    /**
+     * Apply a file count / byte delta to a set of folders (atomic in SQL, so concurrent deltas add up)
+     */
+    @Modifying
+    @Query("UPDATE FileItem f SET f.totalBytes = f.totalBytes + :bytes, f.fileCount = f.fileCount + :files, " +
+           "f.contentModifiedAt = :modifiedAt WHERE f.id IN :folderIds")
+    int adjustFolderTotals(@Param("folderIds") Collection<Long> folderIds,
+                           @Param("bytes") long bytes,
+                           @Param("files") long files,
+                           @Param("modifiedAt") LocalDateTime modifiedAt);
+
+    /**
+     * Overwrite a folder's aggregates only if they still hold the values the caller computed against
+     */
+    @Modifying
+    @Query("UPDATE FileItem f SET f.totalBytes = :bytes, f.fileCount = :files " +
+           "WHERE f.id = :id AND f.totalBytes = :seenBytes AND f.fileCount = :seenFiles")
+    int repairFolderTotals(@Param("id") Long id,
+                           @Param("bytes") long bytes,
+                           @Param("files") long files,
+                           @Param("seenBytes") long seenBytes,
+                           @Param("seenFiles") long seenFiles);
+
+    /**
+     * Live items of a resource for aggregate reconciliation: rows of [id, ancestorPath, isFolder, sizeBytes, totalBytes, fileCount]
+     */
+    @Query("SELECT f.id, f.ancestorPath, f.isFolder, f.sizeBytes, f.totalBytes, f.fileCount FROM FileItem f " +
+           "WHERE f.resource.id = :resourceId AND f.deleted = false")
+    List<Object[]> findAggregateRows(@Param("resourceId") Long resourceId);
+
+    /**
+     * Flat live tree of a resource in display order: rows of [id, parentId, originalName, isFolder, storagePath, type, storageEncoding]
+     */
+    @Query("SELECT f.id, p.id, f.originalName, f.isFolder, f.storagePath, f.type, f.storageEncoding FROM FileItem f " +
+           "LEFT JOIN f.parent p WHERE f.resource.id = :resourceId AND f.deleted = false " +
+           "ORDER BY f.displayOrder, f.id")
+    List<Object[]> findLiveTreeRows(@Param("resourceId") Long resourceId);
+
+    /**
+     * Flat live tree of a resource with every field a tree node renders, in display order: rows of
+     * [id, parentId, name, isFolder, type, size, url, previewUrl, sizeBytes, totalBytes, fileCount, contentModifiedAt,
+     * updatedAt, displayOrder]
+     */
+    @Query("SELECT f.id, p.id, f.name, f.isFolder, f.type, f.size, f.url, f.previewUrl, f.sizeBytes, " +
+           "f.totalBytes, f.fileCount, f.contentModifiedAt, f.updatedAt, f.displayOrder FROM FileItem f " +
+           "LEFT JOIN f.parent p WHERE f.resource.id = :resourceId AND f.deleted = false " +
+           "ORDER BY f.displayOrder, f.id")
+    List<Object[]> findTreeNodeRows(@Param("resourceId") Long resourceId);
+
     /**
      * Get max delete sequence for a given original name in a folder
      */
@@ -61,24 +142,94 @@ public interface FileItemRepository extends JpaRepository<FileItem, Long> {
                                                @Param("resourceId") Long resourceId);
 
     /**
-     * Check if a non-deleted file/folder with the same name exists
+     * Max delete sequence per (parent, original name) for several folders: rows of [parentId, originalName, max]
+     */
+    @Query("SELECT f.parent.id, f.originalName, MAX(f.deleteSequence) FROM FileItem f " +
+           "WHERE f.parent.id IN :parentIds AND f.deleted = true GROUP BY f.parent.id, f.originalName")
+    List<Object[]> findMaxDeleteSequencesInFolders(@Param("parentIds") Collection<Long> parentIds);
+
+    /**
+     * Which of the given names are already taken by non-deleted items in a folder
      */
-    @Query("SELECT COUNT(f) > 0 FROM FileItem f WHERE f.originalName = :name " +
+    @Query("SELECT f.originalName FROM FileItem f WHERE f.originalName IN :names " +
            "AND f.parent.id = :parentId AND f.resource.id = :resourceId AND f.deleted = false")
-    boolean existsByNameInFolder(@Param("name") String name,
-                                  @Param("parentId") Long parentId,
-                                  @Param("resourceId") Long resourceId);
+    List<String> findLiveNamesInFolder(@Param("names") Collection<String> names,
+                                       @Param("parentId") Long parentId,
+                                       @Param("resourceId") Long resourceId);
 
     /**
-     * Check if a non-deleted file/folder with the same name exists at root level
+     * Which of the given names are already taken by non-deleted items at root level
      */
-    @Query("SELECT COUNT(f) > 0 FROM FileItem f WHERE f.originalName = :name " +
+    @Query("SELECT f.originalName FROM FileItem f WHERE f.originalName IN :names " +
            "AND f.parent IS NULL AND f.resource.id = :resourceId AND f.deleted = false")
-    boolean existsByNameAtRoot(@Param("name") String name,
-                                @Param("resourceId") Long resourceId);
+    List<String> findLiveNamesAtRoot(@Param("names") Collection<String> names,
+                                     @Param("resourceId") Long resourceId);
+
+    /**
+     * Attach a generated preview without touching other columns of a possibly concurrently edited row
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE FileItem f SET f.previewPath = :previewPath, f.previewUrl = :previewUrl " +
+           "WHERE f.id = :id AND f.deleted = false")
+    int updatePreview(@Param("id") Long id,
+                      @Param("previewPath") String previewPath,
+                      @Param("previewUrl") String previewUrl);
+
+    /**
+     * The item stored at a physical path (download URLs address files by storage name)
+     */
+    Optional<FileItem> findFirstByStoragePath(String storagePath);
 
     /**
      * Find a non-deleted file by ID
      */
     Optional<FileItem> findByIdAndDeletedFalse(Long id);
+
+    /**
+     * Find a soft-deleted file or folder by ID (trash restore)
+     */
+    Optional<FileItem> findByIdAndDeletedTrue(Long id);
+
+    /**
+     * Which of the given items exist and are not deleted
+     */
+    @Query("SELECT f.id FROM FileItem f WHERE f.id IN :ids AND f.deleted = false")
+    List<Long> findLiveIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Trash entries of a resource, newest first: deleted items that were not deleted together with their
+     * parent folder (those are restored with it)
+     */
+    @Query("SELECT f FROM FileItem f LEFT JOIN f.parent p WHERE f.resource.id = :resourceId AND f.deleted = true " +
+           "AND (p IS NULL OR p.deleted = false OR p.deletedAt <> f.deletedAt) " +
+           "ORDER BY f.deletedAt DESC, f.id")
+    List<FileItem> findTrashEntries(@Param("resourceId") Long resourceId);
+
+    /**
+     * Descendants deleted in the same operation as a folder; pass {@link FileItem#childPathPrefix()}
+     */
+    List<FileItem> findByAncestorPathStartingWithAndDeletedTrueAndDeletedAt(String pathPrefix, LocalDateTime deletedAt);
+
+    /**
+     * Next expired trash rows to purge, locked against a concurrent restore. Oldest first and, within one
+     * deletion, deepest first: a descendant's materialized path is always longer than its folder's.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM FileItem f WHERE f.deleted = true AND f.deletedAt < :cutoff " +
+           "ORDER BY f.deletedAt, LENGTH(f.ancestorPath) DESC, f.id")
+    List<FileItem> findPurgeBatch(@Param("cutoff") LocalDateTime cutoff, Pageable page);
+
+    /**
+     * Which of the given folders still have children outside the given set
+     */
+    @Query("SELECT DISTINCT f.parent.id FROM FileItem f WHERE f.parent.id IN :ids AND f.id NOT IN :ids")
+    List<Long> findParentsWithOtherChildren(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Hard delete rows by id; bypasses the children cascade, so callers delete children first
+     */
+    @Modifying
+    @Query("DELETE FROM FileItem f WHERE f.id IN :ids")
+    int hardDeleteByIds(@Param("ids") Collection<Long> ids);
 }
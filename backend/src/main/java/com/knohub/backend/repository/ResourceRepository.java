@@ -3,10 +3,13 @@ package com.knohub.backend.repository;
 import com.knohub.backend.model.Resource;
 import com.knohub.backend.model.ResourceType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -36,4 +39,85 @@ public interface ResourceRepository extends JpaRepository<Resource, Long> {
             "LOWER(COALESCE(r.description, '')) LIKE LOWER(CONCAT('%', :keyword, '%'))" +
             ")")
     List<Resource> searchActive(@Param("keyword") String keyword);
+
+    /**
+     * Ids of all non-deleted resources
+     */
+    @Query("SELECT r.id FROM Resource r WHERE r.deleted = false")
+    List<Long> findActiveIds();
+
+    /**
+     * Apply a file count / byte delta to a resource (atomic in SQL, so concurrent deltas add up)
+     */
+    @Modifying
+    @Query("UPDATE Resource r SET r.totalBytes = r.totalBytes + :bytes, r.fileCount = r.fileCount + :files, " +
+           "r.contentModifiedAt = :modifiedAt WHERE r.id = :id")
+    int adjustTotals(@Param("id") Long id,
+                     @Param("bytes") long bytes,
+                     @Param("files") long files,
+                     @Param("modifiedAt") LocalDateTime modifiedAt);
+
+    /**
+     * Take the next change feed version of a resource; the row lock it holds until commit keeps the
+     * versions of concurrent writers in commit order
+     */
+    @Modifying
+    @Query("UPDATE Resource r SET r.changeVersion = r.changeVersion + 1 WHERE r.id = :id")
+    int incrementChangeVersion(@Param("id") Long id);
+
+    /**
+     * Last change feed version of a resource
+     */
+    @Query("SELECT r.changeVersion FROM Resource r WHERE r.id = :id")
+    Long findChangeVersion(@Param("id") Long id);
+
+    /**
+     * Overwrite a resource's aggregates only if they still hold the values the caller computed against
+     */
+    @Modifying
+    @Query("UPDATE Resource r SET r.totalBytes = :bytes, r.fileCount = :files " +
+           "WHERE r.id = :id AND r.totalBytes = :seenBytes AND r.fileCount = :seenFiles")
+    int repairTotals(@Param("id") Long id,
+                     @Param("bytes") long bytes,
+                     @Param("files") long files,
+                     @Param("seenBytes") long seenBytes,
+                     @Param("seenFiles") long seenFiles);
+
+    /**
+     * Soft-deleted resources deleted before the cutoff whose file rows have all been purged or archived
+     */
+    @Query("SELECT r.id FROM Resource r WHERE r.deleted = true AND r.deletedAt < :cutoff " +
+           "AND NOT EXISTS (SELECT f.id FROM FileItem f WHERE f.resource = r)")
+    List<Long> findPurgeableIds(@Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * Hard delete soft-deleted resources by id (their file rows must already be gone)
+     */
+    @Modifying
+    @Query("DELETE FROM Resource r WHERE r.id IN :ids AND r.deleted = true")
+    int hardDeleteByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Copy soft-deleted resources into resources_archive; the caller then hard-deletes them
+     */
+    @Modifying
+    @Query(value = "INSERT INTO resources_archive (id, type, title, description, tag, deleted, deleted_at, update_date, " +
+                   "created_at, updated_at, version, total_bytes, file_count, content_modified_at, change_version, archived_at) " +
+                   "SELECT id, type, title, description, tag, deleted, deleted_at, update_date, created_at, updated_at, " +
+                   "version, total_bytes, file_count, content_modified_at, change_version, :archivedAt " +
+                   "FROM resources WHERE id IN (:ids) AND deleted = TRUE",
+           nativeQuery = true)
+    int archiveByIds(@Param("ids") Collection<Long> ids, @Param("archivedAt") LocalDateTime archivedAt);
+
+    /**
+     * Archived resources past the archive retention with no archived file records left
+     */
+    @Query(value = "SELECT r.id FROM resources_archive r WHERE r.deleted_at < :cutoff " +
+                   "AND NOT EXISTS (SELECT 1 FROM file_items_archive f WHERE f.resource_id = r.id)",
+           nativeQuery = true)
+    List<Long> findExpiredArchivedIds(@Param("cutoff") LocalDateTime cutoff);
+
+    @Modifying
+    @Query(value = "DELETE FROM resources_archive WHERE id IN (:ids)", nativeQuery = true)
+    int deleteArchivedByIds(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,397 @@
+package com.knohub.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.knohub.backend.config.ChangeFeedProperties;
+import com.knohub.backend.dto.ChangeSetDTO;
+import com.knohub.backend.dto.FileChangeDTO;
+import com.knohub.backend.dto.FileItemDTO;
+import com.knohub.backend.model.FileChange;
+import com.knohub.backend.model.FileChangeType;
+import com.knohub.backend.model.FileItem;
+import com.knohub.backend.model.Resource;
+import com.knohub.backend.repository.FileChangeRepository;
+import com.knohub.backend.repository.ResourceRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Per-resource change log of the file tree and its push channel. Writers record compact deltas inside their
+ * own transaction; every transaction takes one version from {@code resources.change_version}, so a
+ * resource's versions are gap-free and become visible in order. After commit the resource's SSE
+ * subscribers are notified, and each pulls the deltas past the last version it was sent; clients that
+ * were offline catch up with {@link #getChanges}. All sending happens on one feed thread, which keeps
+ * the events of a connection in version order.
+ */
+@Service
+@Slf4j
+public class ChangeFeedService {
+
+    private final FileChangeRepository fileChangeRepository;
+    private final ResourceRepository resourceRepository;
+    private final ObjectMapper objectMapper;
+    private final ChangeFeedProperties properties;
+    private final DataVersions dataVersions;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnly;
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final ExecutorService sender = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "change-feed");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ChangeFeedService(FileChangeRepository fileChangeRepository,
+                             ResourceRepository resourceRepository,
+                             ObjectMapper objectMapper,
+                             ChangeFeedProperties properties,
+                             DataVersions dataVersions,
+                             PlatformTransactionManager transactionManager) {
+        this.fileChangeRepository = fileChangeRepository;
+        this.resourceRepository = resourceRepository;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.dataVersions = dataVersions;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    /**
+     * New files or folders; folders must come before their contents
+     */
+    public void added(Long resourceId, Collection<FileItem> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        long version = transactionVersion(resourceId);
+        List<FileChange> changes = new ArrayList<>();
+        for (FileItem item : items) {
+            changes.add(FileChange.builder()
+                    .resourceId(resourceId)
+                    .version(version)
+                    .type(FileChangeType.ADDED)
+                    .fileId(item.getId())
+                    .parentId(item.getParent() == null ? null : item.getParent().getId())
+                    .node(toJson(FileService.toDTO(item)))
+                    .build());
+        }
+        fileChangeRepository.saveAll(changes);
+    }
+
+    /**
+     * A file or folder was soft deleted; a folder's contents go with it
+     */
+    public void removed(FileItem item) {
+        record(item, FileChangeType.REMOVED, null, null);
+    }
+
+    /**
+     * An item now sits under its (possibly new) parent at the given index among the live siblings
+     */
+    public void moved(FileItem item, int displayOrder) {
+        record(item, FileChangeType.MOVED, displayOrder, null);
+    }
+
+    public void renamed(FileItem item) {
+        record(item, FileChangeType.RENAMED, null, toJson(FileService.toDTO(item)));
+    }
+
+    private void record(FileItem item, FileChangeType type, Integer displayOrder, String node) {
+        Long resourceId = item.getResource().getId();
+        fileChangeRepository.save(FileChange.builder()
+                .resourceId(resourceId)
+                .version(transactionVersion(resourceId))
+                .type(type)
+                .fileId(item.getId())
+                .parentId(item.getParent() == null ? null : item.getParent().getId())
+                .displayOrder(displayOrder)
+                .node(node)
+                .build());
+    }
+
+    /**
+     * The version this transaction writes for a resource, taken on first use; subscribers are
+     * notified (and the resource's ETag version bumped) once the transaction commits
+     */
+    @SuppressWarnings("unchecked")
+    private long transactionVersion(Long resourceId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Change feed deltas must be recorded inside a transaction");
+        }
+        Map<Long, Long> versions = (Map<Long, Long>) TransactionSynchronizationManager.getResource(this);
+        if (versions == null) {
+            Map<Long, Long> bound = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(this, bound);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ChangeFeedService.this);
+                    if (status == STATUS_COMMITTED) {
+                        bound.keySet().forEach(ChangeFeedService.this::publish);
+                    }
+                }
+            });
+            versions = bound;
+        }
+        return versions.computeIfAbsent(resourceId, id -> {
+            resourceRepository.incrementChangeVersion(id);
+            // Every tree mutation passes here once per transaction, which also makes it the ETag bump
+            dataVersions.touch(id);
+            return resourceRepository.findChangeVersion(id);
+        });
+    }
+
+    /**
+     * Deltas after {@code since} for a client catching up
+     *
+     * @throws RuntimeException when the resource does not exist or was deleted
+     */
+    public ChangeSetDTO getChanges(Long resourceId, long since) {
+        return readOnly.execute(status -> {
+            resourceRepository.findByIdAndDeletedFalse(resourceId)
+                    .orElseThrow(() -> new RuntimeException("资源不存在或已删除: " + resourceId));
+            return load(resourceId, since);
+        });
+    }
+
+    private ChangeSetDTO load(Long resourceId, long since) {
+        // Version first: every delta up to it is committed, so the list below has no holes
+        Long current = resourceRepository.findChangeVersion(resourceId);
+        long version = current == null ? 0 : current;
+        ChangeSetDTO result = ChangeSetDTO.builder()
+                .resourceId(resourceId)
+                .version(version)
+                .changes(List.of())
+                .build();
+        if (since == version) {
+            return result;
+        }
+        List<FileChange> rows = since > version
+                ? List.of()
+                : fileChangeRepository.findSince(resourceId, since, PageRequest.of(0, properties.getMaxChanges() + 1));
+        // Versions are gap-free, so a missing since + 1 means it was pruned (or the client's copy is from elsewhere)
+        if (rows.isEmpty() || rows.get(0).getVersion() != since + 1 || rows.size() > properties.getMaxChanges()) {
+            result.setReset(true);
+            return result;
+        }
+        List<FileChangeDTO> changes = new ArrayList<>();
+        for (FileChange row : rows) {
+            if (row.getVersion() <= version) {
+                changes.add(toDTO(row));
+            }
+        }
+        result.setChanges(changes);
+        return result;
+    }
+
+    /**
+     * Open a push channel for a resource, starting after {@code since} (now when null)
+     *
+     * @throws RuntimeException when the resource does not exist or was deleted
+     */
+    public SseEmitter subscribe(Long resourceId, Long since) {
+        Long current = readOnly.execute(status -> resourceRepository.findByIdAndDeletedFalse(resourceId)
+                .map(Resource::getChangeVersion)
+                .orElseThrow(() -> new RuntimeException("资源不存在或已删除: " + resourceId)));
+        SseEmitter emitter = new SseEmitter(properties.getEmitterTimeout().toMillis());
+        Subscriber subscriber = new Subscriber(resourceId, emitter, since == null ? current : since);
+        subscribers.computeIfAbsent(resourceId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+        // Replays whatever the client missed, on the same thread as every later push
+        publish(resourceId);
+        return emitter;
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.resourceId, (id, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private void publish(Long resourceId) {
+        if (!subscribers.containsKey(resourceId)) {
+            return;
+        }
+        try {
+            sender.execute(() -> push(resourceId));
+        } catch (RejectedExecutionException e) {
+            log.debug("Change feed stopped, dropping notification for resource {}", resourceId);
+        }
+    }
+
+    /**
+     * One read for all subscribers of a resource, from the primary so a just-committed version is visible
+     */
+    private void push(Long resourceId) {
+        Set<Subscriber> targets = subscribers.get(resourceId);
+        if (targets == null || targets.isEmpty()) {
+            return;
+        }
+        try {
+            long from = targets.stream().mapToLong(subscriber -> subscriber.lastVersion).min().orElse(0);
+            ChangeSetDTO changes = transactionTemplate.execute(status -> load(resourceId, from));
+            for (Subscriber subscriber : targets) {
+                subscriber.deliver(changes);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Change feed push for resource {} failed: {}", resourceId, e.getMessage());
+        }
+    }
+
+    /**
+     * Comment lines keep idle connections open through proxies and reveal clients that went away
+     */
+    @Scheduled(fixedDelayString = "${change-feed.heartbeat-interval:PT25S}")
+    public void heartbeat() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        try {
+            sender.execute(() -> subscribers.values().forEach(set -> set.forEach(Subscriber::ping)));
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+        }
+    }
+
+    @Scheduled(initialDelayString = "${change-feed.prune-interval:PT1H}",
+               fixedDelayString = "${change-feed.prune-interval:PT1H}")
+    public void prune() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getRetention());
+        Integer removed = transactionTemplate.execute(status -> fileChangeRepository.deleteOlderThan(cutoff));
+        if (removed != null && removed > 0) {
+            log.info("Pruned {} change feed entries older than {}", removed, cutoff);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.emitter.complete()));
+        subscribers.clear();
+    }
+
+    private FileChangeDTO toDTO(FileChange change) {
+        return FileChangeDTO.builder()
+                .version(change.getVersion())
+                .type(change.getType().getValue())
+                .fileId(change.getFileId())
+                .parentId(change.getParentId())
+                .displayOrder(change.getDisplayOrder())
+                .node(fromJson(change.getNode()))
+                .build();
+    }
+
+    private String toJson(FileItemDTO node) {
+        try {
+            return objectMapper.writeValueAsString(node);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize tree node " + node.getId(), e);
+        }
+    }
+
+    private FileItemDTO fromJson(String node) {
+        if (node == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(node, FileItemDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read stored tree node", e);
+        }
+    }
+
+    /**
+     * One SSE connection; only touched on the feed thread
+     */
+    private final class Subscriber {
+        private final Long resourceId;
+        private final SseEmitter emitter;
+        private long lastVersion;
+
+        private Subscriber(Long resourceId, SseEmitter emitter, long lastVersion) {
+            this.resourceId = resourceId;
+            this.emitter = emitter;
+            this.lastVersion = lastVersion;
+        }
+
+        /**
+         * One "change" event per version past the last one sent, or a single "reset"
+         */
+        void deliver(ChangeSetDTO changes) {
+            if (changes.getVersion() == lastVersion) {
+                return;
+            }
+            if (changes.isReset()) {
+                send(SseEmitter.event()
+                        .id(String.valueOf(changes.getVersion()))
+                        .name("reset")
+                        .data(changes, MediaType.APPLICATION_JSON));
+                lastVersion = changes.getVersion();
+                return;
+            }
+            Map<Long, List<FileChangeDTO>> byVersion = new TreeMap<>();
+            for (FileChangeDTO change : changes.getChanges()) {
+                if (change.getVersion() > lastVersion) {
+                    byVersion.computeIfAbsent(change.getVersion(), v -> new ArrayList<>()).add(change);
+                }
+            }
+            for (Map.Entry<Long, List<FileChangeDTO>> entry : byVersion.entrySet()) {
+                ChangeSetDTO event = ChangeSetDTO.builder()
+                        .resourceId(resourceId)
+                        .version(entry.getKey())
+                        .changes(entry.getValue())
+                        .build();
+                if (!send(SseEmitter.event()
+                        .id(String.valueOf(entry.getKey()))
+                        .name("change")
+                        .data(event, MediaType.APPLICATION_JSON))) {
+                    return;
+                }
+                lastVersion = entry.getKey();
+            }
+        }
+
+        void ping() {
+            send(SseEmitter.event().comment("ping"));
+        }
+
+        private boolean send(SseEmitter.SseEventBuilder event) {
+            try {
+                emitter.send(event);
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                // Client went away (or the emitter already completed)
+                unsubscribe(this);
+                emitter.completeWithError(e);
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.knohub.backend.service;
+
+import lombok.Getter;
+
+/**
+ * Thrown when an update still loses to concurrent writers after all retries.
+ * Carries the current state so the client can refresh without another round trip (rendered as HTTP 409).
+ */
+@Getter
+public class ConcurrentUpdateException extends RuntimeException {
+
+    private final transient Object current;
+
+    public ConcurrentUpdateException(String message, Object current) {
+        super(message);
+        this.current = current;
+    }
+}
@@ -0,0 +1,93 @@
+package com.knohub.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory data versions behind the ETags of the JSON listing endpoints: one counter per resource and a
+ * global one, bumped after every committed mutation, so a matching If-None-Match is answered with 304
+ * before the database is touched. Tags carry this instance's start time, which invalidates them on
+ * restart; the counters only see this instance's writes, so {@code etag.enabled} has to be off when
+ * several instances share one database. With a read replica, every bump is repeated after the
+ * read-your-writes window, since a reader that got replica data older than the bump may have been
+ * tagged with the new version.
+ */
+@Component
+public class DataVersions {
+
+    private final boolean enabled;
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong global = new AtomicLong();
+    private final Map<Long, AtomicLong> resources = new ConcurrentHashMap<>();
+    private final TaskScheduler scheduler;
+    private final Duration replicaLag;
+
+    public DataVersions(@Value("${etag.enabled:true}") boolean enabled,
+                        @Value("${knohub.datasource.replica.url:}") String replicaUrl,
+                        @Value("${knohub.datasource.replica.sticky-window:5s}") Duration stickyWindow,
+                        TaskScheduler scheduler) {
+        this.enabled = enabled;
+        this.scheduler = scheduler;
+        this.replicaLag = replicaUrl == null || replicaUrl.isBlank() ? null : stickyWindow;
+    }
+
+    /**
+     * Weak ETag of everything listed across resources, or null when ETags are disabled
+     */
+    public String globalTag(String variant) {
+        return enabled ? tag("g", global.get(), variant) : null;
+    }
+
+    /**
+     * Weak ETag of one resource with its file tree, or null when ETags are disabled
+     */
+    public String resourceTag(Long resourceId, String variant) {
+        if (!enabled) {
+            return null;
+        }
+        AtomicLong version = resources.get(resourceId);
+        return tag("r" + resourceId + "-", version == null ? 0 : version.get(), variant);
+    }
+
+    /**
+     * A resource (and with it every listing) changed: bumped once the current transaction commits,
+     * right away outside of one
+     */
+    public void touch(Long resourceId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bump(resourceId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                bump(resourceId);
+            }
+        });
+    }
+
+    private void bump(Long resourceId) {
+        increment(resourceId);
+        if (replicaLag != null) {
+            scheduler.schedule(() -> increment(resourceId), Instant.now().plus(replicaLag));
+        }
+    }
+
+    private void increment(Long resourceId) {
+        resources.computeIfAbsent(resourceId, id -> new AtomicLong()).incrementAndGet();
+        global.incrementAndGet();
+    }
+
+    private String tag(String scope, long version, String variant) {
+        return "W/\"" + epoch + "-" + scope + version + "-" + variant + "\"";
+    }
+}
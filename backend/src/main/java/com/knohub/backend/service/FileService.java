@@ -1,28 +1,57 @@
 package com.knohub.backend.service;
 
 import com.knohub.backend.dto.FileItemDTO;
+import com.knohub.backend.dto.TrashItemDTO;
+import com.knohub.backend.dto.UploadResultDTO;
+import com.knohub.backend.model.ArchivedFileItem;
 import com.knohub.backend.model.FileItem;
 import com.knohub.backend.model.Resource;
+import com.knohub.backend.repository.ArchivedFileItemRepository;
 import com.knohub.backend.repository.FileItemRepository;
 import com.knohub.backend.repository.ResourceRepository;
 import com.knohub.backend.config.LogisimProperties;
+import com.knohub.backend.config.RenderExecutors;
+import com.knohub.backend.config.TrashProperties;
+import com.knohub.backend.config.UploadExecutors;
+import com.knohub.backend.config.ZipUploadProperties;
+import com.knohub.backend.metrics.BackendMetrics;
+import com.knohub.backend.storage.FileStorage;
+import com.knohub.backend.storage.StoredFile;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipInputStream;
 import java.util.stream.Collectors;
 
 import org.apache.poi.hwpf.HWPFDocument;
@@ -47,13 +76,39 @@ import java.util.Base64;
 public class FileService {
 
     private final FileItemRepository fileItemRepository;
+    private final ArchivedFileItemRepository archivedFileItemRepository;
     private final ResourceRepository resourceRepository;
     private final LogisimRenderService logisimRenderService;
     private final LogisimProperties logisimProperties;
+    private final BackendMetrics metrics;
+    private final RenderExecutors renderExecutors;
+    private final UploadExecutors uploadExecutors;
+    private final ZipUploadProperties zipUploadProperties;
+    private final OptimisticRetry optimisticRetry;
+    private final StorageAggregates storageAggregates;
+    private final StorageQuota storageQuota;
+    private final FileStorage fileStorage;
+    private final ThumbnailService thumbnailService;
+    private final ChangeFeedService changeFeed;
+    private final DataVersions dataVersions;
+    private final TrashProperties trashProperties;
+
+    /**
+     * Max ids per IN (...) list, well below the bind-parameter limits of H2 and PostgreSQL
+     */
+    private static final int IN_CLAUSE_CHUNK = 500;
+
+    /**
+     * Unique index on live (resource, parent, original name), see db/migration V2
+     */
+    private static final String LIVE_NAME_INDEX = "ux_file_items_live_name";
 
     @Value("${file.upload-dir:./uploads}")
     private String uploadDir;
 
+    @Value("${render.doc-timeout-seconds:30}")
+    private long docRenderTimeoutSeconds;
+
     /**
      * Upload a file to a resource
      *
@@ -69,33 +124,241 @@ public class FileService {
     }
 
     /**
-     * Batch upload multiple files to a resource
+     * Batch upload multiple files to a resource as a pipeline: one name check for the whole batch,
+     * quota reservations, parallel disk writes on the bounded upload I/O pool, one batched insert, and preview
+     * generation handed off after commit. A rejected file does not abort the rest of the batch.
      *
      * @param resourceId Target resource ID
      * @param folderId   Target folder ID (null for root level)
      * @param files      Files to upload
-     * @return List of FileItemDTO for uploaded files
+     * @return Per-file results in request order
      */
     @Transactional
-    public List<FileItemDTO> uploadFiles(Long resourceId, Long folderId, MultipartFile[] files) throws IOException {
+    public List<UploadResultDTO> uploadFiles(Long resourceId, Long folderId, MultipartFile[] files) throws IOException {
         Resource resource = getActiveResource(resourceId);
         if (files == null || files.length == 0) {
             throw new RuntimeException("请选择要上传的文件");
         }
+        FileItem parentFolder = resolveUploadFolder(resource, folderId);
 
-        List<FileItemDTO> result = new ArrayList<>();
+        List<PendingUpload> batch = new ArrayList<>();
         for (MultipartFile file : files) {
-            if (file == null) {
+            if (file != null) {
+                batch.add(new PendingUpload(file, uploadName(file)));
+            }
+        }
+        if (batch.isEmpty()) {
+            throw new RuntimeException("未找到有效的文件");
+        }
+
+        // 1. Name validation: one query for the batch, plus duplicates within the batch itself
+        Set<String> taken = new HashSet<>(findLiveNames(resourceId, folderId,
+                batch.stream().map(upload -> upload.name).distinct().collect(Collectors.toList())));
+        for (PendingUpload upload : batch) {
+            if (!taken.add(upload.name)) {
+                upload.fail("同名文件已存在: " + upload.name);
+            }
+        }
+
+        // 2. Disk writes in parallel, bounded by the upload I/O pool
+        Path uploadPath = Paths.get(uploadDir, String.valueOf(resourceId));
+        Files.createDirectories(uploadPath);
+        List<Path> written = new ArrayList<>();
+        deleteOnRollback(written);
+        for (PendingUpload upload : batch) {
+            if (upload.failed()) {
+                continue;
+            }
+            try {
+                upload.reservation = storageQuota.reserve(resourceId, upload.file.getSize());
+            } catch (QuotaExceededException e) {
+                upload.fail(e.getMessage());
+                continue;
+            }
+            upload.storageName = UUID.randomUUID() + "_" + upload.name;
+            upload.target = uploadPath.resolve(upload.storageName);
+            upload.write = uploadExecutors.io().submit(() -> writeToDisk(upload.file, upload.target, uploadType(upload.name)));
+        }
+        for (PendingUpload upload : batch) {
+            if (upload.write == null) {
                 continue;
             }
-            result.add(uploadSingle(resource, folderId, file));
+            try {
+                upload.stored = upload.write.get();
+                written.add(upload.target);
+            } catch (ExecutionException e) {
+                log.warn("Failed to store {}: {}", upload.name, e.getCause().getMessage());
+                upload.fail("文件保存失败: " + e.getCause().getMessage());
+                upload.reservation.release();
+                deleteQuietly(upload.target);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("上传被中断");
+            }
         }
 
-        if (result.isEmpty()) {
-            throw new RuntimeException("未找到有效的文件");
+        // 3. One batched insert for every stored file
+        List<FileItem> items = new ArrayList<>();
+        for (PendingUpload upload : batch) {
+            if (!upload.failed()) {
+                upload.item = newFileItem(resource, parentFolder, upload.name, upload.storageName,
+                        upload.target, upload.stored);
+                items.add(upload.item);
+            }
         }
+        fileItemRepository.saveAll(items);
+        // Backstop for a concurrent upload of the same name between the check above and this insert
+        flushUnique("同名文件已存在（可能与其他上传冲突），请重试");
+        storageAggregates.filesAdded(resourceId, items);
+        changeFeed.added(resourceId, items);
+        log.info("Batch uploaded {}/{} files to resource {}, folder {}", items.size(), batch.size(), resourceId, folderId);
+
+        // 4. Previews are rendered in the background once the rows are committed
+        schedulePreviews(items);
+
+        return batch.stream()
+                .map(upload -> UploadResultDTO.builder()
+                        .name(upload.name)
+                        .success(!upload.failed())
+                        .message(upload.failed() ? upload.error : "上传成功")
+                        .file(upload.item == null ? null : toDTO(upload.item))
+                        .build())
+                .collect(Collectors.toList());
+    }
 
-        return result;
+    /**
+     * Mutable pipeline state for one file of a batch upload
+     */
+    private static final class PendingUpload {
+        private final MultipartFile file;
+        private final String name;
+        private String error;
+        private String storageName;
+        private Path target;
+        private Future<FileStorage.Written> write;
+        private FileStorage.Written stored;
+        private StorageQuota.Reservation reservation;
+        private FileItem item;
+
+        private PendingUpload(MultipartFile file, String name) {
+            this.file = file;
+            this.name = name;
+        }
+
+        boolean failed() {
+            return error != null;
+        }
+
+        void fail(String message) {
+            error = message;
+        }
+    }
+
+    private List<String> findLiveNames(Long resourceId, Long folderId, List<String> names) {
+        List<String> taken = new ArrayList<>();
+        for (int from = 0; from < names.size(); from += IN_CLAUSE_CHUNK) {
+            List<String> chunk = names.subList(from, Math.min(names.size(), from + IN_CLAUSE_CHUNK));
+            taken.addAll(folderId != null
+                    ? fileItemRepository.findLiveNamesInFolder(chunk, folderId, resourceId)
+                    : fileItemRepository.findLiveNamesAtRoot(chunk, resourceId));
+        }
+        return taken;
+    }
+
+    private FileStorage.Written writeToDisk(MultipartFile file, Path target, String type) throws IOException {
+        long start = System.nanoTime();
+        FileStorage.Written written;
+        try (InputStream in = file.getInputStream()) {
+            written = fileStorage.write(in, target, type);
+        }
+        metrics.recordUpload(written.size(), System.nanoTime() - start);
+        return written;
+    }
+
+    /**
+     * Remove the given (still growing) list of stored files if the surrounding transaction does not commit
+     */
+    private void deleteOnRollback(List<Path> written) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    written.forEach(FileService::deleteQuietly);
+                }
+            }
+        });
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to remove orphaned upload {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Insert one item, turning a violation of the live-name unique index into the duplicate-name error
+     */
+    private FileItem saveAndFlushUnique(FileItem item, String duplicateMessage) {
+        try {
+            return fileItemRepository.saveAndFlush(item);
+        } catch (DataIntegrityViolationException e) {
+            if (isLiveNameConflict(e)) {
+                throw new RuntimeException(duplicateMessage);
+            }
+            throw e;
+        }
+    }
+
+    private void flushUnique(String duplicateMessage) {
+        try {
+            fileItemRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            if (isLiveNameConflict(e)) {
+                throw new RuntimeException(duplicateMessage);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Both H2 and PostgreSQL name the violated index in the driver message
+     */
+    private static boolean isLiveNameConflict(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            String message = cause.getMessage();
+            if (message != null && message.toLowerCase().contains(LIVE_NAME_INDEX)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void schedulePreviews(List<FileItem> items) {
+        thumbnailService.scheduleAfterCommit(items);
+        List<Long> ids = items.stream()
+                .filter(FileService::needsPreview)
+                .map(FileItem::getId)
+                .collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                // One task for the whole upload; not the Logisim pool itself, since renderPreview awaits on it
+                uploadExecutors.submitPostProcessing(() -> ids.forEach(id -> generatePreviewInBackground(id)));
+            }
+        });
+    }
+
+    private void generatePreviewInBackground(Long fileId) {
+        fileItemRepository.findByIdAndDeletedFalse(fileId).ifPresent(item ->
+                renderPreviewFile(item).ifPresent(path -> {
+                    fileItemRepository.updatePreview(fileId, path.toString(), previewUrl(fileId));
+                    dataVersions.touch(item.getResource().getId());
+                }));
     }
 
     /**
@@ -103,8 +366,11 @@ public class FileService {
      *
      * @param fileId File ID to delete
      */
-    @Transactional
     public void deleteFile(Long fileId) {
+        optimisticRetry.run("delete-file", () -> deleteFileOnce(fileId), () -> currentTreeOf(fileId));
+    }
+
+    private void deleteFileOnce(Long fileId) {
         FileItem file = fileItemRepository.findByIdAndDeletedFalse(fileId)
                 .orElseThrow(() -> new RuntimeException("文件不存在: " + fileId));
 
@@ -130,20 +396,14 @@ public class FileService {
         file.setDeletedAt(LocalDateTime.now());
         file.setName(file.getOriginalName() + "_deleted_" + nextSequence);
 
-        // Rename physical file
-        try {
-            Path oldPath = Paths.get(file.getStoragePath());
-            if (Files.exists(oldPath)) {
-                String newFileName = oldPath.getFileName().toString() + "_deleted_" + nextSequence;
-                Path newPath = oldPath.getParent().resolve(newFileName);
-                Files.move(oldPath, newPath);
-                file.setStoragePath(newPath.toString());
-            }
-        } catch (IOException e) {
-            log.warn("Failed to rename physical file: {}", e.getMessage());
-        }
+        // Rename physical file, but only after the flush has checked the row version
+        List<PendingMove> moves = new ArrayList<>();
+        planDeletedRename(file, nextSequence, moves);
 
-        fileItemRepository.save(file);
+        fileItemRepository.saveAndFlush(file);
+        storageAggregates.removed(file, file.getSizeBytes() == null ? 0 : file.getSizeBytes(), 1);
+        changeFeed.removed(file);
+        applyMoves(moves, "删除文件失败: 无法重命名物理文件");
         log.info("File soft deleted: {} with sequence {}", file.getOriginalName(), nextSequence);
     }
 
@@ -168,15 +428,6 @@ public class FileService {
             }
         }
 
-        // Check if folder with same name exists
-        boolean exists = parentFolderId != null
-                ? fileItemRepository.existsByNameInFolder(folderName, parentFolderId, resourceId)
-                : fileItemRepository.existsByNameAtRoot(folderName, resourceId);
-
-        if (exists) {
-            throw new RuntimeException("同名文件夹已存在: " + folderName);
-        }
-
         FileItem folder = FileItem.builder()
                 .name(folderName)
                 .originalName(folderName)
@@ -186,7 +437,9 @@ public class FileService {
                 .deleted(false)
                 .build();
 
-        folder = fileItemRepository.save(folder);
+        // The unique index on live names rejects duplicates; no check-then-insert round trip
+        folder = saveAndFlushUnique(folder, "同名文件夹已存在: " + folderName);
+        changeFeed.added(resourceId, List.of(folder));
         log.info("Folder created: {} in resource {}", folderName, resourceId);
 
         return toDTO(folder);
@@ -197,8 +450,11 @@ public class FileService {
      *
      * @param folderId Folder ID to delete
      */
-    @Transactional
     public void deleteFolder(Long folderId) {
+        optimisticRetry.run("delete-folder", () -> deleteFolderOnce(folderId), () -> currentTreeOf(folderId));
+    }
+
+    private void deleteFolderOnce(Long folderId) {
         FileItem folder = fileItemRepository.findByIdAndDeletedFalse(folderId)
                 .orElseThrow(() -> new RuntimeException("文件夹不存在: " + folderId));
 
@@ -206,33 +462,74 @@ public class FileService {
             throw new RuntimeException("这是文件，请使用文件删除接口");
         }
 
-        // Recursively delete all children
-        deleteFolderRecursive(folder);
+        // Recursively delete all children, all with the same deletedAt so they are restored together
+        List<PendingMove> moves = new ArrayList<>();
+        deleteFolderRecursive(folder, LocalDateTime.now(), moves);
+        fileItemRepository.flush();
+        changeFeed.removed(folder);
+        applyMoves(moves, "删除文件夹失败: 无法重命名物理文件");
     }
 
     /**
      * Recursively soft delete folder and contents
      */
-    private void deleteFolderRecursive(FileItem folder) {
-        // First delete all children
-        List<FileItem> children = fileItemRepository.findByParentIdAndDeletedFalse(folder.getId());
-        for (FileItem child : children) {
-            if (child.isFolder()) {
-                deleteFolderRecursive(child);
-            } else {
-                softDeleteItem(child);
+    private void deleteFolderRecursive(FileItem folder, LocalDateTime deletedAt, List<PendingMove> moves) {
+        // The whole live subtree in one range scan on the materialized path
+        List<FileItem> descendants = fileItemRepository.findByAncestorPathStartingWithAndDeletedFalse(
+                folder.childPathPrefix());
+
+        // Delete sequences for every (parent, name) in the subtree from one grouped query per chunk
+        Map<String, Integer> maxSequences = loadMaxDeleteSequences(descendants);
+        for (FileItem item : descendants) {
+            String key = deleteSequenceKey(item.getParent().getId(), item.getOriginalName());
+            int nextSequence = maxSequences.getOrDefault(key, 0) + 1;
+            maxSequences.put(key, nextSequence);
+            markDeleted(item, nextSequence, deletedAt, moves);
+        }
+        // Dirty entities are flushed as JDBC batches on commit
+        fileItemRepository.saveAll(descendants);
+
+        // Ancestors lose what was live beneath this folder, counted from the rows actually deleted
+        long bytes = 0;
+        long files = 0;
+        for (FileItem item : descendants) {
+            if (!item.isFolder()) {
+                bytes += item.getSizeBytes() == null ? 0 : item.getSizeBytes();
+                files++;
             }
         }
+        storageAggregates.removed(folder, bytes, files);
 
         // Then delete the folder itself
-        softDeleteItem(folder);
-        log.info("Folder soft deleted: {}", folder.getOriginalName());
+        softDeleteItem(folder, deletedAt, moves);
+        log.info("Folder soft deleted: {} ({} descendants)", folder.getOriginalName(), descendants.size());
+    }
+
+    private Map<String, Integer> loadMaxDeleteSequences(List<FileItem> items) {
+        List<Long> parentIds = items.stream()
+                .map(item -> item.getParent().getId())
+                .distinct()
+                .collect(Collectors.toList());
+        Map<String, Integer> result = new HashMap<>();
+        for (int from = 0; from < parentIds.size(); from += IN_CLAUSE_CHUNK) {
+            List<Long> chunk = parentIds.subList(from, Math.min(parentIds.size(), from + IN_CLAUSE_CHUNK));
+            for (Object[] row : fileItemRepository.findMaxDeleteSequencesInFolders(chunk)) {
+                if (row[2] != null) {
+                    result.put(deleteSequenceKey((Long) row[0], (String) row[1]), ((Number) row[2]).intValue());
+                }
+            }
+        }
+        return result;
+    }
+
+    private static String deleteSequenceKey(Long parentId, String originalName) {
+        return parentId + "/" + originalName;
     }
 
     /**
      * Common soft delete logic for both files and folders
      */
-    private void softDeleteItem(FileItem item) {
+    private void softDeleteItem(FileItem item, LocalDateTime deletedAt, List<PendingMove> moves) {
         Integer maxSequence;
         if (item.getParent() != null) {
             maxSequence = fileItemRepository.findMaxDeleteSequenceByNameInFolder(
@@ -242,103 +539,667 @@ public class FileService {
                     item.getOriginalName(), item.getResource().getId());
         }
 
-        int nextSequence = (maxSequence == null ? 0 : maxSequence) + 1;
+        markDeleted(item, (maxSequence == null ? 0 : maxSequence) + 1, deletedAt, moves);
+        fileItemRepository.save(item);
+        if (!item.isFolder()) {
+            storageAggregates.removed(item, item.getSizeBytes() == null ? 0 : item.getSizeBytes(), 1);
+        }
+    }
 
+    /**
+     * Mark an item deleted with the given sequence and plan the rename of its physical file (no flush)
+     */
+    private void markDeleted(FileItem item, int nextSequence, LocalDateTime deletedAt, List<PendingMove> moves) {
         item.setDeleted(true);
         item.setDeleteSequence(nextSequence);
-        item.setDeletedAt(LocalDateTime.now());
+        item.setDeletedAt(deletedAt);
         item.setName(item.getOriginalName() + "_deleted_" + nextSequence);
 
         // Rename physical file if it's a file
-        if (!item.isFolder() && item.getStoragePath() != null) {
-            try {
-                Path oldPath = Paths.get(item.getStoragePath());
-                if (Files.exists(oldPath)) {
-                    String newFileName = oldPath.getFileName().toString() + "_deleted_" + nextSequence;
-                    Path newPath = oldPath.getParent().resolve(newFileName);
-                    Files.move(oldPath, newPath);
-                    item.setStoragePath(newPath.toString());
+        if (!item.isFolder()) {
+            planDeletedRename(item, nextSequence, moves);
+
+            // Drop preview reference for deleted files
+            item.setPreviewPath(null);
+            item.setPreviewUrl(null);
+        }
+    }
+
+    private void planDeletedRename(FileItem item, int nextSequence, List<PendingMove> moves) {
+        if (item.getStoragePath() == null) {
+            return;
+        }
+        Path oldPath = Paths.get(item.getStoragePath());
+        if (Files.exists(oldPath)) {
+            Path newPath = oldPath.getParent().resolve(oldPath.getFileName().toString() + "_deleted_" + nextSequence);
+            moves.add(new PendingMove(oldPath, newPath));
+            item.setStoragePath(newPath.toString());
+        }
+    }
+
+    /**
+     * A physical rename that is applied only after the owning rows were flushed
+     */
+    private record PendingMove(Path from, Path to) {
+    }
+
+    /**
+     * Move physical files once the flush has checked row versions (and holds the row locks), so a writer
+     * that loses a concurrent update never touches the disk. Moves are undone if the transaction still rolls back.
+     */
+    private void applyMoves(List<PendingMove> moves, String failureMessage) {
+        if (moves.isEmpty()) {
+            return;
+        }
+        List<PendingMove> done = new ArrayList<>();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    return;
+                }
+                for (PendingMove move : done) {
+                    try {
+                        Files.move(move.to(), move.from(), StandardCopyOption.REPLACE_EXISTING);
+                    } catch (IOException e) {
+                        log.warn("Failed to restore {} after rollback: {}", move.from(), e.getMessage());
+                    }
                 }
+            }
+        });
+        for (PendingMove move : moves) {
+            try {
+                Files.move(move.from(), move.to(), StandardCopyOption.REPLACE_EXISTING);
+                done.add(move);
             } catch (IOException e) {
                 log.warn("Failed to rename physical file: {}", e.getMessage());
+                throw new RuntimeException(failureMessage);
             }
+        }
+    }
 
-            // Drop preview reference for deleted files
-            item.setPreviewPath(null);
-            item.setPreviewUrl(null);
+    /**
+     * Deleted items of a resource that can still be restored, newest first, whether still in file_items
+     * or already moved to the archive
+     */
+    @Transactional(readOnly = true)
+    public List<TrashItemDTO> getTrash(Long resourceId) {
+        getActiveResource(resourceId);
+        List<TrashItemDTO> trash = fileItemRepository.findTrashEntries(resourceId).stream()
+                .map(this::toTrashDTO)
+                .collect(Collectors.toList());
+        List<ArchivedFileItem> archived = archivedFileItemRepository.findTrashEntries(resourceId);
+        if (archived.isEmpty()) {
+            return trash;
+        }
+        List<Long> parentIds = archived.stream()
+                .map(ArchivedFileItem::getParentId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        Set<Long> liveParents = new HashSet<>();
+        for (int from = 0; from < parentIds.size(); from += IN_CLAUSE_CHUNK) {
+            liveParents.addAll(fileItemRepository.findLiveIds(
+                    parentIds.subList(from, Math.min(parentIds.size(), from + IN_CLAUSE_CHUNK))));
         }
+        for (ArchivedFileItem item : archived) {
+            trash.add(toTrashDTO(item, item.getParentId() == null || liveParents.contains(item.getParentId())));
+        }
+        trash.sort(Comparator.comparing(TrashItemDTO::getDeletedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+                .thenComparing(TrashItemDTO::getId));
+        return trash;
+    }
 
-        fileItemRepository.save(item);
+    /**
+     * Bring a deleted file or folder back to where it was; a folder returns with everything that was
+     * deleted along with it (items deleted on their own before it stay in the trash)
+     *
+     * @param fileId ID of a trash entry
+     * @return the restored item
+     */
+    public FileItemDTO restore(Long fileId) {
+        return optimisticRetry.execute("restore-item", () -> restoreOnce(fileId), () -> currentTreeOf(fileId));
     }
 
-    private FileItemDTO uploadSingle(Resource resource, Long folderId, MultipartFile file) throws IOException {
-        if (file == null) {
-            throw new RuntimeException("文件为空，无法上传");
+    private FileItemDTO restoreOnce(Long fileId) {
+        FileItem item = fileItemRepository.findByIdAndDeletedTrue(fileId)
+                .or(() -> unarchive(fileId))
+                .orElseThrow(() -> new RuntimeException("回收站中不存在该项目（可能已被清理）: " + fileId));
+        Resource resource = getActiveResource(item.getResource().getId());
+        if (item.getParent() != null && item.getParent().isDeleted()) {
+            throw new RuntimeException("原所在文件夹已被删除，请先恢复文件夹: " + item.getParent().getOriginalName());
         }
 
-        FileItem parentFolder = null;
-        if (folderId != null) {
-            parentFolder = fileItemRepository.findByIdAndDeletedFalse(folderId)
-                    .orElseThrow(() -> new RuntimeException("文件夹不存在: " + folderId));
-            if (!parentFolder.isFolder()) {
-                throw new RuntimeException("目标不是文件夹");
+        List<FileItem> restored = new ArrayList<>();
+        restored.add(item);
+        if (item.isFolder()) {
+            // The archiver moves a deletion deepest first, so its contents may already be archived
+            List<ArchivedFileItem> archivedContents = archivedFileItemRepository
+                    .findByAncestorPathStartingWithAndDeletedAtAndPurgedAtIsNull(item.childPathPrefix(), item.getDeletedAt());
+            if (!archivedContents.isEmpty()) {
+                moveBackFromArchive(archivedContents);
             }
-            if (!parentFolder.getResource().getId().equals(resource.getId())) {
-                throw new RuntimeException("目标文件夹不属于该资源");
+            restored.addAll(fileItemRepository.findByAncestorPathStartingWithAndDeletedTrueAndDeletedAt(
+                    item.childPathPrefix(), item.getDeletedAt()));
+        }
+        // Folders before their contents, as the change feed expects
+        restored.sort(Comparator.comparingInt((FileItem restoredItem) -> restoredItem.ancestorIds().size()));
+
+        List<PendingMove> moves = new ArrayList<>();
+        List<FileItem> files = new ArrayList<>();
+        long bytes = 0;
+        for (FileItem restoredItem : restored) {
+            planRestoredRename(restoredItem, moves);
+            restoredItem.setDeleted(false);
+            restoredItem.setDeleteSequence(null);
+            restoredItem.setDeletedAt(null);
+            restoredItem.setName(restoredItem.getOriginalName());
+            if (!restoredItem.isFolder()) {
+                files.add(restoredItem);
+                bytes += restoredItem.getSizeBytes() == null ? 0 : restoredItem.getSizeBytes();
             }
         }
+        fileItemRepository.saveAll(restored);
+        // Only the restored item itself can clash: its contents were unique among themselves when deleted
+        flushUnique((item.isFolder() ? "同名文件夹已存在: " : "同名文件已存在: ") + item.getOriginalName());
+
+        // Folders inside kept their totals when deleted, so only the ancestors gain what comes back
+        storageAggregates.restored(item, bytes, files.size());
+        changeFeed.added(resource.getId(), restored);
+        applyMoves(moves, "恢复失败: 无法还原物理文件");
+        schedulePreviews(files);
+        log.info("Restored {} from trash ({} items)", item.getOriginalName(), restored.size());
+        return toDTO(item);
+    }
 
-        String originalFilename = file.getOriginalFilename();
-        if (originalFilename == null || originalFilename.isEmpty()) {
-            originalFilename = "unnamed_file";
+    /**
+     * Move an archived trash entry and everything archived along with it back into file_items as soft-deleted
+     * rows, re-rooting their materialized paths if a folder above was moved meanwhile. Empty when the item is
+     * not in the archive either, or its retention ran out.
+     */
+    private Optional<FileItem> unarchive(Long fileId) {
+        LocalDateTime cutoff = LocalDateTime.now().minus(trashProperties.getRetention());
+        ArchivedFileItem archived = archivedFileItemRepository.findByIdAndPurgedAtIsNull(fileId)
+                .filter(row -> row.getDeletedAt() != null && row.getDeletedAt().isAfter(cutoff))
+                .orElse(null);
+        if (archived == null) {
+            return Optional.empty();
+        }
+        getActiveResource(archived.getResourceId());
+        FileItem parent = null;
+        if (archived.getParentId() != null) {
+            parent = fileItemRepository.findById(archived.getParentId())
+                    .filter(folder -> !folder.isDeleted())
+                    .orElseThrow(() -> new RuntimeException("原所在文件夹已被删除，请先恢复文件夹"));
         }
 
-        Long resourceId = resource.getId();
+        List<ArchivedFileItem> rows = new ArrayList<>();
+        rows.add(archived);
+        if (archived.isFolder()) {
+            rows.addAll(archivedFileItemRepository.findByAncestorPathStartingWithAndDeletedAtAndPurgedAtIsNull(
+                    archived.childPathPrefix(), archived.getDeletedAt()));
+        }
+        moveBackFromArchive(rows);
 
-        // Check if file with same name exists (non-deleted)
-        boolean exists = folderId != null
-                ? fileItemRepository.existsByNameInFolder(originalFilename, folderId, resourceId)
-                : fileItemRepository.existsByNameAtRoot(originalFilename, resourceId);
+        String ancestorPath = parent == null ? "/" : parent.childPathPrefix();
+        String archivedPath = archived.getAncestorPath();
+        if (archivedPath != null && !archivedPath.equals(ancestorPath)) {
+            // Only the rows just brought back still carry the old prefix; everything in file_items was re-rooted
+            fileItemRepository.rewriteAncestorPaths(archivedPath, ancestorPath, archivedPath.length() + 1);
+        }
+        log.info("Moved {} back from the archive ({} items)", archived.getOriginalName(), rows.size());
+        return fileItemRepository.findByIdAndDeletedTrue(fileId);
+    }
 
-        if (exists) {
-            throw new RuntimeException("同名文件已存在: " + originalFilename);
+    /**
+     * Copy archived rows back into file_items and drop them from the archive, folders before their
+     * contents so every parent_id already points at a row in file_items
+     */
+    private void moveBackFromArchive(List<ArchivedFileItem> rows) {
+        Map<Integer, List<Long>> byDepth = new TreeMap<>();
+        for (ArchivedFileItem row : rows) {
+            byDepth.computeIfAbsent(row.ancestorIds().size(), depth -> new ArrayList<>()).add(row.getId());
+        }
+        for (List<Long> level : byDepth.values()) {
+            for (int from = 0; from < level.size(); from += IN_CLAUSE_CHUNK) {
+                List<Long> chunk = level.subList(from, Math.min(level.size(), from + IN_CLAUSE_CHUNK));
+                archivedFileItemRepository.unarchive(chunk);
+                archivedFileItemRepository.deleteByIds(chunk);
+            }
         }
+    }
 
-        // Extract file extension
-        String extension = "";
-        int lastDot = originalFilename.lastIndexOf('.');
-        if (lastDot > 0) {
-            extension = originalFilename.substring(lastDot + 1).toLowerCase();
+    /**
+     * Plan moving a file's physical copy back from its {@code _deleted_N} name
+     */
+    private void planRestoredRename(FileItem item, List<PendingMove> moves) {
+        String suffix = "_deleted_" + item.getDeleteSequence();
+        if (item.isFolder() || item.getStoragePath() == null || !item.getStoragePath().endsWith(suffix)) {
+            return;
+        }
+        Path deletedPath = Paths.get(item.getStoragePath());
+        Path originalPath = Paths.get(item.getStoragePath().substring(0, item.getStoragePath().length() - suffix.length()));
+        if (Files.exists(originalPath)) {
+            throw new RuntimeException("恢复失败: 原物理文件位置已被占用: " + item.getOriginalName());
+        }
+        moves.add(new PendingMove(deletedPath, originalPath));
+        item.setStoragePath(originalPath.toString());
+    }
+
+    private TrashItemDTO toTrashDTO(FileItem item) {
+        FileItem parent = item.getParent();
+        return TrashItemDTO.builder()
+                .id(item.getId())
+                .name(item.getOriginalName())
+                .isFolder(item.isFolder())
+                .type(item.getType())
+                .size(item.getSize())
+                .totalBytes(item.isFolder() ? item.getTotalBytes() : item.getSizeBytes())
+                .fileCount(item.isFolder() ? item.getFileCount() : null)
+                .parentId(parent == null ? null : parent.getId())
+                .restorable(parent == null || !parent.isDeleted())
+                .deletedAt(item.getDeletedAt())
+                .expiresAt(item.getDeletedAt() == null ? null : item.getDeletedAt().plus(trashProperties.getRetention()))
+                .build();
+    }
+
+    private TrashItemDTO toTrashDTO(ArchivedFileItem item, boolean restorable) {
+        return TrashItemDTO.builder()
+                .id(item.getId())
+                .name(item.getOriginalName())
+                .isFolder(item.isFolder())
+                .type(item.getType())
+                .size(item.getSize())
+                .totalBytes(item.isFolder() ? item.getTotalBytes() : item.getSizeBytes())
+                .fileCount(item.isFolder() ? item.getFileCount() : null)
+                .parentId(item.getParentId())
+                .restorable(restorable)
+                .deletedAt(item.getDeletedAt())
+                .expiresAt(item.getDeletedAt() == null ? null : item.getDeletedAt().plus(trashProperties.getRetention()))
+                .build();
+    }
+
+    /**
+     * Current tree of the resource an item belongs to, returned with 409 responses
+     */
+    private List<FileItemDTO> currentTreeOf(Long fileId) {
+        return fileItemRepository.findById(fileId)
+                .map(item -> getResourceFiles(item.getResource().getId()))
+                .orElse(List.of());
+    }
+
+    /**
+     * Extract a ZIP archive into a folder tree under the target folder, streaming each entry straight to storage.
+     * Directories that already exist are merged; files clashing with existing names are skipped and reported.
+     * Exceeding the archive limits aborts the upload and removes everything extracted so far.
+     *
+     * @param resourceId Target resource ID
+     * @param folderId   Target folder ID (null for root level)
+     * @param archive    The uploaded ZIP
+     * @param charset    Charset of entry names (null for UTF-8; archives made on Chinese Windows usually need GBK)
+     * @return Per-file results in archive order
+     */
+    @Transactional
+    public List<UploadResultDTO> uploadZip(Long resourceId, Long folderId, MultipartFile archive, String charset)
+            throws IOException {
+        Resource resource = getActiveResource(resourceId);
+        if (archive == null || archive.isEmpty()) {
+            throw new RuntimeException("请选择要上传的压缩包");
+        }
+        FileItem targetFolder = resolveUploadFolder(resource, folderId);
+        Charset nameCharset;
+        try {
+            nameCharset = charset == null || charset.isBlank() ? StandardCharsets.UTF_8 : Charset.forName(charset);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("不支持的字符集: " + charset);
+        }
+
+        Path uploadPath = Paths.get(uploadDir, String.valueOf(resourceId));
+        Files.createDirectories(uploadPath);
+        List<Path> written = new ArrayList<>();
+        deleteOnRollback(written);
+
+        ZipTarget tree = new ZipTarget(resource, targetFolder);
+        List<FileItem> files = new ArrayList<>();
+        List<ZipOutcome> outcomes = new ArrayList<>();
+        long start = System.nanoTime();
+
+        try (CountingInputStream raw = new CountingInputStream(archive.getInputStream());
+             ZipInputStream zip = new ZipInputStream(raw, nameCharset)) {
+            ZipGuard guard = new ZipGuard(zipUploadProperties, raw, storageQuota.reserve(resourceId, 0));
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                guard.onEntry();
+                String path = normalizeEntryPath(entry.getName());
+                if (path == null) {
+                    continue;
+                }
+                if (entry.isDirectory()) {
+                    tree.ensureFolder(path);
+                    continue;
+                }
+
+                int slash = path.lastIndexOf('/');
+                String dir = slash < 0 ? "" : path.substring(0, slash);
+                String name = path.substring(slash + 1);
+                if (!tree.ensureFolder(dir) || tree.children.get(dir).containsKey(name)) {
+                    outcomes.add(new ZipOutcome(path, null));
+                    continue;
+                }
+
+                String storageName = UUID.randomUUID() + "_" + name;
+                Path filePath = uploadPath.resolve(storageName);
+                written.add(filePath);
+                FileStorage.Written stored = fileStorage.write(new GuardedEntryStream(zip, guard), filePath, uploadType(name));
+
+                FileItem item = newFileItem(resource, tree.folders.get(dir), name, storageName, filePath, stored);
+                tree.children.get(dir).put(name, item);
+                files.add(item);
+                outcomes.add(new ZipOutcome(path, item));
+            }
+        } catch (ZipException e) {
+            throw new RuntimeException("压缩包格式错误: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            // ZipInputStream rejects entry names that are not valid in the chosen charset
+            throw new RuntimeException("压缩包文件名编码无法识别，请通过 charset 参数指定（如 GBK）");
+        }
+
+        // Folders were created parent-first, so one batched insert satisfies the parent references
+        List<FileItem> items = new ArrayList<>(tree.created);
+        items.addAll(files);
+        fileItemRepository.saveAll(items);
+        flushUnique("同名文件已存在（可能与其他上传冲突），请重试");
+        storageAggregates.filesAdded(resourceId, files);
+        changeFeed.added(resourceId, items);
+        metrics.recordUpload(archive.getSize(), System.nanoTime() - start);
+        log.info("ZIP extracted into resource {}, folder {}: {} folders, {} files",
+                resourceId, folderId, tree.created.size(), files.size());
+
+        schedulePreviews(files);
+
+        return outcomes.stream()
+                .map(outcome -> UploadResultDTO.builder()
+                        .name(outcome.path())
+                        .success(outcome.item() != null)
+                        .message(outcome.item() != null ? "上传成功" : "同名文件已存在: " + outcome.path())
+                        .file(outcome.item() == null ? null : toDTO(outcome.item()))
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private record ZipOutcome(String path, FileItem item) {
+    }
+
+    /**
+     * Normalize a ZIP entry name to a relative "a/b/c" path; null for entries to ignore
+     * (OS metadata, or names that would escape the target folder)
+     */
+    private static String normalizeEntryPath(String entryName) {
+        List<String> segments = new ArrayList<>();
+        for (String segment : entryName.replace('\\', '/').split("/")) {
+            if (segment.isEmpty() || ".".equals(segment)) {
+                continue;
+            }
+            if ("..".equals(segment) || "__MACOSX".equals(segment) || ".DS_Store".equals(segment)) {
+                return null;
+            }
+            segments.add(segment);
+        }
+        return segments.isEmpty() ? null : String.join("/", segments);
+    }
+
+    /**
+     * Folder tree being built from an archive, keyed by relative directory path ("" is the target folder,
+     * which is null at root level). Existing folders are merged; their live children are loaded on first use.
+     */
+    private final class ZipTarget {
+        private final Resource resource;
+        private final Map<String, FileItem> folders = new HashMap<>();
+        private final Map<String, Map<String, FileItem>> children = new HashMap<>();
+        private final Set<String> blocked = new HashSet<>();
+        private final List<FileItem> created = new ArrayList<>();
+
+        private ZipTarget(Resource resource, FileItem root) {
+            this.resource = resource;
+            folders.put("", root);
+            children.put("", liveChildrenByName(root));
+        }
+
+        /**
+         * Make sure the directory exists, creating missing levels; false when a file already holds one of its names
+         */
+        boolean ensureFolder(String dir) {
+            if (folders.containsKey(dir)) {
+                return true;
+            }
+            if (blocked.contains(dir)) {
+                return false;
+            }
+            int slash = dir.lastIndexOf('/');
+            String parentDir = slash < 0 ? "" : dir.substring(0, slash);
+            String name = dir.substring(slash + 1);
+            if (!ensureFolder(parentDir)) {
+                blocked.add(dir);
+                return false;
+            }
+
+            Map<String, FileItem> siblings = children.get(parentDir);
+            FileItem folder = siblings.get(name);
+            if (folder != null && !folder.isFolder()) {
+                blocked.add(dir);
+                return false;
+            }
+            if (folder == null) {
+                folder = FileItem.builder()
+                        .name(name)
+                        .originalName(name)
+                        .isFolder(true)
+                        .resource(resource)
+                        .parent(folders.get(parentDir))
+                        .deleted(false)
+                        .build();
+                created.add(folder);
+                siblings.put(name, folder);
+                children.put(dir, new HashMap<>());
+            } else {
+                children.put(dir, liveChildrenByName(folder));
+            }
+            folders.put(dir, folder);
+            return true;
+        }
+
+        private Map<String, FileItem> liveChildrenByName(FileItem folder) {
+            List<FileItem> items = folder == null
+                    ? fileItemRepository.findByResourceIdAndParentIsNullAndDeletedFalse(resource.getId())
+                    : fileItemRepository.findByParentIdAndDeletedFalse(folder.getId());
+            Map<String, FileItem> byName = new HashMap<>();
+            items.forEach(item -> byName.put(item.getOriginalName(), item));
+            return byName;
+        }
+    }
+
+    /**
+     * Zip-bomb guard: entry count, per-entry size, total size and expansion ratio against the raw bytes read;
+     * also grows the upload's quota reservation as bytes are extracted
+     */
+    private static final class ZipGuard {
+        private static final long RATIO_CHECK_THRESHOLD = 1024 * 1024;
+
+        private final ZipUploadProperties limits;
+        private final CountingInputStream raw;
+        private final StorageQuota.Reservation reservation;
+        private int entries;
+        private long totalBytes;
+
+        private ZipGuard(ZipUploadProperties limits, CountingInputStream raw, StorageQuota.Reservation reservation) {
+            this.limits = limits;
+            this.raw = raw;
+            this.reservation = reservation;
+        }
+
+        void onEntry() {
+            if (++entries > limits.getMaxEntries()) {
+                throw new RuntimeException("压缩包条目过多，最多 " + limits.getMaxEntries() + " 个");
+            }
+        }
+
+        void onBytes(int read, long entryBytes) {
+            totalBytes += read;
+            if (entryBytes > limits.getMaxEntryBytes()) {
+                throw new RuntimeException("压缩包内单个文件过大，上限 " + formatFileSize(limits.getMaxEntryBytes()));
+            }
+            if (totalBytes > limits.getMaxTotalBytes()) {
+                throw new RuntimeException("压缩包解压后过大，上限 " + formatFileSize(limits.getMaxTotalBytes()));
+            }
+            if (totalBytes > RATIO_CHECK_THRESHOLD
+                    && totalBytes > (long) limits.getMaxCompressionRatio() * Math.max(1, raw.count)) {
+                throw new RuntimeException("压缩包压缩比异常，疑似压缩炸弹");
+            }
+            // Extracted size is unknown up front, so quota is reserved chunk by chunk ahead of each write
+            reservation.grow(read);
+        }
+    }
+
+    /**
+     * The current archive entry, checked by the guard as it is read; close() leaves the archive open
+     */
+    private static final class GuardedEntryStream extends FilterInputStream {
+        private final ZipGuard guard;
+        private long entryBytes;
+
+        private GuardedEntryStream(ZipInputStream zip, ZipGuard guard) {
+            super(zip);
+            this.guard = guard;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                guard.onBytes(1, ++entryBytes);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                entryBytes += read;
+                guard.onBytes(read, entryBytes);
+            }
+            return read;
+        }
+
+        @Override
+        public void close() {
+            // The next entry is read from the same stream
+        }
+    }
+
+    /**
+     * Counts bytes pulled from the uploaded archive so the expansion ratio can be checked while streaming
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+
+    private FileItemDTO uploadSingle(Resource resource, Long folderId, MultipartFile file) throws IOException {
+        if (file == null) {
+            throw new RuntimeException("文件为空，无法上传");
         }
 
-        // Save file to disk
+        FileItem parentFolder = resolveUploadFolder(resource, folderId);
+        String originalFilename = uploadName(file);
+        Long resourceId = resource.getId();
+
+        // Save file to disk; a duplicate name is rejected by the unique index and the file removed on rollback
         String storageName = UUID.randomUUID() + "_" + originalFilename;
         Path uploadPath = Paths.get(uploadDir, String.valueOf(resourceId));
         Files.createDirectories(uploadPath);
         Path filePath = uploadPath.resolve(storageName);
-        Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+        storageQuota.reserve(resourceId, file.getSize());
+        deleteOnRollback(List.of(filePath));
+        FileStorage.Written stored = writeToDisk(file, filePath, uploadType(originalFilename));
+
+        FileItem fileItem = saveAndFlushUnique(
+                newFileItem(resource, parentFolder, originalFilename, storageName, filePath, stored),
+                "同名文件已存在: " + originalFilename);
+        storageAggregates.filesAdded(resourceId, List.of(fileItem));
+        changeFeed.added(resourceId, List.of(fileItem));
+        log.info("File uploaded: {} to resource {}, folder {}", originalFilename, resourceId, folderId);
+
+        generatePreviewIfNeeded(fileItem);
+        thumbnailService.scheduleAfterCommit(List.of(fileItem));
 
-        // Create FileItem entity
-        FileItem fileItem = FileItem.builder()
+        return toDTO(fileItem);
+    }
+
+    private FileItem resolveUploadFolder(Resource resource, Long folderId) {
+        if (folderId == null) {
+            return null;
+        }
+        FileItem parentFolder = fileItemRepository.findByIdAndDeletedFalse(folderId)
+                .orElseThrow(() -> new RuntimeException("文件夹不存在: " + folderId));
+        if (!parentFolder.isFolder()) {
+            throw new RuntimeException("目标不是文件夹");
+        }
+        if (!parentFolder.getResource().getId().equals(resource.getId())) {
+            throw new RuntimeException("目标文件夹不属于该资源");
+        }
+        return parentFolder;
+    }
+
+    private static String uploadName(MultipartFile file) {
+        String originalFilename = file.getOriginalFilename();
+        return originalFilename == null || originalFilename.isEmpty() ? "unnamed_file" : originalFilename;
+    }
+
+    private FileItem newFileItem(Resource resource, FileItem parentFolder, String originalFilename,
+                                 String storageName, Path filePath, FileStorage.Written stored) {
+        return FileItem.builder()
                 .name(originalFilename)
                 .originalName(originalFilename)
                 .isFolder(false)
-                .type(extension)
-                .size(formatFileSize(file.getSize()))
-                .sizeBytes(file.getSize())
-                .url("/api/files/" + resourceId + "/download/" + storageName)
+                .type(uploadType(originalFilename))
+                .size(formatFileSize(stored.size()))
+                .sizeBytes(stored.size())
+                .url("/api/files/" + resource.getId() + "/download/" + storageName)
                 .storagePath(filePath.toString())
+                .storageEncoding(stored.encoding())
                 .resource(resource)
                 .parent(parentFolder)
                 .deleted(false)
                 .build();
-
-        fileItem = fileItemRepository.save(fileItem);
-        log.info("File uploaded: {} to resource {}, folder {}", originalFilename, resourceId, folderId);
-
-        generatePreviewIfNeeded(fileItem);
-
-        return toDTO(fileItem);
     }
 
     /**
@@ -348,8 +1209,11 @@ public class FileService {
      * @param dropId   The ID of the target item
      * @param position The drop position: "before", "after", or "inside" (for folders)
      */
-    @Transactional
     public void reorder(Long dragId, Long dropId, String position) {
+        optimisticRetry.run("reorder", () -> reorderOnce(dragId, dropId, position), () -> currentTreeOf(dropId));
+    }
+
+    private void reorderOnce(Long dragId, Long dropId, String position) {
         FileItem dragItem = fileItemRepository.findByIdAndDeletedFalse(dragId)
                 .orElseThrow(() -> new RuntimeException("拖拽项不存在: " + dragId));
         FileItem dropItem = fileItemRepository.findByIdAndDeletedFalse(dropId)
@@ -381,9 +1245,23 @@ public class FileService {
             }
         }
 
+        // A folder cannot become its own ancestor
+        if (newParent != null && (newParent.getId().equals(dragId) || newParent.isDescendantOf(dragItem))) {
+            throw new RuntimeException("不能将文件夹移动到其自身或子文件夹中");
+        }
+
         // Remove dragItem from siblings if it's in the same list
         siblings.removeIf(item -> item.getId().equals(dragId));
 
+        // Moving to another folder must not create a duplicate live name: clashes with the siblings loaded
+        // here fail early, one created concurrently is caught by the unique index when the move is flushed
+        boolean sameParent = newParent == null
+                ? dragItem.getParent() == null
+                : dragItem.getParent() != null && dragItem.getParent().getId().equals(newParent.getId());
+        if (!sameParent && siblings.stream().anyMatch(item -> item.getOriginalName().equals(dragItem.getOriginalName()))) {
+            throw new RuntimeException("目标位置已存在同名文件或文件夹: " + dragItem.getOriginalName());
+        }
+
         // Find insert position
         int insertIndex;
         if ("inside".equals(position)) {
@@ -406,26 +1284,61 @@ public class FileService {
         // Insert dragItem at the new position
         siblings.add(insertIndex, dragItem);
 
-        // Update parent
-        dragItem.setParent(newParent);
+        // Update parent, and re-root the materialized paths of everything beneath a moved folder
+        if (!sameParent) {
+            String oldPrefix = dragItem.childPathPrefix();
+            String oldAncestorPath = dragItem.getAncestorPath();
+            dragItem.setParent(newParent);
+            dragItem.setAncestorPath(newParent == null ? "/" : newParent.childPathPrefix());
+            long[] totals = StorageAggregates.totalsOf(dragItem);
+            storageAggregates.moved(oldAncestorPath, dragItem.getAncestorPath(), totals[0], totals[1]);
+            if (dragItem.isFolder()) {
+                String newPrefix = dragItem.childPathPrefix();
+                int moved = fileItemRepository.rewriteAncestorPaths(oldPrefix, newPrefix, oldPrefix.length() + 1);
+                log.debug("Rewrote ancestor paths of {} descendants of {}", moved, dragId);
+            }
+        }
 
         // Update display orders
         for (int i = 0; i < siblings.size(); i++) {
             siblings.get(i).setDisplayOrder(i);
             fileItemRepository.save(siblings.get(i));
         }
+        if (!sameParent) {
+            flushUnique("目标位置已存在同名文件或文件夹: " + dragItem.getOriginalName());
+        }
+        changeFeed.moved(dragItem, insertIndex);
 
         log.info("Reordered item {} to {} relative to {}", dragId, position, dropId);
     }
 
     /**
-     * Get all files/folders for a resource (root level, non-deleted)
+     * The live file tree of a resource, read in one projection query
      */
+    @Transactional(readOnly = true)
     public List<FileItemDTO> getResourceFiles(Long resourceId) {
         getActiveResource(resourceId);
-        List<FileItem> files = fileItemRepository.findByResourceIdAndParentIsNullAndDeletedFalseOrderByDisplayOrder(resourceId);
-        return files.stream()
-                .map(this::toDTOWithChildren)
+        long start = System.nanoTime();
+        List<Object[]> rows = fileItemRepository.findTreeNodeRows(resourceId);
+        List<FileItemDTO> tree = TreeJsonWriter.toDTOs(rows);
+        metrics.recordTreeBuild(rows.size(), System.nanoTime() - start);
+        return tree;
+    }
+
+    /**
+     * Breadcrumb for an item: its ancestor folders from the root down, read by primary key from the materialized path
+     */
+    @Transactional(readOnly = true)
+    public List<FileItemDTO> getAncestors(Long fileId) {
+        FileItem item = fileItemRepository.findByIdAndDeletedFalse(fileId)
+                .orElseThrow(() -> new RuntimeException("文件不存在: " + fileId));
+        List<Long> ids = item.ancestorIds();
+        Map<Long, FileItem> byId = fileItemRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(FileItem::getId, ancestor -> ancestor));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(FileService::toDTO)
                 .collect(Collectors.toList());
     }
 
@@ -435,13 +1348,17 @@ public class FileService {
     @Transactional
     public void softDeleteResourceFiles(Resource resource) {
         List<FileItem> roots = fileItemRepository.findByResourceIdAndParentIsNullAndDeletedFalse(resource.getId());
+        List<PendingMove> moves = new ArrayList<>();
+        LocalDateTime deletedAt = LocalDateTime.now();
         for (FileItem item : roots) {
             if (item.isFolder()) {
-                deleteFolderRecursive(item);
+                deleteFolderRecursive(item, deletedAt, moves);
             } else {
-                softDeleteItem(item);
+                softDeleteItem(item, deletedAt, moves);
             }
         }
+        fileItemRepository.flush();
+        applyMoves(moves, "删除资源失败: 无法重命名物理文件");
         log.info("Soft deleted all files for resource {}", resource.getId());
     }
 
@@ -452,6 +1369,17 @@ public class FileService {
         return Paths.get(uploadDir, String.valueOf(resourceId), filename);
     }
 
+    /**
+     * Stored file behind a download URL, with its on-disk encoding (raw when no row references the path)
+     */
+    @Transactional(readOnly = true)
+    public StoredFile getStoredFile(Long resourceId, String filename) {
+        Path path = getFilePath(resourceId, filename);
+        return fileItemRepository.findFirstByStoragePath(path.toString())
+                .map(item -> new StoredFile(path, item.getStorageEncoding(), item.getSizeBytes()))
+                .orElseGet(() -> new StoredFile(path, null));
+    }
+
     /**
      * Locate preview path for a given file. If preview is missing and file is .circ, try to generate on demand.
      */
@@ -493,42 +1421,62 @@ public class FileService {
      * Generate a preview for .circ files and persist the preview path/url.
      */
     private void generatePreviewIfNeeded(FileItem fileItem) {
-        if (fileItem == null || fileItem.isFolder()) {
+        if (!needsPreview(fileItem)) {
             return;
         }
+        renderPreviewFile(fileItem).ifPresent(path -> {
+            fileItem.setPreviewPath(path.toString());
+            fileItem.setPreviewUrl(previewUrl(fileItem.getId()));
+            fileItemRepository.save(fileItem);
+        });
+    }
 
-        if (fileItem.getType() == null || !"circ".equalsIgnoreCase(fileItem.getType())) {
-            return;
+    private static boolean needsPreview(FileItem fileItem) {
+        return fileItem != null && !fileItem.isFolder() && "circ".equalsIgnoreCase(fileItem.getType());
+    }
+
+    private static String previewUrl(Long fileId) {
+        return "/api/files/" + fileId + "/preview";
+    }
+
+    /**
+     * Render the Logisim preview next to the stored circuit; empty when the source is missing or rendering fails
+     */
+    private Optional<Path> renderPreviewFile(FileItem fileItem) {
+        if (!needsPreview(fileItem)) {
+            return Optional.empty();
         }
 
         if (fileItem.getStoragePath() == null || fileItem.getStoragePath().isBlank()) {
             log.warn("Cannot render preview for file {}: storage path is empty", fileItem.getId());
-            return;
+            return Optional.empty();
         }
 
         try {
-            Path source = Paths.get(fileItem.getStoragePath());
-            if (!Files.exists(source)) {
+            StoredFile stored = fileStorage.file(fileItem.getStoragePath(), fileItem.getStorageEncoding());
+            Path source = stored.path();
+            if (!stored.exists()) {
                 log.warn("Cannot render preview for file {}: source not found {}", fileItem.getId(), source);
-                return;
+                return Optional.empty();
             }
 
-            String format = (logisimProperties.getOutputFormat() == null || logisimProperties.getOutputFormat().isBlank())
-                    ? "png"
-                    : logisimProperties.getOutputFormat();
-            String previewName = source.getFileName().toString() + "." + format;
-            Path target = source.getParent().resolve(previewName);
-
-            logisimRenderService.renderPreview(source, target).ifPresent(path -> {
-                fileItem.setPreviewPath(path.toString());
-                fileItem.setPreviewUrl("/api/files/" + fileItem.getId() + "/preview");
-                fileItemRepository.save(fileItem);
-            });
+            return logisimRenderService.renderPreview(stored, logisimPreviewPath(source));
         } catch (Exception e) {
             log.warn("Failed to render preview for {}: {}", fileItem.getId(), e.getMessage());
+            return Optional.empty();
         }
     }
 
+    /**
+     * Where the Logisim preview of a circuit stored at {@code source} is written
+     */
+    Path logisimPreviewPath(Path source) {
+        String format = (logisimProperties.getOutputFormat() == null || logisimProperties.getOutputFormat().isBlank())
+                ? "png"
+                : logisimProperties.getOutputFormat();
+        return source.getParent().resolve(source.getFileName().toString() + "." + format);
+    }
+
     /**
      * Render a .doc file to HTML (for preview)
      */
@@ -544,12 +1492,26 @@ public class FileService {
             throw new RuntimeException("未找到物理文件");
         }
 
-        Path path = Paths.get(item.getStoragePath());
-        if (!Files.exists(path)) {
-            throw new RuntimeException("文件不存在: " + path);
+        StoredFile stored = fileStorage.file(item.getStoragePath(), item.getStorageEncoding());
+        if (!stored.exists()) {
+            throw new RuntimeException("文件不存在: " + stored.path());
         }
 
-        try (InputStream in = Files.newInputStream(path);
+        long start = System.nanoTime();
+        try {
+            // POI conversion runs on its own bounded pool, never on (possibly virtual) request threads
+            String html = renderExecutors.await(renderExecutors.doc(), () -> convertDocToHtml(stored), docRenderTimeoutSeconds);
+            metrics.recordDocRender(System.nanoTime() - start, true);
+            return html;
+        } catch (Exception e) {
+            metrics.recordDocRender(System.nanoTime() - start, false);
+            log.error("Failed to render .doc to HTML", e);
+            throw new RuntimeException("文档预览失败: " + e.getMessage());
+        }
+    }
+
+    private String convertDocToHtml(StoredFile stored) throws Exception {
+        try (InputStream in = stored.open();
              HWPFDocument document = new HWPFDocument(in)) {
 
             WordToHtmlConverter converter = new WordToHtmlConverter(
@@ -582,9 +1544,6 @@ public class FileService {
             serializer.transform(domSource, streamResult);
 
             return out.toString(StandardCharsets.UTF_8);
-        } catch (Exception e) {
-            log.error("Failed to render .doc to HTML", e);
-            throw new RuntimeException("文档预览失败: " + e.getMessage());
         }
     }
 
@@ -594,9 +1553,9 @@ public class FileService {
     }
 
     /**
-     * Convert FileItem to DTO (without children)
+     * Convert FileItem to DTO (without children); also the node format of the change feed
      */
-    private FileItemDTO toDTO(FileItem item) {
+    static FileItemDTO toDTO(FileItem item) {
         return FileItemDTO.builder()
                 .id(item.getId())
                 .name(item.getName())
@@ -605,23 +1564,14 @@ public class FileService {
                 .size(item.getSize())
                 .url(item.getUrl())
                 .previewUrl(item.getPreviewUrl())
+                .totalBytes(item.isFolder() ? item.getTotalBytes() : item.getSizeBytes())
+                .fileCount(item.isFolder() ? item.getFileCount() : null)
+                .lastModified(item.isFolder() && item.getContentModifiedAt() != null
+                        ? item.getContentModifiedAt() : item.getUpdatedAt())
+                .displayOrder(item.getDisplayOrder())
                 .build();
     }
 
-    /**
-     * Convert FileItem to DTO with children (recursive)
-     */
-    private FileItemDTO toDTOWithChildren(FileItem item) {
-        FileItemDTO dto = toDTO(item);
-        if (item.isFolder()) {
-            List<FileItem> children = fileItemRepository.findByParentIdAndDeletedFalseOrderByDisplayOrder(item.getId());
-            dto.setChildren(children.stream()
-                    .map(this::toDTOWithChildren)
-                    .collect(Collectors.toList()));
-        }
-        return dto;
-    }
-
     /**
      * Rename a file or folder (does NOT trigger soft delete)
      *
@@ -629,8 +1579,11 @@ public class FileService {
      * @param newName New name for the file or folder
      * @return FileItemDTO of the renamed item
      */
-    @Transactional
     public FileItemDTO rename(Long fileId, String newName) {
+        return optimisticRetry.execute("rename", () -> renameOnce(fileId, newName), () -> currentTreeOf(fileId));
+    }
+
+    private FileItemDTO renameOnce(Long fileId, String newName) {
         FileItem item = fileItemRepository.findByIdAndDeletedFalse(fileId)
                 .orElseThrow(() -> new RuntimeException("文件或文件夹不存在: " + fileId));
 
@@ -640,21 +1593,10 @@ public class FileService {
 
         String trimmedName = enforceFileExtension(item, newName.trim());
 
-        // Check if a file with the same name already exists in the same location
-        boolean exists;
-        if (item.getParent() != null) {
-            exists = fileItemRepository.existsByNameInFolder(trimmedName, item.getParent().getId(), item.getResource().getId());
-        } else {
-            exists = fileItemRepository.existsByNameAtRoot(trimmedName, item.getResource().getId());
-        }
-
-        // Allow if renaming to the same name (case change, etc.)
-        if (exists && !trimmedName.equals(item.getName())) {
-            throw new RuntimeException("同名文件或文件夹已存在: " + trimmedName);
-        }
-
+        // A clash with another live name is rejected by the unique index in saveAndFlushUnique below
+        List<PendingMove> moves = new ArrayList<>();
         if (!item.isFolder()) {
-            renamePhysicalFile(item, trimmedName);
+            renamePhysicalFile(item, trimmedName, moves);
         }
 
         // Update name (but keep originalName for soft delete tracking)
@@ -662,7 +1604,10 @@ public class FileService {
         // Also update originalName so future deletes use the new name
         item.setOriginalName(trimmedName);
 
-        fileItemRepository.save(item);
+        saveAndFlushUnique(item, "同名文件或文件夹已存在: " + trimmedName);
+        storageAggregates.touched(item);
+        changeFeed.renamed(item);
+        applyMoves(moves, "重命名文件失败: 无法修改物理文件");
         log.info("Renamed item {} to {}", fileId, trimmedName);
 
         return toDTO(item);
@@ -693,7 +1638,7 @@ public class FileService {
     /**
      * Rename the physical file on disk and update related metadata.
      */
-    private void renamePhysicalFile(FileItem item, String newDisplayName) {
+    private void renamePhysicalFile(FileItem item, String newDisplayName, List<PendingMove> moves) {
         if (item.getStoragePath() == null) {
             return;
         }
@@ -715,13 +1660,7 @@ public class FileService {
             return;
         }
 
-        try {
-            Files.move(oldPath, newPath, StandardCopyOption.REPLACE_EXISTING);
-        } catch (IOException e) {
-            log.warn("Failed to rename physical file: {}", e.getMessage());
-            throw new RuntimeException("重命名文件失败: 无法修改物理文件");
-        }
-
+        moves.add(new PendingMove(oldPath, newPath));
         item.setStoragePath(newPath.toString());
         item.setUrl("/api/files/" + item.getResource().getId() + "/download/" + newStorageName);
 
@@ -729,26 +1668,26 @@ public class FileService {
         if (newExt != null && !newExt.isEmpty()) {
             item.setType(newExt.toLowerCase());
         }
-
-        try {
-            long sizeBytes = Files.size(newPath);
-            item.setSizeBytes(sizeBytes);
-            item.setSize(formatFileSize(sizeBytes));
-        } catch (IOException e) {
-            log.warn("Failed to refresh file size after rename: {}", e.getMessage());
-        }
     }
 
     /**
      * Format file size to human-readable string
      */
-    private String formatFileSize(long bytes) {
+    static String formatFileSize(long bytes) {
         if (bytes < 1024) return bytes + "B";
         if (bytes < 1024 * 1024) return String.format("%.1fKB", bytes / 1024.0);
         if (bytes < 1024 * 1024 * 1024) return String.format("%.1fMB", bytes / (1024.0 * 1024));
         return String.format("%.1fGB", bytes / (1024.0 * 1024 * 1024));
     }
 
+    /**
+     * Lower-case extension stored as the file type ("" when there is none)
+     */
+    private static String uploadType(String filename) {
+        int lastDot = filename.lastIndexOf('.');
+        return lastDot > 0 ? filename.substring(lastDot + 1).toLowerCase() : "";
+    }
+
     /**
      * Extract extension from filename (without dot)
      */
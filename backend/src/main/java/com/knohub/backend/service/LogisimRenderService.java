@@ -1,7 +1,10 @@
 package com.knohub.backend.service;
 
 import com.knohub.backend.config.LogisimProperties;
+import com.knohub.backend.config.RenderExecutors;
 import com.knohub.backend.logisim.HeadlessLogisimRenderer;
+import com.knohub.backend.metrics.BackendMetrics;
+import com.knohub.backend.storage.StoredFile;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -17,29 +20,38 @@ public class LogisimRenderService {
 
     private final LogisimProperties properties;
     private final HeadlessLogisimRenderer renderer;
+    private final BackendMetrics metrics;
+    private final RenderExecutors renderExecutors;
 
     /**
      * Render a .circ file to an image by invoking Logisim jar.
+     * Runs on the bounded Logisim pool; the caller waits at most {@code logisim.timeout-seconds}.
      *
-     * @param inputPath  path to .circ
+     * @param input      stored .circ file
      * @param outputPath expected output path (png/svg)
      * @return output path if rendered successfully
      */
-    public Optional<Path> renderPreview(Path inputPath, Path outputPath) {
+    public Optional<Path> renderPreview(StoredFile input, Path outputPath) {
         if (!properties.isEnabled()) {
             log.debug("Logisim rendering skipped because it is disabled.");
             return Optional.empty();
         }
 
-        if (inputPath == null || outputPath == null) {
+        if (input == null || outputPath == null) {
             return Optional.empty();
         }
 
+        long start = System.nanoTime();
         try {
-            renderer.renderToPng(inputPath, outputPath);
+            renderExecutors.await(renderExecutors.logisim(), () -> {
+                renderer.renderToPng(input, outputPath);
+                return outputPath;
+            }, properties.getTimeoutSeconds());
+            metrics.recordLogisimRender(System.nanoTime() - start, true);
             return Optional.of(outputPath);
         } catch (Exception e) {
-            log.warn("Headless Logisim render failed for {}: {}", inputPath, e.getMessage());
+            metrics.recordLogisimRender(System.nanoTime() - start, false);
+            log.warn("Headless Logisim render failed for {}: {}", input.path(), e.getMessage());
             return Optional.empty();
         }
     }
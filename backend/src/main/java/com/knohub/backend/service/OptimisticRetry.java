@@ -0,0 +1,90 @@
+package com.knohub.backend.service;
+
+import com.knohub.backend.metrics.BackendMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs a unit of work in its own transaction and re-runs it when a concurrent writer won first
+ * (stale {@code @Version}, lock timeout or deadlock victim). Each attempt starts from a fresh read,
+ * so the work must be written as "load, decide, write" with no state carried between attempts.
+ */
+@Component
+@Slf4j
+public class OptimisticRetry {
+
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTemplate;
+    private final BackendMetrics metrics;
+    private final int maxAttempts;
+    private final long backoffMillis;
+
+    public OptimisticRetry(PlatformTransactionManager transactionManager,
+                           BackendMetrics metrics,
+                           @Value("${optimistic-retry.max-attempts:4}") int maxAttempts,
+                           @Value("${optimistic-retry.backoff-millis:15}") long backoffMillis) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+        this.metrics = metrics;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = Math.max(0, backoffMillis);
+    }
+
+    /**
+     * @param operation    name used in logs and the knohub.optimistic.* metrics
+     * @param work         the transactional work; re-executed on conflict
+     * @param currentState loaded (read-only) when retries are exhausted and returned to the client
+     * @throws ConcurrentUpdateException when every attempt conflicted
+     */
+    public <T> T execute(String operation, Supplier<T> work, Supplier<?> currentState) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // Joined an outer transaction: a conflict only surfaces at its commit, so the outer caller owns retries
+            return work.get();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts) {
+                    metrics.recordOptimisticConflict(operation);
+                    log.info("{} gave up after {} conflicting attempts: {}", operation, attempt, e.getMessage());
+                    throw new ConcurrentUpdateException("内容已被他人修改，请刷新后重试",
+                            readOnlyTemplate.execute(status -> currentState.get()));
+                }
+                metrics.recordOptimisticRetry(operation);
+                backoff(attempt);
+            }
+        }
+    }
+
+    public void run(String operation, Runnable work, Supplier<?> currentState) {
+        execute(operation, () -> {
+            work.run();
+            return null;
+        }, currentState);
+    }
+
+    /**
+     * Linear backoff with jitter so contending writers spread out instead of colliding again
+     */
+    private void backoff(int attempt) {
+        if (backoffMillis == 0) {
+            return;
+        }
+        try {
+            Thread.sleep(backoffMillis * attempt + ThreadLocalRandom.current().nextLong(backoffMillis + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("操作被中断");
+        }
+    }
+}
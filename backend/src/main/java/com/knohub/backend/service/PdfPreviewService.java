@@ -0,0 +1,193 @@
+package com.knohub.backend.service;
+
+import com.knohub.backend.config.PdfPreviewProperties;
+import com.knohub.backend.config.RenderExecutors;
+import com.knohub.backend.dto.PdfInfoDTO;
+import com.knohub.backend.model.FileItem;
+import com.knohub.backend.repository.FileItemRepository;
+import com.knohub.backend.storage.FileStorage;
+import com.knohub.backend.storage.StoredFile;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.stereotype.Service;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Renders PDF pages to JPEG with PDFBox so clients can show a page without downloading the whole document.
+ * Memory is bounded three ways: documents are opened with a capped main-memory stream cache (the rest
+ * spills to temp files), every page raster is capped at {@code pdf-preview.max-page-pixels}, and
+ * renderings run on the bounded PDF pool. Rendered pages are cached on disk by file, page and width.
+ */
+@Service
+@Slf4j
+public class PdfPreviewService {
+
+    private final FileItemRepository fileItemRepository;
+    private final FileStorage fileStorage;
+    private final RenderExecutors renderExecutors;
+    private final PdfPreviewProperties properties;
+
+    public PdfPreviewService(FileItemRepository fileItemRepository,
+                             FileStorage fileStorage,
+                             RenderExecutors renderExecutors,
+                             PdfPreviewProperties properties) {
+        this.fileItemRepository = fileItemRepository;
+        this.fileStorage = fileStorage;
+        this.renderExecutors = renderExecutors;
+        this.properties = properties;
+    }
+
+    public static boolean supports(FileItem item) {
+        return item != null && !item.isFolder() && "pdf".equalsIgnoreCase(item.getType());
+    }
+
+    /**
+     * Page count and page sizes
+     */
+    public PdfInfoDTO getInfo(Long fileId) throws Exception {
+        FileItem item = findPdf(fileId);
+        return renderExecutors.await(renderExecutors.pdf(), () -> {
+            try (PDDocument document = open(item)) {
+                List<Float> widths = new ArrayList<>();
+                List<Float> heights = new ArrayList<>();
+                for (PDPage page : document.getPages()) {
+                    float[] size = displayedSize(page);
+                    widths.add(size[0]);
+                    heights.add(size[1]);
+                }
+                return PdfInfoDTO.builder()
+                        .fileId(fileId)
+                        .pageCount(document.getNumberOfPages())
+                        .pageWidths(widths)
+                        .pageHeights(heights)
+                        .build();
+            }
+        }, properties.getTimeoutSeconds());
+    }
+
+    /**
+     * The cached image of a page (1-based) at the smallest configured width covering {@code width}
+     * (the largest when null or bigger than all), rendered first if it is missing
+     */
+    public Path getPage(Long fileId, int pageNumber, Integer width) throws Exception {
+        FileItem item = findPdf(fileId);
+        if (pageNumber < 1) {
+            throw new RuntimeException("页码从 1 开始");
+        }
+        int renderWidth = pickWidth(width);
+        Path target = Paths.get(properties.getCacheDir(), fileId + "-p" + pageNumber + "-w" + renderWidth + ".jpg");
+        if (Files.exists(target)) {
+            return target;
+        }
+        renderExecutors.await(renderExecutors.pdf(), () -> {
+            try (PDDocument document = open(item)) {
+                if (pageNumber > document.getNumberOfPages()) {
+                    throw new RuntimeException("页码超出范围，共 " + document.getNumberOfPages() + " 页");
+                }
+                float[] size = displayedSize(document.getPage(pageNumber - 1));
+                BufferedImage image = render(document, pageNumber - 1, renderWidth / size[0]);
+                Files.createDirectories(target.getParent());
+                ThumbnailService.writeJpeg(image, target, properties.getQuality());
+            }
+            return null;
+        }, properties.getTimeoutSeconds());
+        return target;
+    }
+
+    /**
+     * First page scaled so its longest side is {@code maxSide}; the caller is already on a render pool
+     */
+    public BufferedImage renderFirstPage(FileItem item, int maxSide) throws IOException {
+        try (PDDocument document = open(item)) {
+            if (document.getNumberOfPages() == 0) {
+                throw new IOException("PDF 没有页面");
+            }
+            float[] size = displayedSize(document.getPage(0));
+            return render(document, 0, maxSide / Math.max(size[0], size[1]));
+        }
+    }
+
+    /**
+     * Drop the cached page images of a purged file
+     */
+    public void evict(Long fileId) {
+        ThumbnailService.deleteMatching(Paths.get(properties.getCacheDir()), fileId + "-p*-w*.jpg");
+    }
+
+    private FileItem findPdf(Long fileId) {
+        FileItem item = fileItemRepository.findByIdAndDeletedFalse(fileId)
+                .orElseThrow(() -> new RuntimeException("文件不存在: " + fileId));
+        if (!supports(item)) {
+            throw new RuntimeException("仅 PDF 文件支持分页预览");
+        }
+        return item;
+    }
+
+    private PDDocument open(FileItem item) throws IOException {
+        StoredFile stored = fileStorage.file(item.getStoragePath(), item.getStorageEncoding());
+        if (!stored.exists()) {
+            throw new RuntimeException("文件不存在或已被移除");
+        }
+        if (stored.isCompressed()) {
+            // PDF is not a compressible type, so this only happens if the storage rules change
+            throw new IOException("PDF 以压缩形式存储，无法随机读取: " + item.getId());
+        }
+        return Loader.loadPDF(stored.path().toFile(),
+                MemoryUsageSetting.setupMixed(properties.getMaxMainMemory().toBytes()).streamCache);
+    }
+
+    /**
+     * Render at the given scale (pixels per point), lowered if needed to stay within the pixel cap
+     */
+    private BufferedImage render(PDDocument document, int pageIndex, float scale) throws IOException {
+        float[] size = displayedSize(document.getPage(pageIndex));
+        float maxScale = (float) Math.sqrt(properties.getMaxPagePixels() / Math.max(1.0, (double) size[0] * size[1]));
+        PDFRenderer renderer = new PDFRenderer(document);
+        // Large embedded images are decoded subsampled to the output resolution instead of at full size
+        renderer.setSubsamplingAllowed(true);
+        return renderer.renderImage(pageIndex, Math.min(scale, maxScale), ImageType.RGB);
+    }
+
+    /**
+     * Width and height in points as displayed, i.e. with the page rotation applied
+     */
+    private static float[] displayedSize(PDPage page) {
+        PDRectangle box = page.getCropBox();
+        int rotation = ((page.getRotation() % 360) + 360) % 360;
+        return rotation == 90 || rotation == 270
+                ? new float[]{box.getHeight(), box.getWidth()}
+                : new float[]{box.getWidth(), box.getHeight()};
+    }
+
+    private int pickWidth(Integer requested) {
+        List<Integer> widths = properties.getPageWidths().stream()
+                .filter(width -> width != null && width > 0)
+                .distinct()
+                .sorted()
+                .toList();
+        if (widths.isEmpty()) {
+            return 1280;
+        }
+        if (requested != null) {
+            for (int width : widths) {
+                if (width >= requested) {
+                    return width;
+                }
+            }
+        }
+        return widths.get(widths.size() - 1);
+    }
+}
@@ -0,0 +1,11 @@
+package com.knohub.backend.service;
+
+/**
+ * An upload would push a resource or the whole site over its storage quota; rendered as 413
+ */
+public class QuotaExceededException extends RuntimeException {
+
+    public QuotaExceededException(String message) {
+        super(message);
+    }
+}
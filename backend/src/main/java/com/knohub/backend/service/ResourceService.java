@@ -1,6 +1,5 @@
 package com.knohub.backend.service;
 
-import com.knohub.backend.dto.FileItemDTO;
 import com.knohub.backend.dto.ResourceDTO;
 import com.knohub.backend.model.Resource;
 import com.knohub.backend.model.ResourceType;
@@ -22,21 +21,25 @@ public class ResourceService {
 
     private final ResourceRepository resourceRepository;
     private final FileService fileService;
+    private final OptimisticRetry optimisticRetry;
+    private final DataVersions dataVersions;
 
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
     /**
-     * Get all resources
+     * All active resources without their file trees (the list endpoint streams the trees separately)
      */
-    public List<ResourceDTO> getAllResources() {
+    @Transactional(readOnly = true)
+    public List<ResourceDTO> getAllResourceSummaries() {
         return resourceRepository.findByDeletedFalse().stream()
-                .map(this::toDTO)
+                .map(this::toSummaryDTO)
                 .collect(Collectors.toList());
     }
 
     /**
      * Get resource by ID
      */
+    @Transactional(readOnly = true)
     public ResourceDTO getResourceById(Long id) {
         Resource resource = resourceRepository.findByIdAndDeletedFalse(id)
                 .orElseThrow(() -> new RuntimeException("资源不存在或已删除: " + id));
@@ -46,6 +49,7 @@ public class ResourceService {
     /**
      * Get resources by type
      */
+    @Transactional(readOnly = true)
     public List<ResourceDTO> getResourcesByType(String type) {
         ResourceType resourceType = ResourceType.valueOf(type.toUpperCase());
         return resourceRepository.findByTypeAndDeletedFalse(resourceType).stream()
@@ -56,6 +60,7 @@ public class ResourceService {
     /**
      * Search resources by keyword
      */
+    @Transactional(readOnly = true)
     public List<ResourceDTO> searchResources(String keyword) {
         return resourceRepository.searchActive(keyword).stream()
                 .map(this::toDTO)
@@ -78,6 +83,7 @@ public class ResourceService {
         }
 
         resource = resourceRepository.save(resource);
+        dataVersions.touch(resource.getId());
         log.info("Resource created: {}", resource.getTitle());
         return toDTO(resource);
     }
@@ -85,8 +91,11 @@ public class ResourceService {
     /**
      * Update resource
      */
-    @Transactional
     public ResourceDTO updateResource(Long id, ResourceDTO request) {
+        return optimisticRetry.execute("update-resource", () -> updateResourceOnce(id, request), () -> getResourceById(id));
+    }
+
+    private ResourceDTO updateResourceOnce(Long id, ResourceDTO request) {
         Resource resource = resourceRepository.findByIdAndDeletedFalse(id)
                 .orElseThrow(() -> new RuntimeException("资源不存在或已删除: " + id));
 
@@ -101,6 +110,7 @@ public class ResourceService {
         }
 
         resource = resourceRepository.save(resource);
+        dataVersions.touch(id);
         log.info("Resource updated: {}", resource.getTitle());
         return toDTO(resource);
     }
@@ -108,8 +118,11 @@ public class ResourceService {
     /**
      * Soft delete resource and mark all attached files/folders
      */
-    @Transactional
     public void deleteResource(Long id) {
+        optimisticRetry.run("delete-resource", () -> deleteResourceOnce(id), () -> getResourceById(id));
+    }
+
+    private void deleteResourceOnce(Long id) {
         Resource resource = resourceRepository.findByIdAndDeletedFalse(id)
                 .orElseThrow(() -> new RuntimeException("资源不存在或已删除: " + id));
 
@@ -119,6 +132,7 @@ public class ResourceService {
         resource.setDeleted(true);
         resource.setDeletedAt(LocalDateTime.now());
         resourceRepository.save(resource);
+        dataVersions.touch(id);
         log.info("Resource soft deleted: {}", id);
     }
 
@@ -126,8 +140,12 @@ public class ResourceService {
      * Convert Resource entity to DTO
      */
     private ResourceDTO toDTO(Resource resource) {
-        List<FileItemDTO> files = fileService.getResourceFiles(resource.getId());
+        ResourceDTO dto = toSummaryDTO(resource);
+        dto.setFiles(fileService.getResourceFiles(resource.getId()));
+        return dto;
+    }
 
+    private ResourceDTO toSummaryDTO(Resource resource) {
         return ResourceDTO.builder()
                 .id(resource.getId())
                 .type(resource.getType().getValue())
@@ -135,7 +153,10 @@ public class ResourceService {
                 .description(resource.getDescription())
                 .tag(resource.getTag() != null ? resource.getTag().getValue() : null)
                 .updateDate(resource.getUpdateDate().format(DATE_FORMATTER))
-                .files(files)
+                .totalBytes(resource.getTotalBytes())
+                .fileCount(resource.getFileCount())
+                .lastModified(resource.getContentModifiedAt())
+                .changeVersion(resource.getChangeVersion())
                 .build();
     }
 }
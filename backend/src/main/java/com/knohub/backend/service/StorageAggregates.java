@@ -0,0 +1,209 @@
+package com.knohub.backend.service;
+
+import com.knohub.backend.metrics.BackendMetrics;
+import com.knohub.backend.model.FileItem;
+import com.knohub.backend.model.Resource;
+import com.knohub.backend.repository.FileItemRepository;
+import com.knohub.backend.repository.ResourceRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the size / file count / last-modified aggregates of folders and resources current.
+ * Writers call the delta methods inside their own transaction; each delta is one bulk UPDATE over the
+ * ancestor folders named by the item's materialized path plus one on the resource, so concurrent
+ * uploads add up instead of overwriting each other. {@link #reconcile()} recomputes everything
+ * periodically and repairs drift (e.g. rows written before the columns existed).
+ */
+@Component
+@Slf4j
+public class StorageAggregates {
+
+    private final FileItemRepository fileItemRepository;
+    private final ResourceRepository resourceRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final BackendMetrics metrics;
+    private final DataVersions dataVersions;
+
+    public StorageAggregates(FileItemRepository fileItemRepository,
+                             ResourceRepository resourceRepository,
+                             PlatformTransactionManager transactionManager,
+                             BackendMetrics metrics,
+                             DataVersions dataVersions) {
+        this.fileItemRepository = fileItemRepository;
+        this.resourceRepository = resourceRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.metrics = metrics;
+        this.dataVersions = dataVersions;
+    }
+
+    /**
+     * Newly stored files; files sharing a folder are folded into one delta
+     */
+    public void filesAdded(Long resourceId, Collection<FileItem> files) {
+        Map<String, long[]> byFolder = new HashMap<>();
+        long bytes = 0;
+        for (FileItem file : files) {
+            long size = sizeOf(file);
+            long[] delta = byFolder.computeIfAbsent(file.getAncestorPath(), path -> new long[2]);
+            delta[0] += size;
+            delta[1]++;
+            bytes += size;
+        }
+        if (byFolder.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        byFolder.forEach((path, delta) -> adjustFolders(FileItem.parseAncestorPath(path), delta[0], delta[1], now));
+        resourceRepository.adjustTotals(resourceId, bytes, files.size(), now);
+    }
+
+    /**
+     * A file, or a folder holding the given live totals, was soft deleted
+     */
+    public void removed(FileItem item, long bytes, long files) {
+        LocalDateTime now = LocalDateTime.now();
+        adjustFolders(item.ancestorIds(), -bytes, -files, now);
+        resourceRepository.adjustTotals(item.getResource().getId(), -bytes, -files, now);
+    }
+
+    /**
+     * A file, or a folder holding the given live totals, was restored from the trash
+     */
+    public void restored(FileItem item, long bytes, long files) {
+        LocalDateTime now = LocalDateTime.now();
+        adjustFolders(item.ancestorIds(), bytes, files, now);
+        resourceRepository.adjustTotals(item.getResource().getId(), bytes, files, now);
+    }
+
+    /**
+     * A file or folder moved between folders of the same resource; ancestors shared by both
+     * locations keep their totals and only get a new modification time
+     */
+    public void moved(String oldAncestorPath, String newAncestorPath, long bytes, long files) {
+        Set<Long> from = new LinkedHashSet<>(FileItem.parseAncestorPath(oldAncestorPath));
+        Set<Long> to = new LinkedHashSet<>(FileItem.parseAncestorPath(newAncestorPath));
+        Set<Long> shared = new LinkedHashSet<>(from);
+        shared.retainAll(to);
+        from.removeAll(shared);
+        to.removeAll(shared);
+
+        LocalDateTime now = LocalDateTime.now();
+        adjustFolders(from, -bytes, -files, now);
+        adjustFolders(to, bytes, files, now);
+        adjustFolders(shared, 0, 0, now);
+    }
+
+    /**
+     * Content changed without changing sizes (rename): only the modification times move
+     */
+    public void touched(FileItem item) {
+        LocalDateTime now = LocalDateTime.now();
+        adjustFolders(item.ancestorIds(), 0, 0, now);
+        resourceRepository.adjustTotals(item.getResource().getId(), 0, 0, now);
+    }
+
+    /**
+     * Live totals an item contributes to its ancestors
+     */
+    public static long[] totalsOf(FileItem item) {
+        return item.isFolder()
+                ? new long[]{item.getTotalBytes(), item.getFileCount()}
+                : new long[]{sizeOf(item), 1};
+    }
+
+    /**
+     * Recompute every resource's aggregates and repair the ones that drifted. Each resource is checked in
+     * its own transaction; a row changed by a concurrent delta since it was read is left for the next run.
+     */
+    @Scheduled(initialDelayString = "${aggregates.reconcile-initial-delay:PT30S}",
+               fixedDelayString = "${aggregates.reconcile-interval:PT6H}")
+    public void reconcile() {
+        int repaired = 0;
+        for (Long resourceId : resourceRepository.findActiveIds()) {
+            Integer count = transactionTemplate.execute(status -> reconcileResource(resourceId));
+            if (count != null && count > 0) {
+                dataVersions.touch(resourceId);
+                repaired += count;
+            }
+        }
+        if (repaired > 0) {
+            metrics.recordAggregateRepairs(repaired);
+            log.info("Aggregate reconciliation repaired {} folders/resources", repaired);
+        }
+    }
+
+    private int reconcileResource(Long resourceId) {
+        // Resource first: a delta committed between these two reads makes the compare-and-set below miss
+        Resource resource = resourceRepository.findById(resourceId).orElse(null);
+        if (resource == null) {
+            return 0;
+        }
+        long seenResourceBytes = resource.getTotalBytes();
+        long seenResourceFiles = resource.getFileCount();
+
+        List<Object[]> rows = fileItemRepository.findAggregateRows(resourceId);
+        Map<Long, long[]> expected = new HashMap<>();
+        for (Object[] row : rows) {
+            if ((Boolean) row[2]) {
+                expected.putIfAbsent((Long) row[0], new long[2]);
+            }
+        }
+        long resourceBytes = 0;
+        long resourceFiles = 0;
+        for (Object[] row : rows) {
+            if ((Boolean) row[2]) {
+                continue;
+            }
+            long size = row[3] == null ? 0 : (Long) row[3];
+            resourceBytes += size;
+            resourceFiles++;
+            for (Long ancestorId : FileItem.parseAncestorPath((String) row[1])) {
+                long[] totals = expected.get(ancestorId);
+                if (totals != null) {
+                    totals[0] += size;
+                    totals[1]++;
+                }
+            }
+        }
+
+        int repaired = 0;
+        for (Object[] row : rows) {
+            long[] totals = expected.get((Long) row[0]);
+            if (totals == null) {
+                continue;
+            }
+            long seenBytes = (Long) row[4];
+            long seenFiles = (Long) row[5];
+            if (totals[0] != seenBytes || totals[1] != seenFiles) {
+                repaired += fileItemRepository.repairFolderTotals((Long) row[0], totals[0], totals[1], seenBytes, seenFiles);
+            }
+        }
+        if (resourceBytes != seenResourceBytes || resourceFiles != seenResourceFiles) {
+            repaired += resourceRepository.repairTotals(resourceId, resourceBytes, resourceFiles,
+                    seenResourceBytes, seenResourceFiles);
+        }
+        return repaired;
+    }
+
+    private void adjustFolders(Collection<Long> folderIds, long bytes, long files, LocalDateTime now) {
+        if (!folderIds.isEmpty()) {
+            fileItemRepository.adjustFolderTotals(folderIds, bytes, files, now);
+        }
+    }
+
+    private static long sizeOf(FileItem file) {
+        return file.getSizeBytes() == null ? 0 : file.getSizeBytes();
+    }
+}
@@ -0,0 +1,150 @@
+package com.knohub.backend.service;
+
+import com.knohub.backend.config.QuotaProperties;
+import com.knohub.backend.repository.ArchivedFileItemRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-resource and global upload quotas tracked with in-memory atomic counters.
+ * Bytes are reserved before they are written to disk; a reservation is kept when its transaction
+ * commits and handed back on rollback or explicit release. Counters start from the stored bytes in
+ * the database (live, soft-deleted and archived files still on disk), loaded once per resource on first use.
+ */
+@Component
+@Slf4j
+public class StorageQuota {
+
+    private final ArchivedFileItemRepository storedBytes;
+    private final QuotaProperties properties;
+    private final Map<Long, AtomicLong> resourceUsed = new ConcurrentHashMap<>();
+    private final AtomicLong globalUsed = new AtomicLong();
+
+    public StorageQuota(ArchivedFileItemRepository storedBytes, QuotaProperties properties) {
+        this.storedBytes = storedBytes;
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    void loadGlobalUsage() {
+        globalUsed.set(storedBytes.sumStoredBytes());
+        log.info("Upload quota: {} stored, resource limit {}, global limit {}",
+                FileService.formatFileSize(globalUsed.get()), properties.getResourceMax(), properties.getGlobalMax());
+    }
+
+    /**
+     * Bytes a resource may still receive (bounded by the global quota too); Long.MAX_VALUE when unlimited
+     */
+    public long remaining(Long resourceId) {
+        return Math.min(headroom(used(resourceId), resourceLimit()), headroom(globalUsed, globalLimit()));
+    }
+
+    /**
+     * Reserve bytes for an upload into a resource. Inside a transaction the reservation is returned
+     * automatically if the transaction does not commit.
+     *
+     * @throws QuotaExceededException when either quota would be exceeded
+     */
+    public Reservation reserve(Long resourceId, long bytes) {
+        Reservation reservation = new Reservation(resourceId);
+        reservation.grow(bytes);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        reservation.release();
+                    }
+                }
+            });
+        }
+        return reservation;
+    }
+
+    /**
+     * Hand back bytes whose files were removed from disk (soft-delete purge)
+     */
+    public void release(Long resourceId, long bytes) {
+        // Not loaded lazily here: a counter loaded after the purge committed already excludes these bytes
+        AtomicLong resource = resourceUsed.get(resourceId);
+        if (resource != null) {
+            resource.addAndGet(-bytes);
+        }
+        globalUsed.addAndGet(-bytes);
+    }
+
+    /**
+     * Bytes held for one upload; may grow while an archive is extracted
+     */
+    public final class Reservation {
+        private final Long resourceId;
+        private long bytes;
+        private boolean released;
+
+        private Reservation(Long resourceId) {
+            this.resourceId = resourceId;
+        }
+
+        public void grow(long more) {
+            if (more <= 0) {
+                return;
+            }
+            AtomicLong resource = used(resourceId);
+            if (!tryAdd(resource, more, resourceLimit())) {
+                throw new QuotaExceededException("资源存储空间不足，剩余 "
+                        + FileService.formatFileSize(headroom(resource, resourceLimit())));
+            }
+            if (!tryAdd(globalUsed, more, globalLimit())) {
+                resource.addAndGet(-more);
+                throw new QuotaExceededException("站点存储空间不足，请联系管理员清理");
+            }
+            bytes += more;
+        }
+
+        /**
+         * Return everything reserved so far; safe to call more than once
+         */
+        public void release() {
+            if (!released) {
+                released = true;
+                StorageQuota.this.release(resourceId, bytes);
+            }
+        }
+    }
+
+    private AtomicLong used(Long resourceId) {
+        return resourceUsed.computeIfAbsent(resourceId,
+                id -> new AtomicLong(storedBytes.sumStoredBytesByResource(id)));
+    }
+
+    private long resourceLimit() {
+        return properties.getResourceMax().toBytes();
+    }
+
+    private long globalLimit() {
+        return properties.getGlobalMax().toBytes();
+    }
+
+    private static long headroom(AtomicLong counter, long limit) {
+        return limit <= 0 ? Long.MAX_VALUE : Math.max(0, limit - counter.get());
+    }
+
+    private static boolean tryAdd(AtomicLong counter, long bytes, long limit) {
+        while (true) {
+            long current = counter.get();
+            if (limit > 0 && current + bytes > limit) {
+                return false;
+            }
+            if (counter.compareAndSet(current, current + bytes)) {
+                return true;
+            }
+        }
+    }
+}
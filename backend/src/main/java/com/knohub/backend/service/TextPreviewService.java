@@ -0,0 +1,412 @@
+package com.knohub.backend.service;
+
+import com.knohub.backend.dto.TextPageDTO;
+import com.knohub.backend.model.FileItem;
+import com.knohub.backend.repository.FileItemRepository;
+import com.knohub.backend.storage.FileStorage;
+import com.knohub.backend.storage.StoredFile;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Line-window pages of text files for the code/log preview. The first request for a file scans it once
+ * and keeps a sparse index (the byte offset of every {@value #STRIDE}th line); a page is then one
+ * positional read at the nearest checkpoint plus a scan of fewer than {@value #STRIDE} lines, wherever
+ * it is in the file. Files stored gzip-compressed, or in a charset whose line feed is not the single byte
+ * 0x0A (UTF-16), are first copied to a plain ASCII-compatible file in the preview cache so the same
+ * positional reads apply. Indexes are kept for the most recently previewed files only.
+ */
+@Service
+@Slf4j
+public class TextPreviewService {
+
+    static final int STRIDE = 256;
+
+    private static final int DEFAULT_LINES = 500;
+    private static final int SAMPLE_BYTES = 64 * 1024;
+    private static final int READ_BUFFER = 64 * 1024;
+
+    /**
+     * Longer lines (minified or generated files) are cut so one page stays small
+     */
+    private static final int MAX_LINE_BYTES = 16 * 1024;
+
+    private static final Charset GB18030 = Charset.forName("GB18030");
+
+    private static final Set<String> TEXT_TYPES = Set.of(
+            "txt", "log", "md", "csv", "tsv", "json", "xml", "yml", "yaml", "ini", "conf", "tex",
+            "html", "htm", "css", "svg", "circ",
+            "c", "h", "cpp", "hpp", "cc", "java", "kt", "py", "js", "ts", "vue", "go", "rs", "sh", "sql",
+            "v", "vh", "sv", "vhd", "vhdl", "s", "asm");
+
+    /**
+     * Index of one file: where the lines are, how to decode them
+     *
+     * @param file        the file the offsets refer to (the stored file, or its copy in the cache)
+     * @param checkpoints byte offset of lines 0, STRIDE, 2*STRIDE, ...
+     * @param cached      {@code file} is a copy in the preview cache
+     * @param transcoded  the copy was re-encoded to UTF-8, so no other charset can be applied
+     */
+    record LineIndex(Path file, Charset charset, long[] checkpoints, long totalLines, boolean cached,
+                     boolean transcoded) {
+    }
+
+    private final FileItemRepository fileItemRepository;
+    private final FileStorage fileStorage;
+    private final Path cacheDir;
+    private final int maxLines;
+    private final int maxCachedFiles;
+
+    /**
+     * Most recently used last; guarded by {@link #indexLock}, which is never held while touching the disk
+     */
+    private final Map<Long, LineIndex> indexes = new LinkedHashMap<>(16, 0.75f, true);
+    private final ReentrantLock indexLock = new ReentrantLock();
+
+    public TextPreviewService(FileItemRepository fileItemRepository,
+                              FileStorage fileStorage,
+                              @Value("${text-preview.cache-dir:./uploads/text-cache}") String cacheDir,
+                              @Value("${text-preview.max-lines:2000}") int maxLines,
+                              @Value("${text-preview.max-cached-files:128}") int maxCachedFiles) {
+        this.fileItemRepository = fileItemRepository;
+        this.fileStorage = fileStorage;
+        this.cacheDir = Paths.get(cacheDir);
+        this.maxLines = Math.max(1, maxLines);
+        this.maxCachedFiles = Math.max(1, maxCachedFiles);
+    }
+
+    /**
+     * Copies left by the previous run have no index pointing at them any more
+     */
+    @PostConstruct
+    void clearCache() {
+        if (!Files.isDirectory(cacheDir)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(cacheDir)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            log.warn("Could not clear text preview cache {}: {}", cacheDir, e.getMessage());
+        }
+    }
+
+    /**
+     * Lines {@code offset} .. {@code offset + lines - 1} of a text file
+     *
+     * @param lines   page size (default 500, capped by text-preview.max-lines)
+     * @param charset charset to decode with instead of the detected one, e.g. GBK; null to detect
+     */
+    public TextPageDTO getPage(Long fileId, long offset, Integer lines, String charset) throws IOException {
+        FileItem item = fileItemRepository.findByIdAndDeletedFalse(fileId)
+                .orElseThrow(() -> new RuntimeException("文件不存在: " + fileId));
+        if (item.isFolder() || item.getType() == null
+                || !TEXT_TYPES.contains(item.getType().toLowerCase(Locale.ROOT))) {
+            throw new RuntimeException("该文件类型不支持文本预览");
+        }
+        if (offset < 0) {
+            throw new RuntimeException("offset 不能为负数");
+        }
+        int count = lines == null ? DEFAULT_LINES : Math.min(Math.max(1, lines), maxLines);
+
+        LineIndex index = indexFor(item);
+        Charset decodeWith = resolveCharset(charset, index);
+        List<String> page = readLines(index, offset, count, decodeWith);
+        return TextPageDTO.builder()
+                .fileId(fileId)
+                .charset(decodeWith.name())
+                .offset(offset)
+                .totalLines(index.totalLines())
+                .lines(page)
+                .hasMore(offset + page.size() < index.totalLines())
+                .build();
+    }
+
+    private LineIndex indexFor(FileItem item) throws IOException {
+        LineIndex index;
+        indexLock.lock();
+        try {
+            index = indexes.get(item.getId());
+        } finally {
+            indexLock.unlock();
+        }
+        if (index != null && Files.exists(index.file())) {
+            return index;
+        }
+        // Built outside the lock: two first requests for one file may both scan it, which is harmless
+        index = buildIndex(item);
+        remember(item.getId(), index);
+        return index;
+    }
+
+    /**
+     * Add an index, dropping the least recently used ones over text-preview.max-cached-files; their cached
+     * copies are deleted after the lock is released
+     */
+    private void remember(Long fileId, LineIndex index) {
+        List<LineIndex> evicted = new ArrayList<>();
+        indexLock.lock();
+        try {
+            indexes.put(fileId, index);
+            Iterator<LineIndex> eldest = indexes.values().iterator();
+            while (indexes.size() > maxCachedFiles) {
+                evicted.add(eldest.next());
+                eldest.remove();
+            }
+        } finally {
+            indexLock.unlock();
+        }
+        evicted.forEach(this::deleteCopy);
+    }
+
+    private LineIndex buildIndex(FileItem item) throws IOException {
+        long start = System.nanoTime();
+        StoredFile stored = fileStorage.file(item.getStoragePath(), item.getStorageEncoding());
+        if (!stored.exists()) {
+            throw new RuntimeException("文件不存在或已被移除");
+        }
+        byte[] sample;
+        try (InputStream in = stored.open()) {
+            sample = in.readNBytes(SAMPLE_BYTES);
+        }
+        Charset charset = detectCharset(sample);
+        boolean asciiCompatible = isAsciiCompatible(charset);
+        if (asciiCompatible && contains(sample, (byte) 0)) {
+            throw new RuntimeException("二进制文件不支持文本预览");
+        }
+
+        LineIndex index;
+        if (stored.isCompressed() || !asciiCompatible) {
+            Path copy = copyToCache(item.getId(), stored, charset, asciiCompatible);
+            index = scan(copy, asciiCompatible ? charset : StandardCharsets.UTF_8, true, !asciiCompatible);
+        } else {
+            index = scan(stored.path(), charset, false, false);
+        }
+        log.debug("Indexed {} lines of file {} ({}) in {} ms", index.totalLines(), item.getId(), charset,
+                (System.nanoTime() - start) / 1_000_000);
+        return index;
+    }
+
+    /**
+     * BOM first; otherwise UTF-8 if the sample decodes strictly, else GB18030 (a superset of GBK and GB2312)
+     */
+    static Charset detectCharset(byte[] sample) {
+        if (sample.length >= 3 && (sample[0] & 0xFF) == 0xEF && (sample[1] & 0xFF) == 0xBB && (sample[2] & 0xFF) == 0xBF) {
+            return StandardCharsets.UTF_8;
+        }
+        if (sample.length >= 2 && (sample[0] & 0xFF) == 0xFE && (sample[1] & 0xFF) == 0xFF) {
+            return StandardCharsets.UTF_16BE;
+        }
+        if (sample.length >= 2 && (sample[0] & 0xFF) == 0xFF && (sample[1] & 0xFF) == 0xFE) {
+            return StandardCharsets.UTF_16LE;
+        }
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        // Not end of input: a character cut off by the sample boundary is not an error
+        boolean utf8 = !decoder.decode(ByteBuffer.wrap(sample), CharBuffer.allocate(sample.length), false).isError();
+        return utf8 ? StandardCharsets.UTF_8 : GB18030;
+    }
+
+    /**
+     * Line feed and carriage return are the single bytes 0x0A / 0x0D (true for UTF-8, GBK, Latin-1; not UTF-16)
+     */
+    private static boolean isAsciiCompatible(Charset charset) {
+        return Arrays.equals("\n\r".getBytes(charset), new byte[]{'\n', '\r'});
+    }
+
+    private static Charset resolveCharset(String requested, LineIndex index) {
+        if (requested == null || requested.isBlank() || index.transcoded()) {
+            return index.charset();
+        }
+        Charset charset;
+        try {
+            charset = Charset.forName(requested.trim());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("不支持的字符集: " + requested);
+        }
+        if (!isAsciiCompatible(charset)) {
+            throw new RuntimeException("不支持的字符集: " + requested);
+        }
+        return charset;
+    }
+
+    private Path copyToCache(Long fileId, StoredFile stored, Charset charset, boolean keepBytes) throws IOException {
+        Files.createDirectories(cacheDir);
+        Path target = cacheDir.resolve(fileId + ".txt");
+        Path temp = Files.createTempFile(cacheDir, fileId + "-", ".tmp");
+        try {
+            try (InputStream in = stored.open(); OutputStream out = Files.newOutputStream(temp)) {
+                if (keepBytes) {
+                    in.transferTo(out);
+                } else {
+                    Reader reader = new InputStreamReader(in, charset);
+                    Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+                    reader.transferTo(writer);
+                    writer.flush();
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return target;
+    }
+
+    private static LineIndex scan(Path file, Charset charset, boolean cached, boolean transcoded) throws IOException {
+        long[] checkpoints = new long[64];
+        int checkpointCount = 1;
+        long lines = 0;
+        long position = 0;
+        byte last = '\n';
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER);
+            byte[] bytes = buffer.array();
+            int read;
+            while ((read = channel.read(buffer.clear())) > 0) {
+                for (int i = 0; i < read; i++) {
+                    if (bytes[i] == '\n') {
+                        lines++;
+                        if (lines % STRIDE == 0) {
+                            if (checkpointCount == checkpoints.length) {
+                                checkpoints = Arrays.copyOf(checkpoints, checkpointCount * 2);
+                            }
+                            checkpoints[checkpointCount++] = position + i + 1;
+                        }
+                    }
+                }
+                last = bytes[read - 1];
+                position += read;
+            }
+        }
+        if (last != '\n') {
+            // Final line without a line feed
+            lines++;
+        }
+        return new LineIndex(file, charset, Arrays.copyOf(checkpoints, checkpointCount), lines, cached, transcoded);
+    }
+
+    private static List<String> readLines(LineIndex index, long offset, int count, Charset charset) throws IOException {
+        if (offset >= index.totalLines()) {
+            return List.of();
+        }
+        int checkpoint = (int) Math.min(offset / STRIDE, index.checkpoints().length - 1);
+        long position = index.checkpoints()[checkpoint];
+        long lineNo = (long) checkpoint * STRIDE;
+
+        List<String> result = new ArrayList<>(count);
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        try (FileChannel channel = FileChannel.open(index.file(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER);
+            byte[] bytes = buffer.array();
+            int read;
+            while (result.size() < count && (read = channel.read(buffer.clear(), position)) > 0) {
+                position += read;
+                int start = 0;
+                for (int i = 0; i < read && result.size() < count; i++) {
+                    if (bytes[i] != '\n') {
+                        continue;
+                    }
+                    if (lineNo >= offset) {
+                        appendCapped(line, bytes, start, i - start);
+                        result.add(decode(line, charset, lineNo));
+                        line.reset();
+                    }
+                    lineNo++;
+                    start = i + 1;
+                }
+                if (result.size() < count && lineNo >= offset) {
+                    appendCapped(line, bytes, start, read - start);
+                }
+            }
+        }
+        if (result.size() < count && lineNo >= offset && lineNo < index.totalLines()) {
+            result.add(decode(line, charset, lineNo));
+        }
+        return result;
+    }
+
+    private static void appendCapped(ByteArrayOutputStream line, byte[] bytes, int from, int length) {
+        int room = MAX_LINE_BYTES - line.size();
+        if (room > 0 && length > 0) {
+            line.write(bytes, from, Math.min(room, length));
+        }
+    }
+
+    private static String decode(ByteArrayOutputStream line, Charset charset, long lineNo) {
+        byte[] bytes = line.toByteArray();
+        int length = bytes.length > 0 && bytes[bytes.length - 1] == '\r' ? bytes.length - 1 : bytes.length;
+        String text = new String(bytes, 0, length, charset);
+        return lineNo == 0 && !text.isEmpty() && text.charAt(0) == '\uFEFF' ? text.substring(1) : text;
+    }
+
+    private static boolean contains(byte[] bytes, byte value) {
+        for (byte b : bytes) {
+            if (b == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Forget the line index of a purged file and delete its cached copy
+     */
+    public void evict(Long fileId) {
+        LineIndex index;
+        indexLock.lock();
+        try {
+            index = indexes.remove(fileId);
+        } finally {
+            indexLock.unlock();
+        }
+        if (index != null) {
+            deleteCopy(index);
+        }
+    }
+
+    private void deleteCopy(LineIndex index) {
+        if (!index.cached()) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(index.file());
+        } catch (IOException e) {
+            log.debug("Could not delete cached text copy {}: {}", index.file(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.knohub.backend.service;
+
+import com.knohub.backend.config.RenderExecutors;
+import com.knohub.backend.config.ThumbnailProperties;
+import com.knohub.backend.model.FileItem;
+import com.knohub.backend.repository.FileItemRepository;
+import com.knohub.backend.storage.FileStorage;
+import com.knohub.backend.storage.StoredFile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * JPEG thumbnails of image and PDF uploads in a few sizes, so previews never have to load the original.
+ * Images are decoded with ImageIO subsampling, which keeps the decoded raster near twice the largest
+ * thumbnail no matter how many megapixels the photo has; PDFs contribute their first page, rendered by
+ * {@link PdfPreviewService}. The smaller sizes are scaled down from the larger ones. Rendering runs on the
+ * bounded image (or PDF) pool: in the background after an upload commits, or on demand when a thumbnail
+ * is requested before that finished.
+ */
+@Service
+@Slf4j
+public class ThumbnailService {
+
+    public static final Set<String> IMAGE_TYPES = Set.of("png", "jpg", "jpeg", "gif", "bmp");
+
+    private final FileItemRepository fileItemRepository;
+    private final FileStorage fileStorage;
+    private final RenderExecutors renderExecutors;
+    private final ThumbnailProperties properties;
+    private final PdfPreviewService pdfPreviewService;
+    private final DataVersions dataVersions;
+
+    public ThumbnailService(FileItemRepository fileItemRepository,
+                            FileStorage fileStorage,
+                            RenderExecutors renderExecutors,
+                            ThumbnailProperties properties,
+                            PdfPreviewService pdfPreviewService,
+                            DataVersions dataVersions) {
+        this.fileItemRepository = fileItemRepository;
+        this.fileStorage = fileStorage;
+        this.renderExecutors = renderExecutors;
+        this.properties = properties;
+        this.pdfPreviewService = pdfPreviewService;
+        this.dataVersions = dataVersions;
+    }
+
+    public static boolean supports(FileItem item) {
+        return PdfPreviewService.supports(item) || isImage(item);
+    }
+
+    private static boolean isImage(FileItem item) {
+        return item != null && !item.isFolder() && item.getType() != null
+                && IMAGE_TYPES.contains(item.getType().toLowerCase(Locale.ROOT));
+    }
+
+    public static String thumbnailUrl(Long fileId) {
+        return "/api/files/" + fileId + "/thumbnail";
+    }
+
+    /**
+     * Queue thumbnails for the images and PDFs among freshly stored files, once the surrounding transaction commits
+     */
+    public void scheduleAfterCommit(Collection<FileItem> items) {
+        List<FileItem> sources = items.stream()
+                .filter(ThumbnailService::supports)
+                .toList();
+        if (sources.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            sources.forEach(this::submit);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                sources.forEach(ThumbnailService.this::submit);
+            }
+        });
+    }
+
+    /**
+     * The cached thumbnail of the smallest configured size covering {@code requested} (the largest when
+     * null or bigger than all), rendered first if it is missing
+     */
+    public Path getThumbnail(Long fileId, Integer requested) throws Exception {
+        FileItem item = fileItemRepository.findByIdAndDeletedFalse(fileId)
+                .orElseThrow(() -> new RuntimeException("文件不存在: " + fileId));
+        if (!supports(item)) {
+            throw new RuntimeException("仅图片和 PDF 文件支持缩略图");
+        }
+        Path target = thumbnailPath(fileId, pickSize(requested));
+        if (!Files.exists(target)) {
+            renderExecutors.await(poolFor(item), () -> {
+                render(item);
+                return null;
+            }, properties.getTimeoutSeconds());
+            if (item.getPreviewUrl() == null) {
+                storePreview(item);
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Drop the cached thumbnails of a purged file
+     */
+    public void evict(Long fileId) {
+        deleteMatching(Paths.get(properties.getCacheDir()), fileId + "-*.jpg");
+    }
+
+    /**
+     * Delete the files of a cache directory matching a glob; a missing directory is fine
+     */
+    static void deleteMatching(Path dir, String glob) {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, glob)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            log.warn("Could not delete {} in {}: {}", glob, dir, e.getMessage());
+        }
+    }
+
+    private void submit(FileItem item) {
+        Long fileId = item.getId();
+        try {
+            poolFor(item).execute(() -> renderInBackground(fileId));
+        } catch (RejectedExecutionException e) {
+            log.warn("Thumbnail queue full, file {} will be rendered on first request", fileId);
+        }
+    }
+
+    private ThreadPoolExecutor poolFor(FileItem item) {
+        return PdfPreviewService.supports(item) ? renderExecutors.pdf() : renderExecutors.image();
+    }
+
+    private void renderInBackground(Long fileId) {
+        fileItemRepository.findByIdAndDeletedFalse(fileId).ifPresent(item -> {
+            try {
+                render(item);
+                storePreview(item);
+            } catch (Exception e) {
+                log.warn("Failed to render thumbnails for {}: {}", fileId, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Point the item's preview at its largest thumbnail; the previewUrl change is visible in listings
+     */
+    private void storePreview(FileItem item) {
+        Long fileId = item.getId();
+        fileItemRepository.updatePreview(fileId, thumbnailPath(fileId, largestSize()).toString(), thumbnailUrl(fileId));
+        dataVersions.touch(item.getResource().getId());
+    }
+
+    /**
+     * Write every configured size that is not cached yet, largest first, each scaled from the previous one
+     */
+    private void render(FileItem item) throws IOException {
+        List<Integer> sizes = sortedSizes();
+        if (sizes.stream().allMatch(size -> Files.exists(thumbnailPath(item.getId(), size)))) {
+            return;
+        }
+        long start = System.nanoTime();
+        int largest = sizes.get(sizes.size() - 1);
+        BufferedImage image = PdfPreviewService.supports(item)
+                ? pdfPreviewService.renderFirstPage(item, largest)
+                : decode(fileStorage.file(item.getStoragePath(), item.getStorageEncoding()), largest);
+        Files.createDirectories(Paths.get(properties.getCacheDir()));
+        for (int i = sizes.size() - 1; i >= 0; i--) {
+            image = scaleToFit(image, sizes.get(i));
+            writeJpeg(image, thumbnailPath(item.getId(), sizes.get(i)), properties.getQuality());
+        }
+        log.debug("Rendered thumbnails for {} in {} ms", item.getId(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static BufferedImage decode(StoredFile stored, int largest) throws IOException {
+        // Uncompressed files are read with random access straight from disk; gzip-stored ones as a stream
+        try (InputStream in = stored.isCompressed() ? stored.open() : null;
+             ImageInputStream input = in != null
+                     ? ImageIO.createImageInputStream(in)
+                     : ImageIO.createImageInputStream(stored.path().toFile())) {
+            if (input == null) {
+                throw new IOException("无法读取图片: " + stored.path());
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IOException("无法识别的图片格式");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                // Read every n-th pixel of every n-th row: the raster stays near twice the largest thumbnail
+                int step = Math.max(1, longest / (largest * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scale down (never up) so the longest side fits; transparent areas become white, as JPEG has no alpha
+     */
+    private static BufferedImage scaleToFit(BufferedImage image, int maxSide) {
+        double scale = Math.min(1.0, (double) maxSide / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return scaled;
+    }
+
+    /**
+     * Write to a temp file and move it into place, so concurrent renderings never expose a partial JPEG
+     */
+    static void writeJpeg(BufferedImage image, Path target, float quality) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(temp.toFile())) {
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(quality);
+                writer.setOutput(out);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private Path thumbnailPath(Long fileId, int size) {
+        return Paths.get(properties.getCacheDir(), fileId + "-" + size + ".jpg");
+    }
+
+    private int pickSize(Integer requested) {
+        List<Integer> sizes = sortedSizes();
+        if (requested != null) {
+            for (int size : sizes) {
+                if (size >= requested) {
+                    return size;
+                }
+            }
+        }
+        return sizes.get(sizes.size() - 1);
+    }
+
+    private int largestSize() {
+        return pickSize(null);
+    }
+
+    private List<Integer> sortedSizes() {
+        List<Integer> sizes = properties.getSizes().stream()
+                .filter(size -> size != null && size > 0)
+                .distinct()
+                .sorted()
+                .toList();
+        return sizes.isEmpty() ? List.of(1024) : sizes;
+    }
+}
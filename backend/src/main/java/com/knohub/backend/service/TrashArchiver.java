@@ -0,0 +1,102 @@
+package com.knohub.backend.service;
+
+import com.knohub.backend.config.ArchiveProperties;
+import com.knohub.backend.metrics.BackendMetrics;
+import com.knohub.backend.model.FileItem;
+import com.knohub.backend.repository.ArchivedFileItemRepository;
+import com.knohub.backend.repository.ResourceRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves soft-deleted rows older than {@code archive.after} out of file_items and resources into their
+ * archive tables, so the hot tables and their indexes hold (almost) only live data. Each batch is one
+ * short transaction that locks the same rows the trash purge would ({@link TrashBatches}), copies them
+ * with INSERT ... SELECT and deletes them children first; stored files stay where they are, restore
+ * moves rows back and {@link TrashPurger} removes the files after {@code trash.retention}. Resources are
+ * archived once none of their file rows are left in file_items.
+ */
+@Component
+@Slf4j
+public class TrashArchiver {
+
+    private final ArchivedFileItemRepository archivedFileItemRepository;
+    private final ResourceRepository resourceRepository;
+    private final TrashBatches batches;
+    private final ArchiveProperties properties;
+    private final BackendMetrics metrics;
+    private final TransactionTemplate transactionTemplate;
+
+    public TrashArchiver(ArchivedFileItemRepository archivedFileItemRepository,
+                         ResourceRepository resourceRepository,
+                         TrashBatches batches,
+                         ArchiveProperties properties,
+                         BackendMetrics metrics,
+                         PlatformTransactionManager transactionManager) {
+        this.archivedFileItemRepository = archivedFileItemRepository;
+        this.resourceRepository = resourceRepository;
+        this.batches = batches;
+        this.properties = properties;
+        this.metrics = metrics;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(initialDelayString = "${archive.initial-delay:PT2M}",
+               fixedDelayString = "${archive.interval:PT15M}")
+    public void archive() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getAfter());
+        long start = System.nanoTime();
+        TrashBatches.Outcome total = batches.drain("Trash archiving", () -> {
+            TrashBatches.Outcome batch = transactionTemplate.execute(status -> archiveBatch(cutoff));
+            if (batch == null) {
+                return new TrashBatches.Outcome(0, 0, 0);
+            }
+            if (batch.processed() > 0) {
+                metrics.recordTrashArchive(batch.processed());
+            }
+            return batch;
+        });
+        int resources = batches.isStopping() ? 0 : archiveResources(cutoff);
+        if (total.processed() > 0 || resources > 0) {
+            log.info("Archived {} deleted items and {} deleted resources in {} ms",
+                    total.processed(), resources, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * Copy the next batch of expired trash rows into the archive, then delete them from file_items
+     */
+    private TrashBatches.Outcome archiveBatch(LocalDateTime cutoff) {
+        TrashBatches.Selection selection = batches.lockExpired(cutoff);
+        if (!selection.items().isEmpty()) {
+            archivedFileItemRepository.archive(selection.items().stream().map(FileItem::getId).toList(),
+                    LocalDateTime.now());
+            batches.hardDelete(selection);
+        }
+        return new TrashBatches.Outcome(selection.selected(), selection.items().size(), 0);
+    }
+
+    /**
+     * Archive deleted resources whose file rows have all left file_items
+     */
+    private int archiveResources(LocalDateTime cutoff) {
+        Integer archived = transactionTemplate.execute(status -> {
+            List<Long> ids = resourceRepository.findPurgeableIds(cutoff);
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            resourceRepository.archiveByIds(ids, LocalDateTime.now());
+            return resourceRepository.hardDeleteByIds(ids);
+        });
+        return archived == null ? 0 : archived;
+    }
+}
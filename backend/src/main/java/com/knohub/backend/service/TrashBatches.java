@@ -0,0 +1,142 @@
+package com.knohub.backend.service;
+
+import com.knohub.backend.config.TrashProperties;
+import com.knohub.backend.model.FileItem;
+import com.knohub.backend.repository.FileItemRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Batching shared by {@link TrashPurger} and {@link TrashArchiver}: which trash rows one batch takes out of
+ * file_items, and the throttled loop that runs batches until the backlog is drained
+ * ({@code trash.batch-size}, {@code trash.batch-pause}).
+ */
+@Component
+@Slf4j
+class TrashBatches {
+
+    private final FileItemRepository fileItemRepository;
+    private final TrashProperties properties;
+    private volatile boolean stopping;
+
+    TrashBatches(FileItemRepository fileItemRepository, TrashProperties properties) {
+        this.fileItemRepository = fileItemRepository;
+        this.properties = properties;
+    }
+
+    /**
+     * Rows one batch locked, and those of them that can leave file_items now
+     *
+     * @param selected        rows locked, including folders that still have other children
+     * @param items           rows to remove
+     * @param idsDeepestFirst ids of {@code items} per depth, deepest level first
+     */
+    record Selection(int selected, List<FileItem> items, Collection<List<Long>> idsDeepestFirst) {
+    }
+
+    /**
+     * What one batch did: rows looked at, rows removed (or marked), stored bytes reclaimed
+     */
+    record Outcome(int selected, int processed, long bytes) {
+    }
+
+    /**
+     * Lock the next trash rows deleted before the cutoff and drop folders that still have children outside
+     * the batch. Call inside the transaction that removes the rows, deleting per level in the given order
+     * so no statement removes a folder before its contents.
+     */
+    Selection lockExpired(LocalDateTime cutoff) {
+        List<FileItem> selected = fileItemRepository.findPurgeBatch(cutoff, PageRequest.of(0, batchSize()));
+        if (selected.isEmpty()) {
+            return new Selection(0, List.of(), List.of());
+        }
+        Set<Long> ids = selected.stream().map(FileItem::getId).collect(Collectors.toSet());
+        // Normally empty: everything beneath a deleted folder was deleted with it or before it
+        Set<Long> blocked = new HashSet<>(fileItemRepository.findParentsWithOtherChildren(ids));
+
+        List<FileItem> items = new ArrayList<>();
+        Map<Integer, List<Long>> byDepth = new TreeMap<>((a, b) -> Integer.compare(b, a));
+        for (FileItem item : selected) {
+            if (blocked.contains(item.getId())) {
+                continue;
+            }
+            items.add(item);
+            byDepth.computeIfAbsent(item.ancestorIds().size(), depth -> new ArrayList<>()).add(item.getId());
+        }
+        return new Selection(selected.size(), items, byDepth.values());
+    }
+
+    /**
+     * Hard-delete the rows of a selection from file_items, children before their folders
+     */
+    void hardDelete(Selection selection) {
+        selection.idsDeepestFirst().forEach(fileItemRepository::hardDeleteByIds);
+    }
+
+    /**
+     * Run batches until one processes nothing or comes back short, or the application stops, pausing
+     * {@code trash.batch-pause} in between
+     *
+     * @param job   name for the log
+     * @param batch one committed batch, including any work after its commit
+     * @return totals over all batches
+     */
+    Outcome drain(String job, Supplier<Outcome> batch) {
+        int processed = 0;
+        long bytes = 0;
+        while (!stopping) {
+            Outcome outcome = batch.get();
+            if (outcome.processed() == 0) {
+                if (outcome.selected() > 0) {
+                    log.warn("{} stopped at {} folders that still have newer children", job, outcome.selected());
+                }
+                break;
+            }
+            processed += outcome.processed();
+            bytes += outcome.bytes();
+            if (outcome.selected() < batchSize() || !pause()) {
+                break;
+            }
+        }
+        return new Outcome(processed, processed, bytes);
+    }
+
+    boolean isStopping() {
+        return stopping;
+    }
+
+    int batchSize() {
+        return Math.max(1, properties.getBatchSize());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        stopping = true;
+    }
+
+    /**
+     * Throttle between batches; false when interrupted (shutdown)
+     */
+    private boolean pause() {
+        try {
+            Thread.sleep(properties.getBatchPause().toMillis());
+            return !stopping;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.knohub.backend.service;
+
+import com.knohub.backend.config.ArchiveProperties;
+import com.knohub.backend.config.TrashProperties;
+import com.knohub.backend.metrics.BackendMetrics;
+import com.knohub.backend.model.ArchivedFileItem;
+import com.knohub.backend.model.FileItem;
+import com.knohub.backend.repository.ArchivedFileItemRepository;
+import com.knohub.backend.repository.ResourceRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Removes the stored files and cached previews of trash items past {@code trash.retention}. Each batch is
+ * one short transaction that locks its rows (a concurrent restore waits and then finds nothing) and is
+ * followed by the file removal and quota release once it committed; batches are separated by
+ * {@code trash.batch-pause}. With {@code archive.enabled} the rows live in the archive tables: they are
+ * only marked purged and kept for audit until {@code archive.retention}. Otherwise they are hard-deleted
+ * from file_items, children before their folders, and resources deleted before the cutoff go last, once
+ * none of their file rows are left.
+ */
+@Component
+@Slf4j
+public class TrashPurger {
+
+    private final ArchivedFileItemRepository archivedFileItemRepository;
+    private final ResourceRepository resourceRepository;
+    private final TrashBatches batches;
+    private final FileService fileService;
+    private final StorageQuota storageQuota;
+    private final ThumbnailService thumbnailService;
+    private final PdfPreviewService pdfPreviewService;
+    private final TextPreviewService textPreviewService;
+    private final TrashProperties properties;
+    private final ArchiveProperties archiveProperties;
+    private final BackendMetrics metrics;
+    private final TransactionTemplate transactionTemplate;
+    private final String uploadDir;
+
+    public TrashPurger(ArchivedFileItemRepository archivedFileItemRepository,
+                       ResourceRepository resourceRepository,
+                       TrashBatches batches,
+                       FileService fileService,
+                       StorageQuota storageQuota,
+                       ThumbnailService thumbnailService,
+                       PdfPreviewService pdfPreviewService,
+                       TextPreviewService textPreviewService,
+                       TrashProperties properties,
+                       ArchiveProperties archiveProperties,
+                       BackendMetrics metrics,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${file.upload-dir:./uploads}") String uploadDir) {
+        this.archivedFileItemRepository = archivedFileItemRepository;
+        this.resourceRepository = resourceRepository;
+        this.batches = batches;
+        this.fileService = fileService;
+        this.storageQuota = storageQuota;
+        this.thumbnailService = thumbnailService;
+        this.pdfPreviewService = pdfPreviewService;
+        this.textPreviewService = textPreviewService;
+        this.properties = properties;
+        this.archiveProperties = archiveProperties;
+        this.metrics = metrics;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.uploadDir = uploadDir;
+    }
+
+    /**
+     * What one committed batch removed from the database (or marked purged) and still has to leave the disk
+     */
+    private record Batch(int selected, List<StoredCopy> purged) {
+    }
+
+    /**
+     * The parts of a hot or archived row needed to remove its stored file and cached previews
+     */
+    private record StoredCopy(Long id, Long resourceId, boolean folder, Long sizeBytes,
+                              String storagePath, String type, Integer deleteSequence) {
+
+        static StoredCopy of(FileItem item) {
+            return new StoredCopy(item.getId(), item.getResource().getId(), item.isFolder(), item.getSizeBytes(),
+                    item.getStoragePath(), item.getType(), item.getDeleteSequence());
+        }
+
+        static StoredCopy of(ArchivedFileItem item) {
+            return new StoredCopy(item.getId(), item.getResourceId(), item.isFolder(), item.getSizeBytes(),
+                    item.getStoragePath(), item.getType(), item.getDeleteSequence());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${trash.purge-initial-delay:PT5M}",
+               fixedDelayString = "${trash.purge-interval:PT1H}")
+    public void purge() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getRetention());
+        long start = System.nanoTime();
+        boolean archive = archiveProperties.isEnabled();
+        TrashBatches.Outcome total = batches.drain("Trash purge", () -> {
+            Batch batch = transactionTemplate.execute(status -> archive ? purgeArchivedBatch(cutoff) : purgeBatch(cutoff));
+            if (batch == null || batch.purged().isEmpty()) {
+                return new TrashBatches.Outcome(batch == null ? 0 : batch.selected(), 0, 0);
+            }
+            long bytes = reclaim(batch.purged());
+            metrics.recordTrashPurge(batch.purged().size(), bytes);
+            return new TrashBatches.Outcome(batch.selected(), batch.purged().size(), bytes);
+        });
+        int resources = batches.isStopping() ? 0 : archive ? expireArchive() : purgeResources(cutoff);
+        if (total.processed() > 0 || resources > 0) {
+            log.info("Trash purge removed {} items ({}) and {} resources in {} ms", total.processed(),
+                    FileService.formatFileSize(total.bytes()), resources, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * Hard-delete the next expired rows that have no remaining children (see {@link TrashBatches#lockExpired})
+     */
+    private Batch purgeBatch(LocalDateTime cutoff) {
+        TrashBatches.Selection selection = batches.lockExpired(cutoff);
+        batches.hardDelete(selection);
+        return new Batch(selection.selected(), selection.items().stream().map(StoredCopy::of).toList());
+    }
+
+    /**
+     * Lock the next expired archive rows and mark them purged; the records themselves stay for audit
+     */
+    private Batch purgeArchivedBatch(LocalDateTime cutoff) {
+        List<ArchivedFileItem> selected = archivedFileItemRepository.findPurgeBatch(cutoff,
+                PageRequest.of(0, batches.batchSize()));
+        if (selected.isEmpty()) {
+            return new Batch(0, List.of());
+        }
+        archivedFileItemRepository.markPurged(selected.stream().map(ArchivedFileItem::getId).toList(),
+                LocalDateTime.now());
+        return new Batch(selected.size(), selected.stream().map(StoredCopy::of).toList());
+    }
+
+    /**
+     * Remove the stored files and cached previews of committed rows and hand their bytes back to the quota
+     */
+    private long reclaim(List<StoredCopy> purged) {
+        Map<Long, Long> bytesByResource = new HashMap<>();
+        long total = 0;
+        for (StoredCopy item : purged) {
+            if (item.folder()) {
+                continue;
+            }
+            long size = item.sizeBytes() == null ? 0 : item.sizeBytes();
+            bytesByResource.merge(item.resourceId(), size, Long::sum);
+            total += size;
+            if (item.storagePath() != null) {
+                Path stored = Paths.get(item.storagePath());
+                deleteQuietly(stored);
+                if ("circ".equalsIgnoreCase(item.type())) {
+                    deleteQuietly(fileService.logisimPreviewPath(originalPath(stored, item.deleteSequence())));
+                }
+            }
+            thumbnailService.evict(item.id());
+            pdfPreviewService.evict(item.id());
+            textPreviewService.evict(item.id());
+        }
+        bytesByResource.forEach(storageQuota::release);
+        return total;
+    }
+
+    /**
+     * Delete resources whose retention ran out and whose files are all gone, with their upload folders
+     */
+    private int purgeResources(LocalDateTime cutoff) {
+        List<Long> ids = transactionTemplate.execute(status -> {
+            List<Long> purgeable = resourceRepository.findPurgeableIds(cutoff);
+            if (!purgeable.isEmpty()) {
+                resourceRepository.hardDeleteByIds(purgeable);
+            }
+            return purgeable;
+        });
+        if (ids == null) {
+            return 0;
+        }
+        removeUploadDirs(ids);
+        return ids.size();
+    }
+
+    /**
+     * Drop archive records past {@code archive.retention} in batches: purged file records first, then
+     * resource records with no file records left, together with their (by then empty) upload folders
+     */
+    private int expireArchive() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(archiveProperties.getRetention());
+        int files = batches.drain("Archive expiry", () -> {
+            Integer deleted = transactionTemplate.execute(status -> {
+                List<Long> ids = archivedFileItemRepository.findExpiredIds(cutoff, PageRequest.of(0, batches.batchSize()));
+                return ids.isEmpty() ? 0 : archivedFileItemRepository.deleteByIds(ids);
+            });
+            int count = deleted == null ? 0 : deleted;
+            return new TrashBatches.Outcome(count, count, 0);
+        }).processed();
+        if (files > 0) {
+            log.info("Dropped {} archived file records past the archive retention", files);
+        }
+        List<Long> ids = transactionTemplate.execute(status -> {
+            List<Long> expired = resourceRepository.findExpiredArchivedIds(cutoff);
+            if (!expired.isEmpty()) {
+                resourceRepository.deleteArchivedByIds(expired);
+            }
+            return expired;
+        });
+        if (ids == null) {
+            return 0;
+        }
+        removeUploadDirs(ids);
+        return ids.size();
+    }
+
+    private void removeUploadDirs(List<Long> ids) {
+        for (Long id : ids) {
+            Path dir = Paths.get(uploadDir, String.valueOf(id));
+            try (var leftovers = Files.list(dir)) {
+                // Only an empty folder is removed; anything left there was not tracked by a row
+                if (leftovers.findAny().isEmpty()) {
+                    Files.delete(dir);
+                }
+            } catch (IOException e) {
+                log.debug("Upload folder of purged resource {} not removed: {}", id, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Path a file had before it was renamed to {@code _deleted_N} (its Logisim preview is still named after it)
+     */
+    private static Path originalPath(Path stored, Integer deleteSequence) {
+        String name = stored.getFileName().toString();
+        String suffix = "_deleted_" + deleteSequence;
+        return name.endsWith(suffix)
+                ? stored.resolveSibling(name.substring(0, name.length() - suffix.length()))
+                : stored;
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete purged file {}: {}", path, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.knohub.backend.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.knohub.backend.config.BinaryFormatConfig;
+import com.knohub.backend.dto.FileItemDTO;
+import com.knohub.backend.dto.ResourceDTO;
+import com.knohub.backend.metrics.BackendMetrics;
+import com.knohub.backend.model.Resource;
+import com.knohub.backend.repository.FileItemRepository;
+import com.knohub.backend.repository.ResourceRepository;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes resource file trees as JSON straight to the response stream. A tree is read as one flat
+ * projection query and emitted node by node with a {@link JsonGenerator}, so neither a FileItemDTO graph
+ * nor a serialized buffer of the whole payload is ever held; the output is identical to serializing
+ * {@code ApiResponse<List<FileItemDTO>>}. Clients that accept Smile or CBOR get the same document in that
+ * encoding, written through the matching generator.
+ */
+@Component
+public class TreeJsonWriter {
+
+    private static final int ID = 0;
+    private static final int PARENT_ID = 1;
+    private static final int NAME = 2;
+    private static final int IS_FOLDER = 3;
+    private static final int TYPE = 4;
+    private static final int SIZE = 5;
+    private static final int URL = 6;
+    private static final int PREVIEW_URL = 7;
+    private static final int SIZE_BYTES = 8;
+    private static final int TOTAL_BYTES = 9;
+    private static final int FILE_COUNT = 10;
+    private static final int CONTENT_MODIFIED_AT = 11;
+    private static final int UPDATED_AT = 12;
+    private static final int DISPLAY_ORDER = 13;
+
+    private final FileItemRepository fileItemRepository;
+    private final ResourceRepository resourceRepository;
+    private final BackendMetrics metrics;
+    private final TransactionTemplate readOnly;
+    private final Encoding json;
+    private final List<Encoding> binary;
+
+    public TreeJsonWriter(FileItemRepository fileItemRepository,
+                          ResourceRepository resourceRepository,
+                          ObjectMapper objectMapper,
+                          MappingJackson2SmileHttpMessageConverter smileConverter,
+                          MappingJackson2CborHttpMessageConverter cborConverter,
+                          BackendMetrics metrics,
+                          PlatformTransactionManager transactionManager) {
+        this.fileItemRepository = fileItemRepository;
+        this.resourceRepository = resourceRepository;
+        this.metrics = metrics;
+        this.json = new Encoding(MediaType.APPLICATION_JSON, objectMapper);
+        this.binary = List.of(
+                new Encoding(BinaryFormatConfig.APPLICATION_SMILE, smileConverter.getObjectMapper()),
+                new Encoding(MediaType.APPLICATION_CBOR, cborConverter.getObjectMapper()));
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    /**
+     * Live items of one resource grouped by parent (null key for the root level), each group in display order,
+     * and the change feed version read before them (the tree may already contain later changes)
+     */
+    public record Tree(long changeVersion, Map<Long, List<Object[]>> children) {
+    }
+
+    /**
+     * Content type of a response and the mapper whose generator writes it
+     */
+    public record Encoding(MediaType mediaType, ObjectMapper mapper) {
+    }
+
+    /**
+     * The encoding for an Accept header: the first listed Smile or CBOR type, unless JSON or a wildcard is
+     * listed before it; JSON when the header is absent or unparseable
+     */
+    public Encoding negotiate(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return json;
+        }
+        try {
+            for (MediaType requested : MediaType.parseMediaTypes(accept)) {
+                if (requested.getQualityValue() == 0) {
+                    continue;
+                }
+                if (requested.isWildcardType() || requested.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                    return json;
+                }
+                for (Encoding encoding : binary) {
+                    if (requested.isCompatibleWith(encoding.mediaType())) {
+                        return encoding;
+                    }
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            // Malformed header: answer with the default rather than failing the request
+        }
+        return json;
+    }
+
+    /**
+     * Load a resource's tree in one short read-only transaction; the connection is back in the pool
+     * before any of it is written
+     *
+     * @throws RuntimeException when the resource does not exist or was deleted
+     */
+    public Tree load(Long resourceId) {
+        return readOnly.execute(status -> {
+            Resource resource = resourceRepository.findByIdAndDeletedFalse(resourceId)
+                    .orElseThrow(() -> new RuntimeException("资源不存在或已删除: " + resourceId));
+            return group(resource.getChangeVersion(), fileItemRepository.findTreeNodeRows(resourceId));
+        });
+    }
+
+    /**
+     * {@code {"success":true,"message":"操作成功","data":[...]}} for one resource's tree
+     */
+    public void writeFiles(Tree tree, Encoding encoding, OutputStream out) throws IOException {
+        try (JsonGenerator gen = encoding.mapper().getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            writeEnvelopeStart(gen);
+            writeTree(gen, tree);
+            gen.writeEndObject();
+        }
+    }
+
+    /**
+     * The resource list with every tree inlined, one resource loaded and written at a time
+     */
+    public void writeResources(List<ResourceDTO> summaries, Encoding encoding, OutputStream out) throws IOException {
+        try (JsonGenerator gen = encoding.mapper().getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            writeEnvelopeStart(gen);
+            gen.writeStartArray();
+            for (ResourceDTO summary : summaries) {
+                Tree tree = readOnly.execute(status ->
+                        group(summary.getChangeVersion(), fileItemRepository.findTreeNodeRows(summary.getId())));
+                writeResource(gen, encoding.mapper(), summary, tree);
+                // Hand each finished resource to the (compressing) response instead of letting the buffer grow
+                gen.flush();
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        }
+    }
+
+    private static void writeEnvelopeStart(JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        gen.writeBooleanField("success", true);
+        gen.writeStringField("message", "操作成功");
+        gen.writeFieldName("data");
+    }
+
+    private void writeResource(JsonGenerator gen, ObjectMapper mapper, ResourceDTO summary, Tree tree)
+            throws IOException {
+        // Header fields go through the mapper so their names and formats follow ResourceDTO exactly
+        JsonNode header = mapper.valueToTree(summary);
+        gen.writeStartObject();
+        for (Iterator<Map.Entry<String, JsonNode>> fields = header.fields(); fields.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (!"files".equals(field.getKey())) {
+                gen.writeFieldName(field.getKey());
+                gen.writeTree(field.getValue());
+            }
+        }
+        gen.writeFieldName("files");
+        writeTree(gen, tree);
+        gen.writeEndObject();
+    }
+
+    private void writeTree(JsonGenerator gen, Tree tree) throws IOException {
+        long start = System.nanoTime();
+        int[] written = new int[1];
+        writeLevel(gen, tree.children(), null, written);
+        metrics.recordTreeBuild(written[0], System.nanoTime() - start);
+    }
+
+    private void writeLevel(JsonGenerator gen, Map<Long, List<Object[]>> children, Long parentId, int[] written)
+            throws IOException {
+        gen.writeStartArray();
+        for (Object[] row : children.getOrDefault(parentId, List.of())) {
+            writeNode(gen, row, children, written);
+        }
+        gen.writeEndArray();
+    }
+
+    /**
+     * Same fields and values as FileService's FileItemDTO mapping
+     */
+    private void writeNode(JsonGenerator gen, Object[] row, Map<Long, List<Object[]>> children, int[] written)
+            throws IOException {
+        boolean folder = (Boolean) row[IS_FOLDER];
+        LocalDateTime contentModifiedAt = (LocalDateTime) row[CONTENT_MODIFIED_AT];
+
+        gen.writeStartObject();
+        gen.writeObjectField("id", row[ID]);
+        gen.writeStringField("name", (String) row[NAME]);
+        gen.writeBooleanField("isFolder", folder);
+        gen.writeStringField("type", (String) row[TYPE]);
+        gen.writeStringField("size", (String) row[SIZE]);
+        gen.writeStringField("url", (String) row[URL]);
+        gen.writeStringField("previewUrl", (String) row[PREVIEW_URL]);
+        gen.writeObjectField("totalBytes", folder ? row[TOTAL_BYTES] : row[SIZE_BYTES]);
+        gen.writeObjectField("fileCount", folder ? row[FILE_COUNT] : null);
+        gen.writeObjectField("lastModified", folder && contentModifiedAt != null ? contentModifiedAt : row[UPDATED_AT]);
+        gen.writeObjectField("displayOrder", row[DISPLAY_ORDER]);
+        gen.writeFieldName("children");
+        written[0]++;
+        if (folder) {
+            writeLevel(gen, children, (Long) row[ID], written);
+        } else {
+            gen.writeNull();
+        }
+        gen.writeEndObject();
+    }
+
+    /**
+     * The tree of {@link FileItemRepository#findTreeNodeRows} rows as FileItemDTOs, for responses that embed
+     * it in another document; folders get a (possibly empty) children list, files null
+     */
+    static List<FileItemDTO> toDTOs(List<Object[]> rows) {
+        return dtoLevel(group(0, rows).children(), null);
+    }
+
+    private static List<FileItemDTO> dtoLevel(Map<Long, List<Object[]>> children, Long parentId) {
+        List<FileItemDTO> level = new ArrayList<>();
+        for (Object[] row : children.getOrDefault(parentId, List.of())) {
+            boolean folder = (Boolean) row[IS_FOLDER];
+            LocalDateTime contentModifiedAt = (LocalDateTime) row[CONTENT_MODIFIED_AT];
+            level.add(FileItemDTO.builder()
+                    .id((Long) row[ID])
+                    .name((String) row[NAME])
+                    .isFolder(folder)
+                    .type((String) row[TYPE])
+                    .size((String) row[SIZE])
+                    .url((String) row[URL])
+                    .previewUrl((String) row[PREVIEW_URL])
+                    .totalBytes((Long) (folder ? row[TOTAL_BYTES] : row[SIZE_BYTES]))
+                    .fileCount(folder ? (Long) row[FILE_COUNT] : null)
+                    .lastModified(folder && contentModifiedAt != null
+                            ? contentModifiedAt : (LocalDateTime) row[UPDATED_AT])
+                    .displayOrder((Integer) row[DISPLAY_ORDER])
+                    .children(folder ? dtoLevel(children, (Long) row[ID]) : null)
+                    .build());
+        }
+        return level;
+    }
+
+    private static Tree group(long changeVersion, List<Object[]> rows) {
+        Map<Long, List<Object[]>> children = new HashMap<>();
+        for (Object[] row : rows) {
+            children.computeIfAbsent((Long) row[PARENT_ID], id -> new ArrayList<>()).add(row);
+        }
+        return new Tree(changeVersion, children);
+    }
+}
@@ -0,0 +1,209 @@
+package com.knohub.backend.service;
+
+import com.knohub.backend.model.FileItem;
+import com.knohub.backend.model.Resource;
+import com.knohub.backend.repository.FileItemRepository;
+import com.knohub.backend.repository.ResourceRepository;
+import com.knohub.backend.storage.StoredFile;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams a folder or a whole resource as a ZIP archive.
+ * The live tree (or, for a folder, its materialized-path subtree) is loaded with one query into a flat plan before streaming starts, so the
+ * database connection is released before the (possibly slow) transfer; files are then copied
+ * one buffer at a time straight into the response, with no temp file.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ZipDownloadService {
+
+    /**
+     * Formats that are already compressed; deflating them again costs CPU for no gain
+     */
+    private static final Set<String> STORED_TYPES = Set.of(
+            "pdf", "png", "jpg", "jpeg", "gif", "webp", "zip", "gz", "7z", "rar",
+            "mp3", "mp4", "docx", "xlsx", "pptx");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileItemRepository fileItemRepository;
+    private final ResourceRepository resourceRepository;
+
+    /**
+     * One archive entry: a directory (storagePath null) or a stored file
+     */
+    public record Entry(String path, String storagePath, String type, String storageEncoding) {
+        boolean isDirectory() {
+            return storagePath == null;
+        }
+    }
+
+    /**
+     * Everything needed to stream an archive without touching the database again
+     */
+    public record ZipPlan(String archiveName, List<Entry> entries) {
+    }
+
+    /**
+     * Plan the archive for a folder and everything beneath it
+     */
+    @Transactional(readOnly = true)
+    public ZipPlan planFolder(Long folderId) {
+        FileItem folder = fileItemRepository.findByIdAndDeletedFalse(folderId)
+                .orElseThrow(() -> new RuntimeException("文件夹不存在: " + folderId));
+        if (!folder.isFolder()) {
+            throw new RuntimeException("这是文件，请使用文件下载接口");
+        }
+        Map<Long, List<Object[]>> children = group(fileItemRepository.findLiveSubtreeRows(folder.childPathPrefix()));
+        String root = safeName(folder.getOriginalName());
+        return new ZipPlan(root + ".zip", walk(children, folder.getId(), root + "/"));
+    }
+
+    /**
+     * Plan the archive for every live file of a resource
+     */
+    @Transactional(readOnly = true)
+    public ZipPlan planResource(Long resourceId) {
+        Resource resource = resourceRepository.findByIdAndDeletedFalse(resourceId)
+                .orElseThrow(() -> new RuntimeException("资源不存在或已删除: " + resourceId));
+        Map<Long, List<Object[]>> children = group(fileItemRepository.findLiveTreeRows(resourceId));
+        String root = safeName(resource.getTitle());
+        return new ZipPlan(root + ".zip", walk(children, null, root + "/"));
+    }
+
+    /**
+     * Write the planned archive to the given stream.
+     * An IOException from the stream (e.g. the client disconnected) aborts the transfer immediately.
+     *
+     * @return Number of source bytes written
+     */
+    public long write(ZipPlan plan, OutputStream out) throws IOException {
+        long total = 0;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        ZipOutputStream zip = new ZipOutputStream(out);
+        for (Entry entry : plan.entries()) {
+            if (entry.isDirectory()) {
+                zip.putNextEntry(new ZipEntry(entry.path()));
+                zip.closeEntry();
+                continue;
+            }
+
+            StoredFile source = new StoredFile(Paths.get(entry.storagePath()), entry.storageEncoding());
+            if (!source.exists()) {
+                log.warn("Skipping missing file in ZIP download: {}", source.path());
+                continue;
+            }
+
+            ZipEntry zipEntry = new ZipEntry(entry.path());
+            if (entry.type() != null && STORED_TYPES.contains(entry.type().toLowerCase())) {
+                // STORED entries need size and CRC up front; one extra read keeps memory constant
+                zipEntry.setMethod(ZipEntry.STORED);
+                long[] sizeAndCrc = sizeAndCrc32(source, buffer);
+                zipEntry.setSize(sizeAndCrc[0]);
+                zipEntry.setCompressedSize(sizeAndCrc[0]);
+                zipEntry.setCrc(sizeAndCrc[1]);
+            }
+            zip.putNextEntry(zipEntry);
+            try (InputStream in = source.open()) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    zip.write(buffer, 0, read);
+                    total += read;
+                }
+            }
+            zip.closeEntry();
+        }
+        zip.finish();
+        zip.flush();
+        return total;
+    }
+
+    /**
+     * Group flat tree rows by parent id (null key for root level).
+     * Rows are [id, parentId, originalName, isFolder, storagePath, type, storageEncoding].
+     */
+    private static Map<Long, List<Object[]>> group(List<Object[]> rows) {
+        Map<Long, List<Object[]>> children = new HashMap<>();
+        for (Object[] row : rows) {
+            children.computeIfAbsent((Long) row[1], key -> new ArrayList<>()).add(row);
+        }
+        return children;
+    }
+
+    private List<Entry> walk(Map<Long, List<Object[]>> children, Long rootId, String rootPath) {
+        List<Entry> entries = new ArrayList<>();
+        entries.add(new Entry(rootPath, null, null, null));
+
+        Deque<Object[]> stack = new ArrayDeque<>();
+        Deque<String> paths = new ArrayDeque<>();
+        pushChildren(children.get(rootId), rootPath, stack, paths);
+        while (!stack.isEmpty()) {
+            Object[] row = stack.pop();
+            String path = paths.pop() + safeName((String) row[2]);
+            if ((Boolean) row[3]) {
+                entries.add(new Entry(path + "/", null, null, null));
+                pushChildren(children.get((Long) row[0]), path + "/", stack, paths);
+            } else if (row[4] != null) {
+                entries.add(new Entry(path, (String) row[4], (String) row[5], (String) row[6]));
+            }
+        }
+        return entries;
+    }
+
+    private static void pushChildren(List<Object[]> rows, String parentPath, Deque<Object[]> stack, Deque<String> paths) {
+        if (rows == null) {
+            return;
+        }
+        // Reverse push so entries come out in display order
+        for (int i = rows.size() - 1; i >= 0; i--) {
+            stack.push(rows.get(i));
+            paths.push(parentPath);
+        }
+    }
+
+    /**
+     * Original size and CRC of a stored file (decoded, so also correct for files compressed at rest)
+     */
+    private static long[] sizeAndCrc32(StoredFile source, byte[] buffer) throws IOException {
+        CRC32 crc = new CRC32();
+        long size = 0;
+        try (InputStream in = source.open()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+                size += read;
+            }
+        }
+        return new long[]{size, crc.getValue()};
+    }
+
+    /**
+     * Names become path segments; strip separators so no entry can escape its folder
+     */
+    private static String safeName(String name) {
+        if (name == null || name.isBlank()) {
+            return "unnamed";
+        }
+        String cleaned = name.replace('/', '_').replace('\\', '_');
+        return cleaned.equals(".") || cleaned.equals("..") ? "_" : cleaned;
+    }
+}
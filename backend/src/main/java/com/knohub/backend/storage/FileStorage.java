@@ -0,0 +1,127 @@
+package com.knohub.backend.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes uploaded content to disk, gzip-compressing text-like types when a sample of the leading bytes
+ * shows the content is worth it. The chosen encoding is recorded on the FileItem and read back through
+ * {@link StoredFile#open()}.
+ */
+@Component
+public class FileStorage {
+
+    public static final String GZIP = "gzip";
+
+    /**
+     * Source code, markup, Logisim XML and legacy Office binaries; already-compressed formats never qualify
+     */
+    private static final Set<String> COMPRESSIBLE_TYPES = Set.of(
+            "txt", "md", "csv", "tsv", "log", "json", "xml", "yml", "yaml", "html", "htm", "css", "svg",
+            "circ", "doc", "xls", "ppt", "rtf", "tex",
+            "c", "h", "cpp", "hpp", "cc", "java", "kt", "py", "js", "ts", "vue", "go", "rs", "sh", "sql",
+            "v", "sv", "vhd", "vhdl", "s", "asm");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final boolean enabled;
+    private final double minRatio;
+    private final int sampleBytes;
+
+    public FileStorage(@Value("${storage.compression.enabled:true}") boolean enabled,
+                       @Value("${storage.compression.min-ratio:1.5}") double minRatio,
+                       @Value("${storage.compression.sample-bytes:65536}") int sampleBytes) {
+        this.enabled = enabled;
+        this.minRatio = minRatio;
+        this.sampleBytes = Math.max(1024, sampleBytes);
+    }
+
+    /**
+     * Outcome of a write: the original (uncompressed) size and the on-disk encoding
+     */
+    public record Written(long size, String encoding) {
+    }
+
+    /**
+     * Copy the stream to {@code target}, compressed when the type and a sampled ratio qualify.
+     * The stream is read to the end but not closed.
+     *
+     * @param type lower-case file extension, may be null
+     */
+    public Written write(InputStream in, Path target, String type) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        if (!enabled || type == null || !COMPRESSIBLE_TYPES.contains(type)) {
+            try (OutputStream out = Files.newOutputStream(target)) {
+                return new Written(copy(in, out, buffer, null, 0), null);
+            }
+        }
+
+        byte[] sample = new byte[sampleBytes];
+        int sampled = readFully(in, sample);
+        boolean compress = sampled > 0 && sampleRatio(sample, sampled) >= minRatio;
+        try (OutputStream out = compress
+                ? new GZIPOutputStream(Files.newOutputStream(target), BUFFER_SIZE)
+                : Files.newOutputStream(target)) {
+            long size = copy(in, out, buffer, sample, sampled);
+            return new Written(size, compress ? GZIP : null);
+        }
+    }
+
+    public StoredFile file(String storagePath, String encoding) {
+        return new StoredFile(Path.of(storagePath), encoding);
+    }
+
+    private static long copy(InputStream in, OutputStream out, byte[] buffer, byte[] head, int headLength)
+            throws IOException {
+        long total = headLength;
+        if (headLength > 0) {
+            out.write(head, 0, headLength);
+        }
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+            total += read;
+        }
+        return total;
+    }
+
+    private static int readFully(InputStream in, byte[] target) throws IOException {
+        int filled = 0;
+        while (filled < target.length) {
+            int read = in.read(target, filled, target.length - filled);
+            if (read == -1) {
+                break;
+            }
+            filled += read;
+        }
+        return filled;
+    }
+
+    /**
+     * Original-to-compressed size ratio of the sample at the default deflate level (what GZIPOutputStream uses)
+     */
+    private static double sampleRatio(byte[] sample, int length) {
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(sample, 0, length);
+            deflater.finish();
+            byte[] out = new byte[BUFFER_SIZE];
+            long compressed = 0;
+            while (!deflater.finished()) {
+                compressed += deflater.deflate(out);
+            }
+            return (double) length / Math.max(1, compressed);
+        } finally {
+            deflater.end();
+        }
+    }
+}
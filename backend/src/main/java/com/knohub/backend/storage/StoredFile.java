@@ -0,0 +1,117 @@
+package com.knohub.backend.storage;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A stored file and how its bytes are encoded on disk. {@link #open()} always yields the original
+ * content, so readers (downloads, previews, ZIP export) never need to know whether it was compressed.
+ *
+ * @param path         physical location
+ * @param encoding     {@link FileStorage#GZIP}, or null for raw bytes
+ * @param originalSize bytes {@link #open()} yields, or null when not known without reading the file
+ */
+public record StoredFile(Path path, String encoding, Long originalSize) {
+
+    public StoredFile(Path path, String encoding) {
+        this(path, encoding, null);
+    }
+
+    public boolean isCompressed() {
+        return encoding != null;
+    }
+
+    /**
+     * Original content, decompressed on the fly when needed
+     */
+    public InputStream open() throws IOException {
+        InputStream raw = Files.newInputStream(path);
+        if (!isCompressed()) {
+            return raw;
+        }
+        try {
+            return new GZIPInputStream(new BufferedInputStream(raw, 64 * 1024), 64 * 1024);
+        } catch (IOException e) {
+            raw.close();
+            throw e;
+        }
+    }
+
+    /**
+     * {@code count} bytes of the original content starting at {@code offset}; compressed files are decoded
+     * up to the offset
+     */
+    public InputStream open(long offset, long count) throws IOException {
+        InputStream in = open();
+        try {
+            in.skipNBytes(offset);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        return new LimitedInputStream(in, count);
+    }
+
+    public boolean exists() {
+        return Files.isRegularFile(path);
+    }
+
+    /**
+     * Ends the wrapped stream after a fixed number of bytes
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = super.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+}
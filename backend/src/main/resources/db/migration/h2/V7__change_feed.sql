@@ -0,0 +1,23 @@
+-- Per-resource change log behind the file tree change feed (SSE push and ?since= catch-up).
+-- resources.change_version is the last version handed out; a writer bumps it inside its transaction,
+-- which row-locks the resource, so versions of one resource become visible in order.
+ALTER TABLE resources ADD COLUMN change_version BIGINT DEFAULT 0 NOT NULL;
+
+CREATE SEQUENCE file_changes_seq START WITH 1 INCREMENT BY 50;
+
+-- Kept for change-feed.retention only; no foreign keys so pruning and purges stay independent
+CREATE TABLE file_changes (
+    id            BIGINT       NOT NULL,
+    resource_id   BIGINT       NOT NULL,
+    version       BIGINT       NOT NULL,
+    change_type   VARCHAR(16)  NOT NULL,
+    file_id       BIGINT       NOT NULL,
+    parent_id     BIGINT,
+    display_order INTEGER,
+    node          VARCHAR(4000),
+    created_at    TIMESTAMP(6) NOT NULL,
+    CONSTRAINT pk_file_changes PRIMARY KEY (id)
+);
+
+CREATE INDEX ix_file_changes_resource_version ON file_changes (resource_id, version);
+CREATE INDEX ix_file_changes_created_at ON file_changes (created_at);
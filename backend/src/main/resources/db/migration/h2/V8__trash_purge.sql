@@ -0,0 +1,4 @@
+-- Trash listing per resource and the purge scan over expired soft-deleted rows; H2 has no partial indexes,
+-- so deleted leads the key instead
+CREATE INDEX ix_file_items_trash ON file_items (resource_id, deleted, deleted_at);
+CREATE INDEX ix_file_items_purge ON file_items (deleted, deleted_at);
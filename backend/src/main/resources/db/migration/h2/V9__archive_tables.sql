@@ -0,0 +1,62 @@
+-- Archive tables for soft-deleted rows: TrashArchiver moves deleted file items (and deleted resources once
+-- none of their items are left) here in batches, so file_items, resources and their indexes hold live data.
+-- Same columns as the hot tables plus archived_at; no foreign keys, since a folder and its contents, or a
+-- resource and its items, are archived in separate batches. Rows are kept for archive.retention (audit).
+
+CREATE TABLE resources_archive (
+    id                  BIGINT       NOT NULL,
+    type                VARCHAR(255) NOT NULL,
+    title               VARCHAR(255) NOT NULL,
+    description         VARCHAR(1000),
+    tag                 VARCHAR(255),
+    deleted             BOOLEAN      NOT NULL,
+    deleted_at          TIMESTAMP(6),
+    update_date         DATE         NOT NULL,
+    created_at          TIMESTAMP(6) NOT NULL,
+    updated_at          TIMESTAMP(6),
+    version             BIGINT       NOT NULL,
+    total_bytes         BIGINT       NOT NULL,
+    file_count          BIGINT       NOT NULL,
+    content_modified_at TIMESTAMP,
+    change_version      BIGINT       NOT NULL,
+    archived_at         TIMESTAMP(6) NOT NULL,
+    CONSTRAINT pk_resources_archive PRIMARY KEY (id)
+);
+
+-- purged_at: the trash retention ran out and the stored file was removed; the record stays for audit
+CREATE TABLE file_items_archive (
+    id                  BIGINT       NOT NULL,
+    name                VARCHAR(255) NOT NULL,
+    original_name       VARCHAR(255) NOT NULL,
+    is_folder           BOOLEAN      NOT NULL,
+    type                VARCHAR(255),
+    size                VARCHAR(255),
+    size_bytes          BIGINT,
+    url                 VARCHAR(255),
+    storage_path        VARCHAR(255),
+    storage_encoding    VARCHAR(16),
+    preview_path        VARCHAR(255),
+    preview_url         VARCHAR(255),
+    parent_id           BIGINT,
+    ancestor_path       VARCHAR(1024),
+    resource_id         BIGINT       NOT NULL,
+    deleted             BOOLEAN      NOT NULL,
+    delete_sequence     INTEGER,
+    deleted_at          TIMESTAMP(6),
+    display_order       INTEGER      NOT NULL,
+    version             BIGINT       NOT NULL,
+    total_bytes         BIGINT       NOT NULL,
+    file_count          BIGINT       NOT NULL,
+    content_modified_at TIMESTAMP,
+    created_at          TIMESTAMP(6) NOT NULL,
+    updated_at          TIMESTAMP(6),
+    archived_at         TIMESTAMP(6) NOT NULL,
+    purged_at           TIMESTAMP(6),
+    CONSTRAINT pk_file_items_archive PRIMARY KEY (id)
+);
+
+-- Trash listing per resource, purge and retention scans, and the subtree of a folder being restored
+CREATE INDEX ix_file_items_archive_resource ON file_items_archive (resource_id, deleted_at);
+CREATE INDEX ix_file_items_archive_deleted_at ON file_items_archive (deleted_at);
+CREATE INDEX ix_file_items_archive_ancestor_path ON file_items_archive (ancestor_path);
+CREATE INDEX ix_resources_archive_deleted_at ON resources_archive (deleted_at);
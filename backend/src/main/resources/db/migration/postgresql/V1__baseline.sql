@@ -0,0 +1,44 @@
+-- Baseline schema as previously generated by Hibernate (ddl-auto: update).
+-- Databases created before versioned migrations are baselined at this version and skip it.
+
+CREATE SEQUENCE resources_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE file_items_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE resources (
+    id          BIGINT       NOT NULL,
+    type        VARCHAR(255) NOT NULL,
+    title       VARCHAR(255) NOT NULL,
+    description VARCHAR(1000),
+    tag         VARCHAR(255),
+    deleted     BOOLEAN      DEFAULT FALSE NOT NULL,
+    deleted_at  TIMESTAMP(6),
+    update_date DATE         NOT NULL,
+    created_at  TIMESTAMP(6) NOT NULL,
+    updated_at  TIMESTAMP(6),
+    CONSTRAINT pk_resources PRIMARY KEY (id)
+);
+
+CREATE TABLE file_items (
+    id              BIGINT       NOT NULL,
+    name            VARCHAR(255) NOT NULL,
+    original_name   VARCHAR(255) NOT NULL,
+    is_folder       BOOLEAN      NOT NULL,
+    type            VARCHAR(255),
+    size            VARCHAR(255),
+    size_bytes      BIGINT,
+    url             VARCHAR(255),
+    storage_path    VARCHAR(255),
+    preview_path    VARCHAR(255),
+    preview_url     VARCHAR(255),
+    parent_id       BIGINT,
+    resource_id     BIGINT       NOT NULL,
+    deleted         BOOLEAN      NOT NULL,
+    delete_sequence INTEGER,
+    deleted_at      TIMESTAMP(6),
+    display_order   INTEGER      NOT NULL,
+    created_at      TIMESTAMP(6) NOT NULL,
+    updated_at      TIMESTAMP(6),
+    CONSTRAINT pk_file_items PRIMARY KEY (id),
+    CONSTRAINT fk_file_items_parent FOREIGN KEY (parent_id) REFERENCES file_items (id),
+    CONSTRAINT fk_file_items_resource FOREIGN KEY (resource_id) REFERENCES resources (id)
+);
@@ -0,0 +1,29 @@
+-- Sequences may be missing on databases baselined from the IDENTITY era; the Java migration V10 (SequenceMigration) aligns them.
+CREATE SEQUENCE IF NOT EXISTS resources_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS file_items_seq START WITH 1 INCREMENT BY 50;
+
+-- Root listings: resource_id = ? AND parent_id IS NULL AND deleted = false ORDER BY display_order
+CREATE INDEX ix_file_items_resource_parent ON file_items (resource_id, parent_id, deleted, display_order);
+
+-- Folder listings and subtree walks: parent_id [IN] (?) AND deleted = false ORDER BY display_order
+CREATE INDEX ix_file_items_parent ON file_items (parent_id, deleted, display_order);
+
+-- Name checks and delete-sequence lookups, index-only thanks to the included delete_sequence
+CREATE INDEX ix_file_items_name ON file_items (original_name, parent_id, resource_id, deleted)
+    INCLUDE (delete_sequence);
+
+-- Rename live duplicates left by earlier check-then-insert races so the unique index can be built
+UPDATE file_items
+SET original_name = original_name || ' (' || id || ')',
+    name          = original_name || ' (' || id || ')'
+WHERE id IN (SELECT id
+             FROM (SELECT id,
+                          ROW_NUMBER() OVER (PARTITION BY resource_id, COALESCE(parent_id, 0), original_name
+                                             ORDER BY id) AS rn
+                   FROM file_items
+                   WHERE deleted = FALSE) ranked
+             WHERE rn > 1);
+
+-- At most one live item per name in a folder; root level (parent_id NULL) is folded onto 0
+CREATE UNIQUE INDEX ux_file_items_live_name ON file_items (resource_id, COALESCE(parent_id, 0), original_name)
+    WHERE deleted = FALSE;
@@ -0,0 +1,3 @@
+-- @Version columns for optimistic locking of concurrent rename / reorder / delete
+ALTER TABLE resources ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE file_items ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
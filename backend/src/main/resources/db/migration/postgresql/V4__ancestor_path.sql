@@ -0,0 +1,6 @@
+-- Materialized path of ancestor ids ("/" for root items, "/12/57/" for a child of 57 under 12).
+-- Existing rows are backfilled at startup by AncestorPathBackfill.
+ALTER TABLE file_items ADD COLUMN ancestor_path VARCHAR(1024);
+
+-- varchar_pattern_ops lets LIKE 'prefix%' use the index regardless of the database collation
+CREATE INDEX ix_file_items_ancestor_path ON file_items (ancestor_path varchar_pattern_ops);
@@ -0,0 +1,8 @@
+-- Live file count, byte total and last content change per folder and per resource.
+-- Maintained as deltas by the application; StorageAggregates.reconcile fills and repairs them.
+ALTER TABLE file_items ADD COLUMN total_bytes BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE file_items ADD COLUMN file_count BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE file_items ADD COLUMN content_modified_at TIMESTAMP;
+ALTER TABLE resources ADD COLUMN total_bytes BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE resources ADD COLUMN file_count BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE resources ADD COLUMN content_modified_at TIMESTAMP;
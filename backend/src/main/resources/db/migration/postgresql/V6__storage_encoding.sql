@@ -0,0 +1,5 @@
+-- At-rest compression: how the stored file is encoded on disk (NULL = raw, 'gzip')
+ALTER TABLE file_items ADD COLUMN storage_encoding VARCHAR(16);
+
+-- Downloads address files by storage path
+CREATE INDEX ix_file_items_storage_path ON file_items (storage_path);
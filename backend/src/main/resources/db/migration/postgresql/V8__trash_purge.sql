@@ -0,0 +1,3 @@
+-- Trash listing per resource and the purge scan over expired soft-deleted rows; live queries never read these
+CREATE INDEX ix_file_items_trash ON file_items (resource_id, deleted_at) WHERE deleted = TRUE;
+CREATE INDEX ix_file_items_purge ON file_items (deleted_at) WHERE deleted = TRUE;
@@ -0,0 +1,155 @@
+package com.knohub.backend.controller;
+
+import com.knohub.backend.model.FileItem;
+import com.knohub.backend.model.Resource;
+import com.knohub.backend.model.ResourceType;
+import com.knohub.backend.repository.FileItemRepository;
+import com.knohub.backend.repository.ResourceRepository;
+import com.knohub.backend.service.FileService;
+import com.knohub.backend.storage.FileStorage;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Range requests against a file stored gzip-compressed: with Accept-Encoding: gzip the range addresses the
+ * compressed bytes, without it the decoded content.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:downloads;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "logisim.enabled=false",
+        "access-log.enabled=false"
+})
+@AutoConfigureMockMvc
+class FileDownloadRangeTest {
+
+    private static final Path UPLOAD_DIR = createUploadDir();
+
+    @DynamicPropertySource
+    static void uploadDir(DynamicPropertyRegistry registry) {
+        registry.add("file.upload-dir", UPLOAD_DIR::toString);
+    }
+
+    @AfterAll
+    static void removeUploadDir() throws IOException {
+        FileSystemUtils.deleteRecursively(UPLOAD_DIR);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FileService fileService;
+
+    @Autowired
+    private FileItemRepository fileItemRepository;
+
+    @Autowired
+    private ResourceRepository resourceRepository;
+
+    private byte[] original;
+    private byte[] compressed;
+    private String url;
+
+    @BeforeEach
+    void uploadCompressibleFile() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            text.append("line ").append(i).append(": the quick brown fox jumps over the lazy dog\n");
+        }
+        original = text.toString().getBytes(StandardCharsets.UTF_8);
+        Long resourceId = resourceRepository.save(Resource.builder()
+                .type(ResourceType.COURSE)
+                .title("Downloads " + System.nanoTime())
+                .build()).getId();
+        Long fileId = fileService.uploadFile(resourceId, null,
+                new MockMultipartFile("file", "notes.txt", "text/plain", original)).getId();
+
+        FileItem item = fileItemRepository.findById(fileId).orElseThrow();
+        assertThat(item.getStorageEncoding()).isEqualTo(FileStorage.GZIP);
+        compressed = Files.readAllBytes(Paths.get(item.getStoragePath()));
+        url = item.getUrl();
+    }
+
+    @Test
+    void gzipPassthroughRangeAddressesCompressedBytes() throws Exception {
+        MvcResult result = mockMvc.perform(get(url)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                        .header(HttpHeaders.RANGE, "bytes=0-15"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 0-15/" + compressed.length))
+                .andReturn();
+
+        assertThat(result.getResponse().getContentAsByteArray()).isEqualTo(Arrays.copyOfRange(compressed, 0, 16));
+    }
+
+    @Test
+    void decompressedRangeAddressesOriginalBytes() throws Exception {
+        MvcResult result = mockMvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=1000-1099"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 1000-1099/" + original.length))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 100))
+                .andReturn();
+
+        assertThat(result.getResponse().getContentAsByteArray()).isEqualTo(Arrays.copyOfRange(original, 1000, 1100));
+    }
+
+    @Test
+    void decompressedSuffixRangeAndWholeFile() throws Exception {
+        MvcResult suffix = mockMvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=-10"))
+                .andExpect(status().isPartialContent())
+                .andReturn();
+        assertThat(suffix.getResponse().getContentAsByteArray())
+                .isEqualTo(Arrays.copyOfRange(original, original.length - 10, original.length));
+
+        MvcResult whole = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andReturn();
+        assertThat(whole.getResponse().getContentAsByteArray()).isEqualTo(original);
+    }
+
+    @Test
+    void decompressedRangePastTheEndIsNotSatisfiable() throws Exception {
+        mockMvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=" + original.length + "-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */" + original.length));
+    }
+
+    private static Path createUploadDir() {
+        try {
+            return Files.createTempDirectory("knohub-download-uploads");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.knohub.backend.service;
+
+import com.knohub.backend.config.GlobalExceptionHandler;
+import com.knohub.backend.dto.ApiResponse;
+import com.knohub.backend.model.FileItem;
+import com.knohub.backend.model.Resource;
+import com.knohub.backend.model.ResourceType;
+import com.knohub.backend.repository.FileItemRepository;
+import com.knohub.backend.repository.ResourceRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Several threads hammering reorder, rename and delete inside one folder of real files. Checks the
+ * invariants optimistic retry has to keep: sibling order stays consistent, every row's physical file is
+ * where its storagePath says (losers roll their moves back), and callers that run out of retries get
+ * ConcurrentUpdateException (HTTP 409) rather than a lower-level error.
+ */
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = {
+                "spring.datasource.url=jdbc:h2:mem:contention;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                "spring.datasource.driver-class-name=org.h2.Driver",
+                "spring.datasource.username=sa",
+                "spring.datasource.password=",
+                "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "logisim.enabled=false",
+                "access-log.enabled=false",
+                // Few attempts so some callers actually run out of retries
+                "optimistic-retry.max-attempts=2",
+                "optimistic-retry.backoff-millis=1"
+        })
+class FolderContentionTest {
+
+    private static final Path UPLOAD_DIR = createUploadDir();
+    private static final int THREADS = 8;
+    private static final int FILES = 24;
+    private static final int OPERATIONS = 400;
+    private static final String[] POSITIONS = {"before", "after"};
+
+    @DynamicPropertySource
+    static void uploadDir(DynamicPropertyRegistry registry) {
+        registry.add("file.upload-dir", UPLOAD_DIR::toString);
+    }
+
+    @AfterAll
+    static void removeUploadDir() throws IOException {
+        FileSystemUtils.deleteRecursively(UPLOAD_DIR);
+    }
+
+    @Autowired
+    private FileService fileService;
+
+    @Autowired
+    private FileItemRepository fileItemRepository;
+
+    @Autowired
+    private ResourceRepository resourceRepository;
+
+    @Autowired
+    private OptimisticRetry optimisticRetry;
+
+    private Long resourceId;
+    private Long folderId;
+    private List<Long> fileIds;
+
+    @BeforeEach
+    void seedFolder() throws IOException {
+        resourceId = resourceRepository.save(Resource.builder()
+                .type(ResourceType.COURSE)
+                .title("Contention " + System.nanoTime())
+                .build()).getId();
+        folderId = fileService.createFolder(resourceId, null, "shared").getId();
+        fileIds = new ArrayList<>();
+        for (int i = 0; i < FILES; i++) {
+            byte[] content = ("file " + i).getBytes();
+            fileIds.add(fileService.uploadFile(resourceId, folderId,
+                    new MockMultipartFile("file", "file-" + i + ".bin", "application/octet-stream", content)).getId());
+        }
+    }
+
+    @Test
+    void concurrentReorderAndRenameKeepOrderAndFiles() throws Exception {
+        List<Throwable> failures = hammer(random -> {
+            if (random.nextBoolean()) {
+                fileService.reorder(pick(random), pick(random), POSITIONS[random.nextInt(POSITIONS.length)]);
+            } else {
+                fileService.rename(pick(random), "renamed-" + Long.toHexString(random.nextLong()) + ".bin");
+            }
+        });
+
+        assertOnlyRetryExhaustion(failures, Set.of());
+        List<Integer> orders = liveChildren().stream().map(FileItem::getDisplayOrder).sorted().toList();
+        assertThat(orders).isEqualTo(IntStream.range(0, FILES).boxed().toList());
+        assertStoredFilesMatchRows();
+    }
+
+    @Test
+    void concurrentDeleteRacesRenameAndReorder() throws Exception {
+        // A third of the files are deleted once each, while renames and reorders also target them
+        Queue<Long> toDelete = new ConcurrentLinkedQueue<>(fileIds.subList(0, FILES / 3));
+        Set<Long> deletable = Set.copyOf(toDelete);
+        List<Throwable> failures = hammer(random -> {
+            int op = random.nextInt(3);
+            Long deleteId = op == 0 ? toDelete.poll() : null;
+            if (deleteId != null) {
+                fileService.deleteFile(deleteId);
+            } else if (op == 1) {
+                fileService.rename(pick(random), "renamed-" + Long.toHexString(random.nextLong()) + ".bin");
+            } else {
+                fileService.reorder(pick(random), pick(random), POSITIONS[random.nextInt(POSITIONS.length)]);
+            }
+        });
+
+        // Renaming or dragging a file that was just deleted is reported as missing, which is not a conflict
+        assertOnlyRetryExhaustion(failures, deletable);
+        List<FileItem> live = liveChildren();
+        Set<Integer> orders = live.stream().map(FileItem::getDisplayOrder).collect(Collectors.toSet());
+        assertThat(orders).as("no two live siblings share a position").hasSize(live.size());
+        assertStoredFilesMatchRows();
+    }
+
+    @Test
+    void exhaustedRetriesSurfaceAsConflict() {
+        AtomicInteger attempts = new AtomicInteger();
+        List<String> current = List.of("tree");
+
+        assertThatThrownBy(() -> optimisticRetry.execute("test", () -> {
+            attempts.incrementAndGet();
+            throw new OptimisticLockingFailureException("stale");
+        }, () -> current))
+                .isInstanceOfSatisfying(ConcurrentUpdateException.class,
+                        e -> assertThat(e.getCurrent()).isEqualTo(current));
+        assertThat(attempts).hasValue(2);
+
+        ResponseEntity<ApiResponse<Object>> response = new GlobalExceptionHandler()
+                .handleConcurrentUpdate(new ConcurrentUpdateException("内容已被他人修改，请刷新后重试", current));
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(response.getBody().getData()).isEqualTo(current);
+    }
+
+    private interface Operation {
+        void run(ThreadLocalRandom random) throws Exception;
+    }
+
+    /**
+     * Run {@link #OPERATIONS} operations on {@link #THREADS} threads released together; returns what they threw
+     */
+    private List<Throwable> hammer(Operation operation) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < OPERATIONS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        operation.run(ThreadLocalRandom.current());
+                    } catch (Exception e) {
+                        failures.add(e);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return failures;
+    }
+
+    private Long pick(ThreadLocalRandom random) {
+        return fileIds.get(random.nextInt(fileIds.size()));
+    }
+
+    /**
+     * Losers must only see ConcurrentUpdateException carrying the current tree; "not found" is accepted when
+     * deleted files were among the targets
+     */
+    private void assertOnlyRetryExhaustion(List<Throwable> failures, Set<Long> deletable) {
+        for (Throwable failure : failures) {
+            if (failure instanceof ConcurrentUpdateException conflict) {
+                assertThat(conflict.getCurrent()).isInstanceOf(List.class);
+                continue;
+            }
+            boolean missing = failure.getClass() == RuntimeException.class
+                    && failure.getMessage() != null && failure.getMessage().contains("不存在");
+            assertThat(missing && !deletable.isEmpty()).as("unexpected failure: %s", failure).isTrue();
+        }
+    }
+
+    private List<FileItem> liveChildren() {
+        return fileItemRepository.findByParentIdAndDeletedFalseOrderByDisplayOrder(folderId);
+    }
+
+    /**
+     * Every file row (live or deleted) has its physical file at storagePath, and the upload folder holds
+     * nothing else: a move applied for a rolled-back write would leave a file no row points to
+     */
+    private void assertStoredFilesMatchRows() {
+        Set<Path> stored = new HashSet<>();
+        for (Long id : fileIds) {
+            FileItem item = fileItemRepository.findById(id).orElseThrow();
+            Path path = Paths.get(item.getStoragePath()).toAbsolutePath().normalize();
+            assertThat(path).as("file of %s (deleted=%s)", item.getOriginalName(), item.isDeleted()).isRegularFile();
+            stored.add(path);
+        }
+        try (Stream<Path> onDisk = Files.list(UPLOAD_DIR.resolve(String.valueOf(resourceId)))) {
+            Set<Path> files = onDisk.filter(Files::isRegularFile)
+                    .map(path -> path.toAbsolutePath().normalize())
+                    .collect(Collectors.toSet());
+            assertThat(files).isEqualTo(stored);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Path createUploadDir() {
+        try {
+            return Files.createTempDirectory("knohub-contention-uploads");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -64,9 +64,20 @@ export interface FileItemDTO {
   type?: string
   size?: string
   url?: string
+  totalBytes?: number
+  fileCount?: number | null
+  lastModified?: string
+  displayOrder?: number
   children?: FileItemDTO[]
 }
 
+export interface UploadResultDTO {
+  name: string
+  success: boolean
+  message: string
+  file?: FileItemDTO | null
+}
+
 export interface ResourceDTO {
   id: number
   type: string
@@ -75,9 +86,56 @@ export interface ResourceDTO {
   tag?: string
   updateDate: string
   createDate?: string
+  changeVersion?: number
   files: FileItemDTO[]
 }
 
+export interface FileChangeDTO {
+  version: number
+  type: 'added' | 'removed' | 'moved' | 'renamed'
+  fileId: number
+  parentId?: number | null
+  displayOrder?: number | null
+  node?: FileItemDTO | null
+}
+
+export interface ChangeSetDTO {
+  resourceId: number
+  version: number
+  reset: boolean
+  changes: FileChangeDTO[]
+}
+
+export interface TrashItemDTO {
+  id: number
+  name: string
+  isFolder: boolean
+  type?: string
+  size?: string
+  totalBytes?: number
+  fileCount?: number | null
+  parentId?: number | null
+  restorable: boolean
+  deletedAt: string
+  expiresAt?: string
+}
+
+export interface TextPageDTO {
+  fileId: number
+  charset: string
+  offset: number
+  totalLines: number
+  lines: string[]
+  hasMore: boolean
+}
+
+export interface PdfInfoDTO {
+  fileId: number
+  pageCount: number
+  pageWidths: number[]
+  pageHeights: number[]
+}
+
 export interface CreateFolderRequest {
   name: string
   parentFolderId?: number | null
@@ -224,7 +282,7 @@ export const fileApi = {
   /**
    * Upload multiple files to a resource
    */
-  async uploadBatch(resourceId: number, files: File[], folderId?: number | null): Promise<FileItemDTO[]> {
+  async uploadBatch(resourceId: number, files: File[], folderId?: number | null): Promise<UploadResultDTO[]> {
     const formData = new FormData()
     files.forEach((file) => formData.append('files', file))
 
@@ -240,15 +298,15 @@ export const fileApi = {
 
     const rawText = await response.text()
     const contentType = response.headers.get('content-type') || ''
-    let parsed: ApiResponse<FileItemDTO[]> | null = null
+    let parsed: ApiResponse<UploadResultDTO[]> | null = null
 
     if (contentType.includes('application/json')) {
       try {
-        parsed = JSON.parse(rawText) as ApiResponse<FileItemDTO[]>
+        parsed = JSON.parse(rawText) as ApiResponse<UploadResultDTO[]>
       } catch {}
     } else {
       try {
-        parsed = JSON.parse(rawText) as ApiResponse<FileItemDTO[]>
+        parsed = JSON.parse(rawText) as ApiResponse<UploadResultDTO[]>
       } catch {}
     }
 
@@ -281,6 +339,28 @@ export const fileApi = {
     if (!result.success) throw new Error(result.message)
   },
 
+  /**
+   * Deleted files and folders of a resource that can still be restored
+   */
+  async getTrash(resourceId: number): Promise<TrashItemDTO[]> {
+    const response = await fetch(`${API_BASE_URL}/files/${resourceId}/trash`)
+    const result: ApiResponse<TrashItemDTO[]> = await response.json()
+    if (!result.success) throw new Error(result.message)
+    return result.data
+  },
+
+  /**
+   * Restore a trash item to its original place
+   */
+  async restore(fileId: number): Promise<FileItemDTO> {
+    const response = await fetch(`${API_BASE_URL}/files/${fileId}/restore`, {
+      method: 'POST'
+    })
+    const result: ApiResponse<FileItemDTO> = await response.json()
+    if (!result.success) throw new Error(result.message)
+    return result.data
+  },
+
   /**
    * Create a folder
    */
@@ -357,6 +437,42 @@ export const fileApi = {
     return `${API_BASE_URL}/files/${fileId}/html`
   },
 
+  /**
+   * Get a window of lines from a text/code file
+   */
+  async getTextPage(fileId: number, offset = 0, lines = 500, charset?: string): Promise<TextPageDTO> {
+    const params = new URLSearchParams({ offset: String(offset), lines: String(lines) })
+    if (charset) params.set('charset', charset)
+    const response = await fetch(`${API_BASE_URL}/files/${fileId}/text?${params}`)
+    const result: ApiResponse<TextPageDTO> = await response.json()
+    if (!result.success) throw new Error(result.message)
+    return result.data
+  },
+
+  /**
+   * Tree deltas of a resource after a change feed version
+   */
+  async getChanges(resourceId: number, since: number): Promise<ChangeSetDTO> {
+    const response = await fetch(`${API_BASE_URL}/files/${resourceId}/changes?since=${since}`)
+    const result: ApiResponse<ChangeSetDTO> = await response.json()
+    if (!result.success) throw new Error(result.message)
+    return result.data
+  },
+
+  /**
+   * Server-Sent Events stream of tree deltas ("change" and "reset" events)
+   */
+  changeStreamUrl(resourceId: number, since: number): string {
+    return `${API_BASE_URL}/files/${resourceId}/changes/stream?since=${since}`
+  },
+
+  async getPdfInfo(fileId: number): Promise<PdfInfoDTO> {
+    const response = await fetch(`${API_BASE_URL}/files/${fileId}/pages`)
+    const result: ApiResponse<PdfInfoDTO> = await response.json()
+    if (!result.success) throw new Error(result.message)
+    return result.data
+  },
+
   async getDocHtml(fileId: number): Promise<string> {
     const response = await fetch(`${API_BASE_URL}/files/${fileId}/html`)
     const result: ApiResponse<string> = await response.json()
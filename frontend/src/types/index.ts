@@ -6,6 +6,10 @@ export interface FileItem {
   size?: string
   url?: string
   previewUrl?: string
+  totalBytes?: number
+  fileCount?: number | null
+  lastModified?: string
+  displayOrder?: number
   children?: FileItem[]
 }
 
@@ -17,6 +21,10 @@ export interface Resource {
   tag?: 'New' | 'Hot' | 'Rec'
   updateDate: string
   createDate?: string
+  totalBytes?: number
+  fileCount?: number
+  lastModified?: string
+  changeVersion?: number
   files: FileItem[]
 }
 
@@ -0,0 +1,79 @@
+package com.knohub.loadtest;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Starts the backend jar on a throwaway file-based H2 database and upload directory,
+ * so runs never touch a developer's real data and always start from the same state.
+ */
+public class AppLauncher implements AutoCloseable {
+
+    private final Process process;
+    private final Path workDir;
+
+    private AppLauncher(Process process, Path workDir) {
+        this.process = process;
+        this.workDir = workDir;
+    }
+
+    public static AppLauncher start(Path jar, int port, List<String> extraArgs) throws IOException {
+        if (!Files.exists(jar)) {
+            throw new IOException("Backend jar not found: " + jar.toAbsolutePath() + " (run mvn package in backend/)");
+        }
+        Path workDir = Files.createTempDirectory("knohub-loadtest");
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-jar");
+        command.add(jar.toAbsolutePath().toString());
+        command.add("--server.port=" + port);
+        command.add("--spring.datasource.url=jdbc:h2:file:" + workDir.resolve("knohub") + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        command.add("--spring.datasource.driver-class-name=org.h2.Driver");
+        command.add("--spring.datasource.username=sa");
+        command.add("--spring.datasource.password=");
+        command.add("--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect");
+        command.add("--file.upload-dir=" + workDir.resolve("uploads"));
+        command.addAll(extraArgs);
+
+        Path log = workDir.resolve("app.log");
+        Process process = new ProcessBuilder(command)
+                .directory(workDir.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        System.out.println("Launched backend (pid " + process.pid() + "), log: " + log);
+        return new AppLauncher(process, workDir);
+    }
+
+    /**
+     * Poll the actuator health endpoint until the app is up.
+     */
+    public void awaitReady(ApiClient api, int timeoutSeconds) throws IOException, InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutSeconds * 1000L;
+        while (System.currentTimeMillis() < deadline) {
+            if (!process.isAlive()) {
+                throw new IOException("Backend exited early with code " + process.exitValue() + ", see " + workDir.resolve("app.log"));
+            }
+            try {
+                HttpResponse<byte[]> response = api.get("/actuator/health", Map.of());
+                if (response.statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(500);
+        }
+        throw new IOException("Backend did not become ready within " + timeoutSeconds + "s");
+    }
+
+    @Override
+    public void close() {
+        process.destroy();
+    }
+}
@@ -0,0 +1,58 @@
+package com.knohub.loadtest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Compares a run with a stored baseline, stage by stage (same user count) and operation by operation.
+ */
+public final class BaselineComparison {
+
+    private BaselineComparison() {
+    }
+
+    /**
+     * @return number of regressions found
+     */
+    public static int compare(List<TrafficRunner.StageResult> baseline, List<TrafficRunner.StageResult> current,
+                              double tolerance) {
+        int regressions = 0;
+        System.out.printf("%nBaseline comparison (tolerance %.0f%%)%n", tolerance * 100);
+        for (TrafficRunner.StageResult stage : current) {
+            Optional<TrafficRunner.StageResult> base = baseline.stream()
+                    .filter(b -> b.users() == stage.users())
+                    .findFirst();
+            if (base.isEmpty()) {
+                System.out.printf("  %d users: no baseline stage%n", stage.users());
+                continue;
+            }
+            System.out.printf("  %d users%n", stage.users());
+            for (Map.Entry<Operation, EndpointStats.Summary> entry : stage.operations().entrySet()) {
+                EndpointStats.Summary now = entry.getValue();
+                EndpointStats.Summary before = base.get().operations().get(entry.getKey());
+                if (before == null || before.requests() == 0 || now.requests() == 0) {
+                    continue;
+                }
+                boolean p99Regressed = now.p99Ms() > before.p99Ms() * (1 + tolerance);
+                boolean throughputRegressed = now.throughput() < before.throughput() * (1 - tolerance);
+                boolean errorsRegressed = now.errorRate() > before.errorRate() + 0.01;
+                boolean regressed = p99Regressed || throughputRegressed || errorsRegressed;
+                if (regressed) {
+                    regressions++;
+                }
+                System.out.printf("    %-16s p99 %8.1f -> %8.1f ms (%+6.1f%%)  rps %7.1f -> %7.1f (%+6.1f%%)  err %5.2f%% -> %5.2f%%%s%n",
+                        entry.getKey().key(),
+                        before.p99Ms(), now.p99Ms(), change(before.p99Ms(), now.p99Ms()),
+                        before.throughput(), now.throughput(), change(before.throughput(), now.throughput()),
+                        before.errorRate() * 100, now.errorRate() * 100,
+                        regressed ? "  REGRESSION" : "");
+            }
+        }
+        return regressions;
+    }
+
+    private static double change(double before, double now) {
+        return before == 0 ? 0 : (now - before) / before * 100;
+    }
+}
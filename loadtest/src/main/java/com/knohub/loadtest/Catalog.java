@@ -0,0 +1,76 @@
+package com.knohub.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * What the seeder created, so the traffic generator can address real ids and file names.
+ */
+public class Catalog {
+
+    public record Course(long id, String title, long uploadFolderId) {
+    }
+
+    public record StoredFile(long resourceId, long fileId, String type, String storageName, long sizeBytes) {
+    }
+
+    private final List<Course> courses = new ArrayList<>();
+    private final List<StoredFile> files = new ArrayList<>();
+    private final List<StoredFile> circFiles = new ArrayList<>();
+    private final List<StoredFile> docFiles = new ArrayList<>();
+    private final List<String> searchTerms = new ArrayList<>();
+
+    public void addCourse(Course course) {
+        courses.add(course);
+    }
+
+    public void addFile(StoredFile file) {
+        files.add(file);
+        if ("circ".equals(file.type())) {
+            circFiles.add(file);
+        } else if ("doc".equals(file.type())) {
+            docFiles.add(file);
+        }
+    }
+
+    public void addSearchTerm(String term) {
+        searchTerms.add(term);
+    }
+
+    public boolean isEmpty() {
+        return courses.isEmpty();
+    }
+
+    public int courseCount() {
+        return courses.size();
+    }
+
+    public int fileCount() {
+        return files.size();
+    }
+
+    public Course randomCourse() {
+        return pick(courses);
+    }
+
+    public StoredFile randomFile() {
+        return pick(files);
+    }
+
+    public StoredFile randomCircFile() {
+        return pick(circFiles);
+    }
+
+    public StoredFile randomDocFile() {
+        return pick(docFiles);
+    }
+
+    public String randomSearchTerm() {
+        return searchTerms.isEmpty() ? "课程" : pick(searchTerms);
+    }
+
+    private static <T> T pick(List<T> list) {
+        return list.isEmpty() ? null : list.get(ThreadLocalRandom.current().nextInt(list.size()));
+    }
+}
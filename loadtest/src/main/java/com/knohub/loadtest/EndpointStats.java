@@ -0,0 +1,56 @@
+package com.knohub.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe latency histogram and counters for one operation.
+ */
+public class EndpointStats {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(2);
+
+    private final Histogram latencies = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+
+    public void record(long latencyNanos, boolean error, long responseBytes) {
+        latencies.recordValue(Math.min(MAX_LATENCY_MICROS, Math.max(1, latencyNanos / 1000)));
+        requests.increment();
+        if (error) {
+            errors.increment();
+        }
+        bytes.add(responseBytes);
+    }
+
+    public Summary summarize(double elapsedSeconds) {
+        long count = requests.sum();
+        long errorCount = errors.sum();
+        return new Summary(
+                count,
+                errorCount,
+                count == 0 ? 0 : (double) errorCount / count,
+                elapsedSeconds <= 0 ? 0 : count / elapsedSeconds,
+                millis(latencies.getValueAtPercentile(50)),
+                millis(latencies.getValueAtPercentile(90)),
+                millis(latencies.getValueAtPercentile(99)),
+                millis(latencies.getValueAtPercentile(99.9)),
+                millis(latencies.getMaxValue()),
+                bytes.sum());
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    /**
+     * Aggregated figures as written to the result and baseline files.
+     */
+    public record Summary(long requests, long errors, double errorRate, double throughput,
+                          double p50Ms, double p90Ms, double p99Ms, double p999Ms, double maxMs, long bytes) {
+    }
+}
@@ -0,0 +1,92 @@
+package com.knohub.loadtest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Synthetic course files. Sizes roughly follow what students actually upload: small .circ/.v sources,
+ * medium lab reports and larger slide decks.
+ */
+public class FixtureFactory {
+
+    public record Fixture(String name, String type, byte[] content) {
+    }
+
+    private static final String[] TYPES = {"circ", "circ", "doc", "pdf", "v", "txt"};
+
+    private final Random random = new Random(42);
+    private final byte[] docSample;
+
+    public FixtureFactory(Path docSample) throws IOException {
+        this.docSample = docSample != null ? Files.readAllBytes(docSample) : null;
+    }
+
+    public boolean hasRealDocSample() {
+        return docSample != null;
+    }
+
+    /**
+     * Build the n-th fixture of a folder; the type rotates so every folder gets a mix.
+     */
+    public Fixture create(String baseName, int index) {
+        String type = TYPES[index % TYPES.length];
+        String name = baseName + "-" + index + "." + type;
+        return new Fixture(name, type, content(type, index));
+    }
+
+    private byte[] content(String type, int index) {
+        return switch (type) {
+            case "circ" -> circuit(index);
+            case "doc" -> docSample != null ? docSample : padded("synthetic doc " + index, 96 * 1024);
+            case "pdf" -> pdf(256 * 1024 + random.nextInt(1536 * 1024));
+            case "v" -> padded("module lab" + index + "(input a, input b, output y);\n  assign y = a & b;\nendmodule\n", 8 * 1024);
+            default -> padded("line " + index + " of a lab log\n", 32 * 1024);
+        };
+    }
+
+    private byte[] circuit(int index) {
+        int x = 150 + (index % 5) * 10;
+        String xml = """
+                <?xml version="1.0" encoding="UTF-8" standalone="no"?>
+                <project source="3.8.0" version="1.0">
+                  <lib desc="#Wiring" name="0"/>
+                  <lib desc="#Gates" name="1"/>
+                  <main name="main"/>
+                  <circuit name="main">
+                    <a name="circuit" val="main"/>
+                    <comp lib="0" loc="(%d,190)" name="Pin"/>
+                    <comp lib="0" loc="(%d,230)" name="Pin"/>
+                    <comp lib="1" loc="(300,210)" name="AND Gate"/>
+                    <comp lib="0" loc="(380,210)" name="Pin">
+                      <a name="output" val="true"/>
+                    </comp>
+                    <wire from="(%d,190)" to="(250,190)"/>
+                    <wire from="(%d,230)" to="(250,230)"/>
+                    <wire from="(300,210)" to="(380,210)"/>
+                  </circuit>
+                </project>
+                """.formatted(x, x, x, x);
+        return xml.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] pdf(int size) {
+        String header = "%PDF-1.4\n1 0 obj << /Type /Catalog /Pages 2 0 R >> endobj\n"
+                + "2 0 obj << /Type /Pages /Kids [] /Count 0 >> endobj\n";
+        byte[] content = new byte[size];
+        random.nextBytes(content);
+        byte[] headerBytes = header.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(headerBytes, 0, content, 0, Math.min(headerBytes.length, size));
+        return content;
+    }
+
+    private byte[] padded(String line, int size) {
+        StringBuilder sb = new StringBuilder(size + line.length());
+        while (sb.length() < size) {
+            sb.append(line);
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
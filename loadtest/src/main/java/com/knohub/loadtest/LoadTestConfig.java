@@ -0,0 +1,167 @@
+package com.knohub.loadtest;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Load test settings: loadtest.properties (or config=path) overridden by key=value command line arguments.
+ */
+public class LoadTestConfig {
+
+    private final Properties props;
+
+    private LoadTestConfig(Properties props) {
+        this.props = props;
+    }
+
+    public static LoadTestConfig fromArgs(String[] args) throws IOException {
+        Properties overrides = new Properties();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Expected key=value argument but got: " + arg);
+            }
+            overrides.setProperty(arg.substring(0, eq).trim(), arg.substring(eq + 1).trim());
+        }
+
+        Properties props = new Properties();
+        Path configFile = Path.of(overrides.getProperty("config", "loadtest.properties"));
+        if (Files.exists(configFile)) {
+            try (Reader reader = Files.newBufferedReader(configFile, StandardCharsets.UTF_8)) {
+                props.load(reader);
+            }
+        }
+        props.putAll(overrides);
+        return new LoadTestConfig(props);
+    }
+
+    public String baseUrl() {
+        if (appJar() != null) {
+            return "http://localhost:" + appPort();
+        }
+        return stripTrailingSlash(get("base-url", "http://localhost:8080"));
+    }
+
+    public Path appJar() {
+        String jar = get("app.jar", "");
+        return jar.isBlank() ? null : Path.of(jar);
+    }
+
+    public int appPort() {
+        return getInt("app.port", 18080);
+    }
+
+    public List<String> appArgs() {
+        String raw = get("app.args", "");
+        List<String> result = new ArrayList<>();
+        for (String part : raw.trim().split("\\s+")) {
+            if (!part.isBlank()) {
+                result.add(part);
+            }
+        }
+        return result;
+    }
+
+    public boolean seed() {
+        return Boolean.parseBoolean(get("seed", "true"));
+    }
+
+    public int seedCourses() {
+        return getInt("seed.courses", 20);
+    }
+
+    public int seedFoldersPerCourse() {
+        return getInt("seed.folders-per-course", 8);
+    }
+
+    public int seedFilesPerFolder() {
+        return getInt("seed.files-per-folder", 12);
+    }
+
+    public Path docSample() {
+        String sample = get("seed.doc-sample", "");
+        return sample.isBlank() ? null : Path.of(sample);
+    }
+
+    public List<Integer> userStages() {
+        List<Integer> stages = new ArrayList<>();
+        for (String part : get("users", "50").split(",")) {
+            if (!part.isBlank()) {
+                stages.add(Integer.parseInt(part.trim()));
+            }
+        }
+        return stages;
+    }
+
+    public int durationSeconds() {
+        return getInt("duration", 60);
+    }
+
+    public int warmupSeconds() {
+        return getInt("warmup", 10);
+    }
+
+    public long thinkTimeMillis() {
+        return getInt("think-time-ms", 200);
+    }
+
+    public long requestTimeoutMillis() {
+        return getInt("request-timeout-ms", 30000);
+    }
+
+    public Map<Operation, Integer> mix() {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (Operation op : Operation.values()) {
+            int weight = getInt("mix." + op.key(), 0);
+            if (weight > 0) {
+                weights.put(op, weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("Traffic mix is empty: set at least one mix.* weight");
+        }
+        return weights;
+    }
+
+    public int uploadFilesPerBatch() {
+        return getInt("upload.files-per-batch", 3);
+    }
+
+    public Path resultFile() {
+        return Path.of(get("result-file", "target/loadtest-result.json"));
+    }
+
+    public Path baselineFile() {
+        String file = get("baseline-file", "");
+        return file.isBlank() ? null : Path.of(file);
+    }
+
+    public double baselineTolerance() {
+        return Double.parseDouble(get("baseline.tolerance", "0.15"));
+    }
+
+    public boolean writeBaseline() {
+        return Boolean.parseBoolean(get("write-baseline", "false"));
+    }
+
+    private String get(String key, String defaultValue) {
+        return props.getProperty(key, defaultValue);
+    }
+
+    private int getInt(String key, int defaultValue) {
+        String value = props.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
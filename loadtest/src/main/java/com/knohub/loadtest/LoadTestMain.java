@@ -0,0 +1,79 @@
+package com.knohub.loadtest;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exam-week load test entry point.
+ *
+ * <pre>
+ * cd loadtest
+ * mvn -q compile exec:java -Dexec.args="users=50,100,200 duration=60"
+ * </pre>
+ */
+public class LoadTestMain {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromArgs(args);
+        ApiClient api = new ApiClient(config.baseUrl(), config.requestTimeoutMillis());
+
+        AppLauncher launcher = null;
+        int exitCode;
+        try {
+            if (config.appJar() != null) {
+                launcher = AppLauncher.start(config.appJar(), config.appPort(), config.appArgs());
+                launcher.awaitReady(api, 180);
+            }
+            exitCode = run(config, api);
+        } finally {
+            if (launcher != null) {
+                launcher.close();
+            }
+        }
+        System.exit(exitCode);
+    }
+
+    private static int run(LoadTestConfig config, ApiClient api) throws Exception {
+        System.out.println("Target: " + api.baseUrl());
+        FixtureFactory fixtures = new FixtureFactory(config.docSample());
+        Seeder seeder = new Seeder(api, fixtures);
+        if (config.seed()) {
+            System.out.printf("Seeding %d courses x %d folders x %d files%n",
+                    config.seedCourses(), config.seedFoldersPerCourse(), config.seedFilesPerFolder());
+            seeder.seed(config.seedCourses(), config.seedFoldersPerCourse(), config.seedFilesPerFolder());
+        }
+        Catalog catalog = seeder.discover();
+        if (catalog.isEmpty()) {
+            System.err.println("No resources found; run with seed=true");
+            return 2;
+        }
+        System.out.printf("Catalog: %d courses, %d files%n", catalog.courseCount(), catalog.fileCount());
+
+        TrafficRunner runner = new TrafficRunner(api, catalog, fixtures, config);
+        List<TrafficRunner.StageResult> results = new ArrayList<>();
+        for (int users : config.userStages()) {
+            TrafficRunner.StageResult stage = runner.runStage(users);
+            Report.print(stage);
+            results.add(stage);
+        }
+        Report.write(config.resultFile(), results);
+
+        Path baseline = config.baselineFile();
+        if (baseline == null) {
+            return 0;
+        }
+        if (config.writeBaseline()) {
+            Report.write(baseline, results);
+            return 0;
+        }
+        if (!Files.exists(baseline)) {
+            System.out.println("No baseline at " + baseline + "; rerun with write-baseline=true to create one");
+            return 0;
+        }
+        int regressions = BaselineComparison.compare(Report.read(baseline), results, config.baselineTolerance());
+        System.out.println(regressions == 0 ? "No regressions against baseline" : regressions + " regression(s) against baseline");
+        return regressions == 0 ? 0 : 1;
+    }
+}
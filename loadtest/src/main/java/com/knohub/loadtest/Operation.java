@@ -0,0 +1,31 @@
+package com.knohub.loadtest;
+
+/**
+ * Request types in the traffic mix. The key matches the mix.* property and the report row.
+ */
+public enum Operation {
+    LIST("list", "GET /api/resources"),
+    SEARCH("search", "GET /api/resources/search"),
+    TREE("tree", "GET /api/files/{resourceId}"),
+    DOWNLOAD("download", "GET /api/files/{resourceId}/download/{filename}"),
+    DOWNLOAD_RANGE("download-range", "GET /api/files/{resourceId}/download/{filename} (Range)"),
+    PREVIEW_CIRC("preview-circ", "GET /api/files/{fileId}/preview"),
+    PREVIEW_DOC("preview-doc", "GET /api/files/{fileId}/html"),
+    UPLOAD("upload", "POST /api/files/{resourceId}/upload/batch");
+
+    private final String key;
+    private final String endpoint;
+
+    Operation(String key, String endpoint) {
+        this.key = key;
+        this.endpoint = endpoint;
+    }
+
+    public String key() {
+        return key;
+    }
+
+    public String endpoint() {
+        return endpoint;
+    }
+}
@@ -0,0 +1,54 @@
+package com.knohub.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Console table plus JSON result file. The JSON layout is also the baseline format.
+ */
+public final class Report {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private Report() {
+    }
+
+    public static void print(TrafficRunner.StageResult stage) {
+        System.out.printf("%n=== %d concurrent users (%.1fs) ===%n", stage.users(), stage.elapsedSeconds());
+        System.out.printf("%-16s %9s %8s %8s %9s %9s %9s %9s %9s%n",
+                "operation", "requests", "rps", "errors", "p50(ms)", "p90(ms)", "p99(ms)", "p99.9(ms)", "max(ms)");
+        long total = 0;
+        long totalErrors = 0;
+        for (Map.Entry<Operation, EndpointStats.Summary> entry : stage.operations().entrySet()) {
+            EndpointStats.Summary s = entry.getValue();
+            if (s.requests() == 0) {
+                continue;
+            }
+            total += s.requests();
+            totalErrors += s.errors();
+            System.out.printf("%-16s %9d %8.1f %7.2f%% %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    entry.getKey().key(), s.requests(), s.throughput(), s.errorRate() * 100,
+                    s.p50Ms(), s.p90Ms(), s.p99Ms(), s.p999Ms(), s.maxMs());
+        }
+        System.out.printf("%-16s %9d %8.1f %7.2f%%%n", "total", total, total / stage.elapsedSeconds(),
+                total == 0 ? 0 : 100.0 * totalErrors / total);
+    }
+
+    public static void write(Path file, List<TrafficRunner.StageResult> stages) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        MAPPER.writeValue(file.toFile(), stages);
+        System.out.println("Results written to " + file.toAbsolutePath());
+    }
+
+    public static List<TrafficRunner.StageResult> read(Path file) throws IOException {
+        return List.of(MAPPER.readValue(file.toFile(), TrafficRunner.StageResult[].class));
+    }
+}
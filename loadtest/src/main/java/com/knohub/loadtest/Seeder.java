@@ -0,0 +1,117 @@
+package com.knohub.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates synthetic courses through the public API (so the backing H2 database and upload
+ * directory are populated exactly as real uploads would), then builds a {@link Catalog}
+ * from what the API reports.
+ */
+public class Seeder {
+
+    static final String UPLOAD_FOLDER = "loadtest-uploads";
+    private static final String[] SUBJECTS = {"数字逻辑", "计算机组成原理", "数据结构", "操作系统", "计算机网络", "编译原理"};
+    private static final int UPLOAD_CHUNK = 6;
+
+    private final ApiClient api;
+    private final FixtureFactory fixtures;
+
+    public Seeder(ApiClient api, FixtureFactory fixtures) {
+        this.api = api;
+        this.fixtures = fixtures;
+    }
+
+    public void seed(int courses, int foldersPerCourse, int filesPerFolder) throws IOException, InterruptedException {
+        long start = System.currentTimeMillis();
+        for (int c = 0; c < courses; c++) {
+            String title = SUBJECTS[c % SUBJECTS.length] + " 期末复习 " + (c + 1);
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("type", "course");
+            body.put("title", title);
+            body.put("description", "Load test course " + (c + 1) + "：实验、课件与往年试题");
+            body.put("tag", c % 3 == 0 ? "hot" : "new");
+            long resourceId = api.data(api.postJson("/api/resources", body)).path("id").asLong();
+
+            for (int f = 0; f < foldersPerCourse; f++) {
+                Map<String, Object> folder = new LinkedHashMap<>();
+                folder.put("name", "第" + (f + 1) + "周");
+                long folderId = api.data(api.postJson("/api/files/" + resourceId + "/folders", folder)).path("id").asLong();
+
+                List<FixtureFactory.Fixture> batch = new ArrayList<>();
+                for (int i = 0; i < filesPerFolder; i++) {
+                    batch.add(fixtures.create("week" + (f + 1) + "-lab", i));
+                    if (batch.size() == UPLOAD_CHUNK || i == filesPerFolder - 1) {
+                        api.data(api.postFiles("/api/files/" + resourceId + "/upload/batch?folderId=" + folderId, "files", batch));
+                        batch.clear();
+                    }
+                }
+            }
+            System.out.printf("  seeded %d/%d: %s%n", c + 1, courses, title);
+        }
+        System.out.printf("Seeding finished in %.1fs%n", (System.currentTimeMillis() - start) / 1000.0);
+    }
+
+    /**
+     * Walk GET /api/resources and collect every file; ensure each course has a scratch folder for upload traffic.
+     */
+    public Catalog discover() throws IOException, InterruptedException {
+        Catalog catalog = new Catalog();
+        JsonNode resources = api.data(api.get("/api/resources", Map.of()));
+        for (JsonNode resource : resources) {
+            long resourceId = resource.path("id").asLong();
+            String title = resource.path("title").asText();
+            Long uploadFolderId = null;
+            for (JsonNode node : resource.path("files")) {
+                if (node.path("isFolder").asBoolean() && UPLOAD_FOLDER.equals(node.path("name").asText())) {
+                    uploadFolderId = node.path("id").asLong();
+                    continue;
+                }
+                collectFiles(catalog, resourceId, node);
+            }
+            if (uploadFolderId == null) {
+                Map<String, Object> folder = new LinkedHashMap<>();
+                folder.put("name", UPLOAD_FOLDER);
+                uploadFolderId = api.data(api.postJson("/api/files/" + resourceId + "/folders", folder)).path("id").asLong();
+            }
+            catalog.addCourse(new Catalog.Course(resourceId, title, uploadFolderId));
+            for (String word : title.split("\\s+")) {
+                catalog.addSearchTerm(word);
+            }
+        }
+        return catalog;
+    }
+
+    private void collectFiles(Catalog catalog, long resourceId, JsonNode node) {
+        if (node.path("isFolder").asBoolean()) {
+            for (JsonNode child : node.path("children")) {
+                collectFiles(catalog, resourceId, child);
+            }
+            return;
+        }
+        String url = node.path("url").asText("");
+        int slash = url.lastIndexOf('/');
+        if (slash < 0) {
+            return;
+        }
+        catalog.addFile(new Catalog.StoredFile(resourceId, node.path("id").asLong(), node.path("type").asText(""),
+                url.substring(slash + 1), parseSize(node.path("size").asText(""))));
+    }
+
+    private static long parseSize(String size) {
+        try {
+            if (size.endsWith("GB")) return (long) (Double.parseDouble(size.substring(0, size.length() - 2)) * (1L << 30));
+            if (size.endsWith("MB")) return (long) (Double.parseDouble(size.substring(0, size.length() - 2)) * (1L << 20));
+            if (size.endsWith("KB")) return (long) (Double.parseDouble(size.substring(0, size.length() - 2)) * (1L << 10));
+            if (size.endsWith("B")) return Long.parseLong(size.substring(0, size.length() - 1));
+        } catch (NumberFormatException ignored) {
+            // Unknown format; range requests then fall back to the first KB
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,177 @@
+package com.knohub.loadtest;
+
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Drives one concurrency stage: N virtual students, each picking an operation by weight,
+ * executing it, recording latency, then pausing for the think time.
+ */
+public class TrafficRunner {
+
+    private final ApiClient api;
+    private final Catalog catalog;
+    private final FixtureFactory fixtures;
+    private final LoadTestConfig config;
+    private final Operation[] weightedOps;
+
+    public TrafficRunner(ApiClient api, Catalog catalog, FixtureFactory fixtures, LoadTestConfig config) {
+        this.api = api;
+        this.catalog = catalog;
+        this.fixtures = fixtures;
+        this.config = config;
+
+        List<Operation> ops = new ArrayList<>();
+        for (Map.Entry<Operation, Integer> entry : config.mix().entrySet()) {
+            if (entry.getKey() == Operation.PREVIEW_DOC && !fixtures.hasRealDocSample()) {
+                System.out.println("No seed.doc-sample configured: skipping preview-doc traffic");
+                continue;
+            }
+            for (int i = 0; i < entry.getValue(); i++) {
+                ops.add(entry.getKey());
+            }
+        }
+        this.weightedOps = ops.toArray(new Operation[0]);
+    }
+
+    /**
+     * Run warmup (discarded) then the measured window.
+     */
+    public StageResult runStage(int users) throws InterruptedException {
+        System.out.printf("%nStage: %d users, warmup %ds, measure %ds%n", users, config.warmupSeconds(), config.durationSeconds());
+        run(users, config.warmupSeconds(), newStats());
+
+        Map<Operation, EndpointStats> stats = newStats();
+        long start = System.nanoTime();
+        run(users, config.durationSeconds(), stats);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        Map<Operation, EndpointStats.Summary> summaries = new EnumMap<>(Operation.class);
+        stats.forEach((op, s) -> summaries.put(op, s.summarize(elapsed)));
+        return new StageResult(users, elapsed, summaries);
+    }
+
+    private Map<Operation, EndpointStats> newStats() {
+        Map<Operation, EndpointStats> stats = new EnumMap<>(Operation.class);
+        for (Operation op : Operation.values()) {
+            stats.put(op, new EndpointStats());
+        }
+        return stats;
+    }
+
+    private void run(int users, int seconds, Map<Operation, EndpointStats> stats) throws InterruptedException {
+        if (seconds <= 0) {
+            return;
+        }
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Thread> threads = new ArrayList<>(users);
+        for (int u = 0; u < users; u++) {
+            Thread thread = new Thread(() -> studentLoop(deadline, stats), "student-" + u);
+            thread.setDaemon(true);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    private void studentLoop(long deadline, Map<Operation, EndpointStats> stats) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // Spread the first requests so a stage doesn't start with a thundering herd
+        sleep(random.nextLong(Math.max(1, config.thinkTimeMillis())));
+        while (System.nanoTime() < deadline) {
+            Operation op = weightedOps[random.nextInt(weightedOps.length)];
+            long start = System.nanoTime();
+            boolean error;
+            long bytes = 0;
+            try {
+                HttpResponse<byte[]> response = execute(op, random);
+                if (response == null) {
+                    // Nothing of this type in the catalog (e.g. no .circ files)
+                    sleep(config.thinkTimeMillis());
+                    continue;
+                }
+                bytes = response.body() == null ? 0 : response.body().length;
+                error = response.statusCode() >= 400;
+            } catch (Exception e) {
+                error = true;
+            }
+            stats.get(op).record(System.nanoTime() - start, error, bytes);
+            sleep(config.thinkTimeMillis());
+        }
+    }
+
+    private HttpResponse<byte[]> execute(Operation op, ThreadLocalRandom random) throws Exception {
+        switch (op) {
+            case LIST:
+                return api.get("/api/resources", Map.of());
+            case SEARCH:
+                return api.get("/api/resources/search?keyword=" + ApiClient.encode(catalog.randomSearchTerm()), Map.of());
+            case TREE:
+                return api.get("/api/files/" + catalog.randomCourse().id(), Map.of());
+            case DOWNLOAD: {
+                Catalog.StoredFile file = catalog.randomFile();
+                return file == null ? null : api.get(downloadPath(file), Map.of());
+            }
+            case DOWNLOAD_RANGE: {
+                Catalog.StoredFile file = catalog.randomFile();
+                if (file == null) {
+                    return null;
+                }
+                // Mobile players/PDF viewers fetch a window of the file rather than the whole body
+                long size = Math.max(1024, file.sizeBytes());
+                long from = random.nextLong(Math.max(1, size / 2));
+                long to = Math.min(size - 1, from + 64 * 1024);
+                return api.get(downloadPath(file), Map.of("Range", "bytes=" + from + "-" + to));
+            }
+            case PREVIEW_CIRC: {
+                Catalog.StoredFile file = catalog.randomCircFile();
+                return file == null ? null : api.get("/api/files/" + file.fileId() + "/preview", Map.of());
+            }
+            case PREVIEW_DOC: {
+                Catalog.StoredFile file = catalog.randomDocFile();
+                return file == null ? null : api.get("/api/files/" + file.fileId() + "/html", Map.of());
+            }
+            case UPLOAD: {
+                Catalog.Course course = catalog.randomCourse();
+                String prefix = "upload-" + UUID.randomUUID().toString().substring(0, 8);
+                int offset = random.nextInt(6);
+                List<FixtureFactory.Fixture> batch = new ArrayList<>();
+                for (int i = 0; i < config.uploadFilesPerBatch(); i++) {
+                    batch.add(fixtures.create(prefix, offset + i));
+                }
+                return api.postFiles("/api/files/" + course.id() + "/upload/batch?folderId=" + course.uploadFolderId(),
+                        "files", batch);
+            }
+            default:
+                throw new IllegalStateException("Unhandled operation " + op);
+        }
+    }
+
+    private static String downloadPath(Catalog.StoredFile file) {
+        return "/api/files/" + file.resourceId() + "/download/" + ApiClient.encode(file.storageName());
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Results of one stage.
+     */
+    public record StageResult(int users, double elapsedSeconds, Map<Operation, EndpointStats.Summary> operations) {
+    }
+}